@@ -221,8 +221,10 @@ public class PredictionRowView<T extends Context & ActivityContext>
             if (predictionCount > i) {
                 icon.setVisibility(View.VISIBLE);
                 icon.applyFromWorkspaceItem(mPredictedApps.get(i));
+                mActivityContext.getAppsView().getAppsStore().onIconBound(icon);
             } else {
                 icon.setVisibility(predictionCount == 0 ? GONE : INVISIBLE);
+                mActivityContext.getAppsView().getAppsStore().onIconUnbound(icon);
             }
         }
 
@@ -234,6 +236,14 @@ public class PredictionRowView<T extends Context & ActivityContext>
         mParent.onHeightUpdated();
     }
 
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        if (child instanceof BubbleTextView && mActivityContext.getAppsView() != null) {
+            mActivityContext.getAppsView().getAppsStore().onIconUnbound((BubbleTextView) child);
+        }
+    }
+
     @Override
     public boolean hasOverlappingRendering() {
         return false;
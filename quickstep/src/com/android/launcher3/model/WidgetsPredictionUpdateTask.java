@@ -32,7 +32,6 @@ import com.android.launcher3.widget.PendingAddWidgetInfo;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -61,16 +60,16 @@ public final class WidgetsPredictionUpdateTask extends BaseModelUpdateTask {
                 widget -> new ComponentKey(widget.providerName, widget.user)).collect(
                 Collectors.toSet());
         Predicate<WidgetItem> notOnWorkspace = w -> !widgetsInWorkspace.contains(w);
-        Map<PackageUserKey, List<WidgetItem>> allWidgets =
-                dataModel.widgetsModel.getAllWidgetsWithoutShortcuts();
 
         List<WidgetItem> servicePredictedItems = new ArrayList<>();
         List<WidgetItem> localFilteredWidgets = new ArrayList<>();
 
         for (AppTarget app : mTargets) {
             PackageUserKey packageUserKey = new PackageUserKey(app.getPackageName(), app.getUser());
-            List<WidgetItem> widgets = allWidgets.get(packageUserKey);
-            if (widgets == null || widgets.isEmpty()) {
+            // Only the widgets of the predicted apps are created
+            List<WidgetItem> widgets =
+                    dataModel.widgetsModel.getWidgetsWithoutShortcuts(packageUserKey);
+            if (widgets.isEmpty()) {
                 continue;
             }
             String className = app.getClassName();
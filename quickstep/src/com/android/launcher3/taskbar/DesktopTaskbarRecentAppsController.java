@@ -22,11 +22,14 @@ import android.util.SparseArray;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.util.ComponentKey;
 import com.android.quickstep.RecentsModel;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -67,6 +70,14 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
     protected void updateRunningApps(SparseArray<ItemInfo> hotseatItems) {
         ArrayList<AppInfo> runningApps = getRunningAppsFromTasks();
         ArrayList<ItemInfo> filteredRunningApps = new ArrayList<>();
+        // Reuse the previous infos so that the taskbar can skip rebinding unchanged icons
+        Map<ComponentKey, WorkspaceItemInfo> previousRunningApps = new HashMap<>();
+        for (ItemInfo info : mRunningApps) {
+            if (info instanceof WorkspaceItemInfo) {
+                previousRunningApps.put(new ComponentKey(info.getTargetComponent(), info.user),
+                        (WorkspaceItemInfo) info);
+            }
+        }
         for (AppInfo runningApp : runningApps) {
             boolean shouldAddOnTaskbar = true;
             for (int i = 0; i < hotseatItems.size(); i++) {
@@ -81,9 +92,17 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
                 }
             }
             if (shouldAddOnTaskbar) {
-                filteredRunningApps.add(new WorkspaceItemInfo(runningApp));
+                WorkspaceItemInfo previousInfo = previousRunningApps.get(
+                        new ComponentKey(runningApp.componentName, runningApp.user));
+                boolean canReuse = previousInfo != null && previousInfo.bitmap == runningApp.bitmap;
+                filteredRunningApps.add(
+                        canReuse ? previousInfo : new WorkspaceItemInfo(runningApp));
             }
         }
+        if (filteredRunningApps.equals(mRunningApps)) {
+            // ItemInfo doesn't override equals, so this only matches if the same infos were reused
+            return;
+        }
         mRunningApps = filteredRunningApps;
         mControllers.taskbarViewController.commitRunningAppsToUI();
     }
@@ -36,7 +36,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -48,6 +50,11 @@ public class TaskbarModelCallbacks implements
     private final SparseArray<ItemInfo> mHotseatItems = new SparseArray<>();
     private List<ItemInfo> mPredictedItems = Collections.emptyList();
 
+    // Items last pushed to mContainer, used to only rebind the views which actually changed.
+    private ItemInfo[] mCommittedItems;
+    // Items which were modified in place since the last commit and need to be rebound.
+    private final Set<ItemInfo> mDirtyItems = Collections.newSetFromMap(new IdentityHashMap<>());
+
     private final TaskbarActivityContext mContext;
     private final TaskbarView mContainer;
 
@@ -79,6 +86,8 @@ public class TaskbarModelCallbacks implements
         mContext.setBindingItems(true);
         mHotseatItems.clear();
         mPredictedItems = Collections.emptyList();
+        mCommittedItems = null;
+        mDirtyItems.clear();
     }
 
     @Override
@@ -109,6 +118,7 @@ public class TaskbarModelCallbacks implements
         for (ItemInfo item : items) {
             if (item.container == Favorites.CONTAINER_HOTSEAT) {
                 mHotseatItems.put(item.screenId, item);
+                mDirtyItems.add(item);
                 modified = true;
             }
         }
@@ -194,10 +204,31 @@ public class TaskbarModelCallbacks implements
         }
         hotseatItemInfos = mControllers.taskbarRecentAppsController
                 .updateHotseatItemInfos(hotseatItemInfos);
-        mContainer.updateHotseatItems(hotseatItemInfos);
+        if (mDirtyItems.isEmpty() && isSameItems(mCommittedItems, hotseatItemInfos)) {
+            // Nothing to rebind
+            return;
+        }
+        mContainer.updateHotseatItems(hotseatItemInfos, mDirtyItems::contains);
+        mCommittedItems = hotseatItemInfos;
+        mDirtyItems.clear();
         mControllers.taskbarViewController.updateIconsBackground();
     }
 
+    /**
+     * Returns true if both arrays contain the same item instances in the same positions.
+     */
+    private static boolean isSameItems(ItemInfo[] oldItems, ItemInfo[] newItems) {
+        if (oldItems == null || oldItems.length != newItems.length) {
+            return false;
+        }
+        for (int i = 0; i < oldItems.length; i++) {
+            if (oldItems[i] != newItems[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void onRunningTasksChanged() {
         updateRunningApps();
@@ -208,6 +239,15 @@ public class TaskbarModelCallbacks implements
         commitItemsToUI();
     }
 
+    /**
+     * Called when the device profile changes, which requires the full hotseat layout pass (e.g.
+     * to add or remove the inline QSB) even if the items are unchanged.
+     */
+    public void onDeviceProfileChanged() {
+        mCommittedItems = null;
+        commitItemsToUI();
+    }
+
     /** Call TaskbarRecentAppsController to update running apps with mHotseatItems. */
     public void updateRunningApps() {
         mControllers.taskbarRecentAppsController.updateRunningApps(mHotseatItems);
@@ -228,6 +268,10 @@ public class TaskbarModelCallbacks implements
         pw.println(prefix + "TaskbarModelCallbacks:");
 
         pw.println(String.format("%s\thotseat items count=%s", prefix, mHotseatItems.size()));
+        if (mCommittedItems != null) {
+            pw.println(String.format("%s\tcommitted items count=%s", prefix,
+                    mCommittedItems.length));
+        }
         if (mPredictedItems != null) {
             pw.println(
                     String.format("%s\tpredicted items count=%s", prefix, mPredictedItems.size()));
@@ -52,6 +52,9 @@ import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.views.DoubleShadowBubbleTextView;
 import com.android.launcher3.views.IconButtonView;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -233,8 +236,13 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
 
     /**
      * Inflates/binds the Hotseat views to show in the Taskbar given their ItemInfos.
+     *
+     * Views are keyed by their ItemInfo: a view already bound to an item is moved to the item's
+     * new position and is only rebound if {@param isItemChanged} returns true for it. Views of
+     * items which are no longer present are reused for new items, or removed.
      */
-    protected void updateHotseatItems(ItemInfo[] hotseatItemInfos) {
+    protected void updateHotseatItems(ItemInfo[] hotseatItemInfos,
+            Predicate<ItemInfo> isItemChanged) {
         int nextViewIndex = 0;
         int numViewsAnimated = 0;
 
@@ -247,6 +255,12 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
         }
         removeView(mQsb);
 
+        Set<ItemInfo> newItems = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ItemInfo info : hotseatItemInfos) {
+            if (info != null) {
+                newItems.add(info);
+            }
+        }
 
         for (int i = 0; i < hotseatItemInfos.length; i++) {
             ItemInfo hotseatItemInfo = hotseatItemInfos[i];
@@ -266,21 +280,44 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
                 expectedLayoutResId = R.layout.taskbar_app_icon;
             }
 
+            // First look for a view which is already bound to this item
             View hotseatView = null;
-            while (nextViewIndex < getChildCount()) {
-                hotseatView = getChildAt(nextViewIndex);
+            boolean needsBind = true;
+            for (int j = nextViewIndex; j < getChildCount(); j++) {
+                View child = getChildAt(j);
+                if (child.getTag() == hotseatItemInfo
+                        && child.getSourceLayoutResId() == expectedLayoutResId) {
+                    hotseatView = child;
+                    if (j != nextViewIndex) {
+                        removeViewInLayout(child);
+                        addViewInLayout(child, nextViewIndex, child.getLayoutParams());
+                        requestLayout();
+                    }
+                    needsBind = isItemChanged.test(hotseatItemInfo);
+                    break;
+                }
+            }
 
-                // see if the view can be reused
-                if ((hotseatView.getSourceLayoutResId() != expectedLayoutResId)
-                        || (isFolder && (hotseatView.getTag() != hotseatItemInfo))) {
+            // Otherwise reuse a view whose item is no longer shown
+            int searchIndex = nextViewIndex;
+            while (hotseatView == null && searchIndex < getChildCount()) {
+                View child = getChildAt(searchIndex);
+                if (newItems.contains(child.getTag())) {
+                    // Still needed for a later item
+                    searchIndex++;
+                } else if ((child.getSourceLayoutResId() != expectedLayoutResId) || isFolder) {
                     // Unlike for BubbleTextView, we can't reapply a new FolderInfo after inflation,
                     // so if the info changes we need to reinflate. This should only happen if a new
                     // folder is dragged to the position that another folder previously existed.
-                    removeAndRecycle(hotseatView);
-                    hotseatView = null;
+                    removeAndRecycle(child);
                 } else {
                     // View found
-                    break;
+                    hotseatView = child;
+                    if (searchIndex != nextViewIndex) {
+                        removeViewInLayout(child);
+                        addViewInLayout(child, nextViewIndex, child.getLayoutParams());
+                        requestLayout();
+                    }
                 }
             }
 
@@ -300,7 +337,7 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
             }
 
             // Apply the Hotseat ItemInfos, or hide the view if there is none for a given index.
-            if (hotseatView instanceof BubbleTextView
+            if (needsBind && hotseatView instanceof BubbleTextView
                     && hotseatItemInfo instanceof WorkspaceItemInfo) {
                 BubbleTextView btv = (BubbleTextView) hotseatView;
                 WorkspaceItemInfo workspaceInfo = (WorkspaceItemInfo) hotseatItemInfo;
@@ -311,7 +348,9 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
                     numViewsAnimated++;
                 }
             }
-            setClickAndLongClickListenersForIcon(hotseatView);
+            if (needsBind) {
+                setClickAndLongClickListenersForIcon(hotseatView);
+            }
             nextViewIndex++;
         }
         // Remove remaining views
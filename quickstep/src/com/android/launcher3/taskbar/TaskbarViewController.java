@@ -123,7 +123,7 @@ public class TaskbarViewController implements TaskbarControllers.LoggableTaskbar
     private boolean mIsHotseatIconOnTopWhenAligned;
 
     private final DeviceProfile.OnDeviceProfileChangeListener mDeviceProfileChangeListener =
-            dp -> commitRunningAppsToUI();
+            dp -> mModelCallbacks.onDeviceProfileChanged();
 
     private final boolean mIsRtl;
 
@@ -67,7 +67,6 @@ import android.app.ActivityOptions;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentSender;
-import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.graphics.Rect;
 import android.graphics.RectF;
@@ -97,6 +96,7 @@ import com.android.app.viewcapture.SettingsAwareViewCapture;
 import com.android.launcher3.AbstractFloatingView;
 import com.android.launcher3.DeviceProfile;
 import com.android.launcher3.Launcher;
+import com.android.launcher3.LauncherPrefs;
 import com.android.launcher3.LauncherSettings.Favorites;
 import com.android.launcher3.LauncherState;
 import com.android.launcher3.OnBackPressedHandler;
@@ -332,8 +332,8 @@ public class QuickstepLauncher extends Launcher {
     }
 
     @Override
-    protected QuickstepOnboardingPrefs createOnboardingPrefs(SharedPreferences sharedPrefs) {
-        return new QuickstepOnboardingPrefs(this, sharedPrefs);
+    protected QuickstepOnboardingPrefs createOnboardingPrefs(LauncherPrefs launcherPrefs) {
+        return new QuickstepOnboardingPrefs(this, launcherPrefs);
     }
 
     @Override
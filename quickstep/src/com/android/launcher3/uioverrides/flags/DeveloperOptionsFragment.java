@@ -31,7 +31,6 @@ import android.annotation.TargetApi;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.net.Uri;
@@ -395,12 +394,7 @@ public class DeveloperOptionsFragment extends PreferenceFragmentCompat {
             onboardingPref.setTitle(title);
             onboardingPref.setSummary("Tap to reset");
             onboardingPref.setOnPreferenceClickListener(preference -> {
-                SharedPreferences.Editor sharedPrefsEdit = LauncherPrefs.getPrefs(getContext())
-                        .edit();
-                for (String key : keys) {
-                    sharedPrefsEdit.remove(key);
-                }
-                sharedPrefsEdit.apply();
+                OnboardingPrefs.reset(LauncherPrefs.get(getContext()), keys);
                 Toast.makeText(getContext(), "Reset " + title, Toast.LENGTH_SHORT).show();
                 return true;
             });
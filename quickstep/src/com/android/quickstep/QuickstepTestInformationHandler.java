@@ -18,6 +18,7 @@ import com.android.launcher3.testing.TestInformationHandler;
 import com.android.launcher3.testing.shared.TestProtocol;
 import com.android.launcher3.touch.PagedOrientationHandler;
 import com.android.launcher3.util.DisplayController;
+import com.android.quickstep.util.BinderTracker;
 import com.android.quickstep.util.LayoutUtils;
 import com.android.quickstep.util.TISBindHelper;
 
@@ -137,6 +138,20 @@ public class QuickstepTestInformationHandler extends TestInformationHandler {
                 });
                 return response;
 
+            case TestProtocol.REQUEST_START_BINDER_ACCOUNTING:
+                BinderTracker.resetAccounting();
+                BinderTracker.startAccounting();
+                return response;
+
+            case TestProtocol.REQUEST_STOP_BINDER_ACCOUNTING:
+                BinderTracker.stopAccounting();
+                return response;
+
+            case TestProtocol.REQUEST_BINDER_ACCOUNTING_SNAPSHOT:
+                response.putStringArrayList(TestProtocol.TEST_INFO_RESPONSE_FIELD,
+                        BinderTracker.getAccountingSnapshot());
+                return response;
+
             case TestProtocol.REQUEST_ENABLE_TRANSIENT_TASKBAR:
                 enableTransientTaskbar(true);
                 return response;
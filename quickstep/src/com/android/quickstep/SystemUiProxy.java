@@ -38,6 +38,7 @@ import android.os.Message;
 import android.os.RemoteException;
 import android.os.UserHandle;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.RemoteAnimationAdapter;
 import android.view.RemoteAnimationTarget;
@@ -53,6 +54,7 @@ import com.android.internal.logging.InstanceId;
 import com.android.internal.util.ScreenshotRequest;
 import com.android.launcher3.util.MainThreadInitializedObject;
 import com.android.launcher3.util.SplitConfigurationOptions;
+import com.android.quickstep.util.BinderTracker;
 import com.android.systemui.shared.recents.ISystemUiProxy;
 import com.android.systemui.shared.system.smartspace.ILauncherUnlockAnimationController;
 import com.android.systemui.shared.system.smartspace.ISysuiUnlockAnimationController;
@@ -73,6 +75,7 @@ import com.android.wm.shell.startingsurface.IStartingWindowListener;
 import com.android.wm.shell.transition.IShellTransitions;
 import com.android.wm.shell.util.GroupedRecentTaskInfo;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -83,11 +86,14 @@ import java.util.LinkedHashMap;
 public class SystemUiProxy implements ISystemUiProxy {
     private static final String TAG = SystemUiProxy.class.getSimpleName();
 
+    // Packages of the SysUI and Shell interfaces, used to count their binder calls
+    private static final String[] SYSUI_INTERFACE_PREFIXES =
+            {"com.android.systemui.", "com.android.wm.shell."};
+
     public static final MainThreadInitializedObject<SystemUiProxy> INSTANCE =
             new MainThreadInitializedObject<>(SystemUiProxy::new);
 
-    private static final int MSG_SET_SHELF_HEIGHT = 1;
-    private static final int MSG_SET_LAUNCHER_KEEP_CLEAR_AREA_HEIGHT = 2;
+    private static final int MSG_SCHEDULE_COMMAND_FLUSH = 1;
 
     private ISystemUiProxy mSystemUiProxy;
     private IPip mPip;
@@ -129,6 +135,15 @@ public class SystemUiProxy implements ISystemUiProxy {
     private final Context mContext;
     private final Handler mAsyncHandler;
 
+    // Fire-and-forget state updates waiting to be sent, by command name and in the order of
+    // their latest update. Only the latest update of each command is sent, once per frame, on
+    // the async handler thread. Guarded by mPendingCommands.
+    private final LinkedHashMap<String, Runnable> mPendingCommands = new LinkedHashMap<>();
+    private final Choreographer.FrameCallback mFlushCommandsCallback =
+            frameTimeNanos -> flushCommands();
+    private int mQueuedCommandCount;
+    private int mSentCommandCount;
+
     // TODO(141886704): Find a way to remove this
     private int mLastSystemUiStateFlags;
 
@@ -161,13 +176,16 @@ public class SystemUiProxy implements ISystemUiProxy {
 
     @Override
     public void setHomeRotationEnabled(boolean enabled) {
-        if (mSystemUiProxy != null) {
-            try {
-                mSystemUiProxy.setHomeRotationEnabled(enabled);
-            } catch (RemoteException e) {
-                Log.w(TAG, "Failed call onBackPressed", e);
+        queueCommand("setHomeRotationEnabled", () -> {
+            ISystemUiProxy proxy = mSystemUiProxy;
+            if (proxy != null) {
+                try {
+                    proxy.setHomeRotationEnabled(enabled);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Failed call setHomeRotationEnabled", e);
+                }
             }
-        }
+        });
     }
 
     @Override
@@ -359,37 +377,46 @@ public class SystemUiProxy implements ISystemUiProxy {
 
     @Override
     public void notifyPrioritizedRotation(int rotation) {
-        if (mSystemUiProxy != null) {
-            try {
-                mSystemUiProxy.notifyPrioritizedRotation(rotation);
-            } catch (RemoteException e) {
-                Log.w(TAG, "Failed call notifyPrioritizedRotation with arg: " + rotation, e);
+        queueCommand("notifyPrioritizedRotation", () -> {
+            ISystemUiProxy proxy = mSystemUiProxy;
+            if (proxy != null) {
+                try {
+                    proxy.notifyPrioritizedRotation(rotation);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Failed call notifyPrioritizedRotation with arg: " + rotation, e);
+                }
             }
-        }
+        });
     }
 
     @Override
     public void setTaskbarEnabled(boolean enabled) {
-        if (mSystemUiProxy != null) {
-            try {
-                mSystemUiProxy.setTaskbarEnabled(enabled);
-            } catch (RemoteException e) {
-                Log.w(TAG, "Failed call setTaskbarEnabled with arg: " +
-                        enabled, e);
+        queueCommand("setTaskbarEnabled", () -> {
+            ISystemUiProxy proxy = mSystemUiProxy;
+            if (proxy != null) {
+                try {
+                    proxy.setTaskbarEnabled(enabled);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Failed call setTaskbarEnabled with arg: " +
+                            enabled, e);
+                }
             }
-        }
+        });
     }
 
     @Override
     public void notifyTaskbarStatus(boolean visible, boolean stashed) {
-        if (mSystemUiProxy != null) {
-            try {
-                mSystemUiProxy.notifyTaskbarStatus(visible, stashed);
-            } catch (RemoteException e) {
-                Log.w(TAG, "Failed call notifyTaskbarStatus with arg: " +
-                        visible + ", " + stashed, e);
+        queueCommand("notifyTaskbarStatus", () -> {
+            ISystemUiProxy proxy = mSystemUiProxy;
+            if (proxy != null) {
+                try {
+                    proxy.notifyTaskbarStatus(visible, stashed);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Failed call notifyTaskbarStatus with arg: " +
+                            visible + ", " + stashed, e);
+                }
             }
-        }
+        });
     }
 
     /**
@@ -398,14 +425,17 @@ public class SystemUiProxy implements ISystemUiProxy {
      */
     @Override
     public void notifyTaskbarAutohideSuspend(boolean suspend) {
-        if (mSystemUiProxy != null) {
-            try {
-                mSystemUiProxy.notifyTaskbarAutohideSuspend(suspend);
-            } catch (RemoteException e) {
-                Log.w(TAG, "Failed call notifyTaskbarAutohideSuspend with arg: " +
-                        suspend, e);
+        queueCommand("notifyTaskbarAutohideSuspend", () -> {
+            ISystemUiProxy proxy = mSystemUiProxy;
+            if (proxy != null) {
+                try {
+                    proxy.notifyTaskbarAutohideSuspend(suspend);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Failed call notifyTaskbarAutohideSuspend with arg: " +
+                            suspend, e);
+                }
             }
-        }
+        });
     }
 
     @Override
@@ -449,13 +479,11 @@ public class SystemUiProxy implements ISystemUiProxy {
      * Sets the shelf height.
      */
     public void setShelfHeight(boolean visible, int shelfHeight) {
-        Message.obtain(mAsyncHandler, MSG_SET_SHELF_HEIGHT,
-                visible ? 1 : 0 , shelfHeight).sendToTarget();
+        queueCommand("setShelfHeight", () -> setShelfHeightAsync(visible, shelfHeight));
     }
 
     @WorkerThread
-    private void setShelfHeightAsync(int visibleInt, int shelfHeight) {
-        boolean visible = visibleInt != 0;
+    private void setShelfHeightAsync(boolean visible, int shelfHeight) {
         boolean changed = visible != mLastShelfVisible || shelfHeight != mLastShelfHeight;
         IPip pip = mPip;
         if (pip != null && changed) {
@@ -475,13 +503,12 @@ public class SystemUiProxy implements ISystemUiProxy {
      * the Launcher for the Hotseat.
      */
     public void setLauncherKeepClearAreaHeight(boolean visible, int height) {
-        Message.obtain(mAsyncHandler, MSG_SET_LAUNCHER_KEEP_CLEAR_AREA_HEIGHT,
-                visible ? 1 : 0 , height).sendToTarget();
+        queueCommand("setLauncherKeepClearAreaHeight",
+                () -> setLauncherKeepClearAreaHeightAsync(visible, height));
     }
 
     @WorkerThread
-    private void setLauncherKeepClearAreaHeight(int visibleInt, int height) {
-        boolean visible = visibleInt != 0;
+    private void setLauncherKeepClearAreaHeightAsync(boolean visible, int height) {
         boolean changed = visible != mLastLauncherKeepClearAreaHeightVisible
                 || height != mLastLauncherKeepClearAreaHeight;
         IPip pip = mPip;
@@ -562,13 +589,16 @@ public class SystemUiProxy implements ISystemUiProxy {
      * Sets the app icon size in pixel used by Launcher all apps.
      */
     public void setLauncherAppIconSize(int iconSizePx) {
-        if (mPip != null) {
-            try {
-                mPip.setLauncherAppIconSize(iconSizePx);
-            } catch (RemoteException e) {
-                Log.w(TAG, "Failed call setLauncherAppIconSize", e);
+        queueCommand("setLauncherAppIconSize", () -> {
+            IPip pip = mPip;
+            if (pip != null) {
+                try {
+                    pip.setLauncherAppIconSize(iconSizePx);
+                } catch (RemoteException e) {
+                    Log.w(TAG, "Failed call setLauncherAppIconSize", e);
+                }
             }
-        }
+        });
     }
 
     //
@@ -999,17 +1029,56 @@ public class SystemUiProxy implements ISystemUiProxy {
 
     private boolean handleMessageAsync(Message msg) {
         switch (msg.what) {
-            case MSG_SET_SHELF_HEIGHT:
-                setShelfHeightAsync(msg.arg1, msg.arg2);
-                return true;
-            case MSG_SET_LAUNCHER_KEEP_CLEAR_AREA_HEIGHT:
-                setLauncherKeepClearAreaHeight(msg.arg1, msg.arg2);
+            case MSG_SCHEDULE_COMMAND_FLUSH:
+                Choreographer.getInstance().postFrameCallback(mFlushCommandsCallback);
                 return true;
         }
 
         return false;
     }
 
+    /**
+     * Queues a one-way state update, replacing any pending update of the same command. The
+     * pending commands are sent together on the next frame, on the async handler thread.
+     */
+    private void queueCommand(String name, Runnable command) {
+        boolean scheduleFlush;
+        synchronized (mPendingCommands) {
+            scheduleFlush = mPendingCommands.isEmpty();
+            // Move the command to the end, so that commands are sent in their latest order
+            mPendingCommands.remove(name);
+            mPendingCommands.put(name, command);
+            mQueuedCommandCount++;
+        }
+        if (scheduleFlush) {
+            mAsyncHandler.sendEmptyMessage(MSG_SCHEDULE_COMMAND_FLUSH);
+        }
+    }
+
+    @WorkerThread
+    private void flushCommands() {
+        Runnable[] commands;
+        synchronized (mPendingCommands) {
+            commands = mPendingCommands.values().toArray(new Runnable[0]);
+            mPendingCommands.clear();
+            mSentCommandCount += commands.length;
+        }
+        for (Runnable command : commands) {
+            command.run();
+        }
+    }
+
+    public void dump(PrintWriter pw) {
+        pw.println(TAG + ":");
+        synchronized (mPendingCommands) {
+            pw.println("\tqueuedCommands=" + mQueuedCommandCount);
+            pw.println("\tsentCommands=" + mSentCommandCount);
+            pw.println("\tpendingCommands=" + mPendingCommands.keySet());
+        }
+        pw.println("\tmainThreadBinderCalls="
+                + BinderTracker.getCallCount(BinderTracker.THREAD_MAIN, SYSUI_INTERFACE_PREFIXES));
+    }
+
     //
     // Desktop Mode
     //
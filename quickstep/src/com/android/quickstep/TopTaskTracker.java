@@ -31,6 +31,7 @@ import android.content.Context;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
 
 import com.android.launcher3.util.MainThreadInitializedObject;
 import com.android.launcher3.util.SplitConfigurationOptions;
@@ -47,9 +48,6 @@ import com.android.wm.shell.splitscreen.ISplitScreenListener;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -63,14 +61,17 @@ public class TopTaskTracker extends ISplitScreenListener.Stub implements TaskSta
 
     private static final int HISTORY_SIZE = 5;
 
-    // Ordered list with first item being the most recent task.
-    private final LinkedList<RunningTaskInfo> mOrderedTaskList = new LinkedList<>();
-
+    // Ordered history with first item being the most recent task.
+    private final TaskHistory mTaskHistory = new TaskHistory(HISTORY_SIZE);
 
     private final SplitStageInfo mMainStagePosition = new SplitStageInfo();
     private final SplitStageInfo mSideStagePosition = new SplitStageInfo();
     private int mPinnedTaskId = INVALID_TASK_ID;
 
+    // Lazily created snapshot of mTaskHistory, cleared whenever the history changes
+    @Nullable
+    private CachedTaskInfo mCachedTopTask;
+
     private TopTaskTracker(Context context) {
         mMainStagePosition.stageType = SplitConfigurationOptions.STAGE_TYPE_MAIN;
         mSideStagePosition.stageType = SplitConfigurationOptions.STAGE_TYPE_SIDE;
@@ -81,38 +82,27 @@ public class TopTaskTracker extends ISplitScreenListener.Stub implements TaskSta
 
     @Override
     public void onTaskRemoved(int taskId) {
-        mOrderedTaskList.removeIf(rto -> rto.taskId == taskId);
+        if (mTaskHistory.remove(taskId)) {
+            mCachedTopTask = null;
+        }
     }
 
     @Override
     public void onTaskMovedToFront(RunningTaskInfo taskInfo) {
-        mOrderedTaskList.removeIf(rto -> rto.taskId == taskInfo.taskId);
-        mOrderedTaskList.addFirst(taskInfo);
+        mCachedTopTask = null;
+        mTaskHistory.moveToFront(taskInfo);
 
         // Keep the home display's top running task in the first while adding a non-home
         // display's task to the list, to avoid showing non-home display's task upon going to
         // Recents animation.
         if (taskInfo.displayId != DEFAULT_DISPLAY) {
-            final RunningTaskInfo topTaskOnHomeDisplay = mOrderedTaskList.stream()
-                    .filter(rto -> rto.displayId == DEFAULT_DISPLAY).findFirst().orElse(null);
-            if (topTaskOnHomeDisplay != null) {
-                mOrderedTaskList.removeIf(rto -> rto.taskId == topTaskOnHomeDisplay.taskId);
-                mOrderedTaskList.addFirst(topTaskOnHomeDisplay);
-            }
+            mTaskHistory.moveFirstOnDisplayToFront(DEFAULT_DISPLAY);
         }
 
-        if (mOrderedTaskList.size() >= HISTORY_SIZE) {
+        if (mTaskHistory.size() >= HISTORY_SIZE) {
             // If we grow in size, remove the last taskInfo which is not part of the split task.
-            Iterator<RunningTaskInfo> itr = mOrderedTaskList.descendingIterator();
-            while (itr.hasNext()) {
-                RunningTaskInfo info = itr.next();
-                if (info.taskId != taskInfo.taskId
-                        && info.taskId != mMainStagePosition.taskId
-                        && info.taskId != mSideStagePosition.taskId) {
-                    itr.remove();
-                    return;
-                }
-            }
+            mTaskHistory.trimOldest(taskInfo.taskId, mMainStagePosition.taskId,
+                    mSideStagePosition.taskId);
         }
     }
 
@@ -154,11 +144,13 @@ public class TopTaskTracker extends ISplitScreenListener.Stub implements TaskSta
     @Override
     public void onActivityPinned(String packageName, int userId, int taskId, int stackId) {
         mPinnedTaskId = taskId;
+        mCachedTopTask = null;
     }
 
     @Override
     public void onActivityUnpinned() {
         mPinnedTaskId = INVALID_TASK_ID;
+        mCachedTopTask = null;
     }
 
     private void resetTaskId(SplitStageInfo taskPosition) {
@@ -199,17 +191,140 @@ public class TopTaskTracker extends ISplitScreenListener.Stub implements TaskSta
             return new CachedTaskInfo(Arrays.asList(tasks));
         }
 
-        if (mOrderedTaskList.isEmpty()) {
+        if (mCachedTopTask != null) {
+            return mCachedTopTask;
+        }
+
+        if (mTaskHistory.size() == 0) {
             RunningTaskInfo[] tasks = TraceHelper.allowIpcs("getCachedTopTask.false", () ->
                     ActivityManagerWrapper.getInstance().getRunningTasks(
                             false /* filterOnlyVisibleRecents */));
-            Collections.addAll(mOrderedTaskList, tasks);
+            mTaskHistory.addAll(tasks);
         }
 
         // Strip the pinned task
-        ArrayList<RunningTaskInfo> tasks = new ArrayList<>(mOrderedTaskList);
-        tasks.removeIf(t -> t.taskId == mPinnedTaskId);
-        return new CachedTaskInfo(tasks);
+        mCachedTopTask = new CachedTaskInfo(mTaskHistory.toList(mPinnedTaskId));
+        return mCachedTopTask;
+    }
+
+    /**
+     * Fixed capacity list of running tasks ordered by recency, indexed by task id. The history is
+     * bounded by {@link #HISTORY_SIZE} (except for the initial fill from the system), so moving a
+     * task to the front shifts at most a handful of entries and never allocates.
+     */
+    @VisibleForTesting
+    static class TaskHistory {
+
+        private int[] mTaskIds;
+        private RunningTaskInfo[] mTasks;
+        private int mSize;
+
+        TaskHistory(int capacity) {
+            mTaskIds = new int[capacity];
+            mTasks = new RunningTaskInfo[capacity];
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        int getTaskId(int index) {
+            return mTaskIds[index];
+        }
+
+        private int indexOf(int taskId) {
+            for (int i = 0; i < mSize; i++) {
+                if (mTaskIds[i] == taskId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /** Appends the tasks at the end of the history, in order. */
+        void addAll(RunningTaskInfo[] tasks) {
+            ensureCapacity(mSize + tasks.length);
+            for (RunningTaskInfo task : tasks) {
+                mTaskIds[mSize] = task.taskId;
+                mTasks[mSize] = task;
+                mSize++;
+            }
+        }
+
+        /** Removes the task with the provided id, returning true if it was present. */
+        boolean remove(int taskId) {
+            int index = indexOf(taskId);
+            if (index < 0) {
+                return false;
+            }
+            removeAt(index);
+            return true;
+        }
+
+        private void removeAt(int index) {
+            int tail = mSize - index - 1;
+            System.arraycopy(mTaskIds, index + 1, mTaskIds, index, tail);
+            System.arraycopy(mTasks, index + 1, mTasks, index, tail);
+            mSize--;
+            mTasks[mSize] = null;
+        }
+
+        /** Adds or moves the task to the front of the history. */
+        void moveToFront(RunningTaskInfo task) {
+            int index = indexOf(task.taskId);
+            if (index < 0) {
+                ensureCapacity(mSize + 1);
+                index = mSize;
+                mSize++;
+            }
+            shiftToFront(index, task);
+        }
+
+        /** Moves the most recent task on the provided display to the front of the history. */
+        void moveFirstOnDisplayToFront(int displayId) {
+            for (int i = 0; i < mSize; i++) {
+                if (mTasks[i].displayId == displayId) {
+                    shiftToFront(i, mTasks[i]);
+                    return;
+                }
+            }
+        }
+
+        private void shiftToFront(int index, RunningTaskInfo task) {
+            System.arraycopy(mTaskIds, 0, mTaskIds, 1, index);
+            System.arraycopy(mTasks, 0, mTasks, 1, index);
+            mTaskIds[0] = task.taskId;
+            mTasks[0] = task;
+        }
+
+        /** Removes the least recent task whose id is not one of the provided ids. */
+        void trimOldest(int keepId1, int keepId2, int keepId3) {
+            for (int i = mSize - 1; i >= 0; i--) {
+                int taskId = mTaskIds[i];
+                if (taskId != keepId1 && taskId != keepId2 && taskId != keepId3) {
+                    removeAt(i);
+                    return;
+                }
+            }
+        }
+
+        /** Returns the tasks in order, skipping the task with the provided id. */
+        List<RunningTaskInfo> toList(int excludedTaskId) {
+            ArrayList<RunningTaskInfo> result = new ArrayList<>(mSize);
+            for (int i = 0; i < mSize; i++) {
+                if (mTaskIds[i] != excludedTaskId) {
+                    result.add(mTasks[i]);
+                }
+            }
+            return result;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > mTaskIds.length) {
+                mTaskIds = Arrays.copyOf(mTaskIds, capacity);
+                mTasks = Arrays.copyOf(mTasks, capacity);
+            }
+        }
     }
 
     /**
@@ -48,7 +48,6 @@ import android.app.PendingIntent;
 import android.app.RemoteAction;
 import android.app.Service;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.graphics.Region;
 import android.graphics.drawable.Icon;
@@ -71,6 +70,7 @@ import androidx.annotation.UiThread;
 
 import com.android.app.viewcapture.SettingsAwareViewCapture;
 import com.android.launcher3.BaseDraggingActivity;
+import com.android.launcher3.ConstantItem;
 import com.android.launcher3.LauncherPrefs;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
@@ -105,6 +105,7 @@ import com.android.quickstep.inputconsumers.SysUiOverlayInputConsumer;
 import com.android.quickstep.inputconsumers.TaskbarStashInputConsumer;
 import com.android.quickstep.util.ActiveGestureLog;
 import com.android.quickstep.util.ActiveGestureLog.CompoundString;
+import com.android.quickstep.util.BinderTracker;
 import com.android.quickstep.util.ProtoTracer;
 import com.android.quickstep.util.ProxyScreenStatusProvider;
 import com.android.systemui.shared.recents.IOverviewProxy;
@@ -143,7 +144,8 @@ public class TouchInteractionService extends Service
 
     private static final String TAG = "TouchInteractionService";
 
-    private static final String HAS_ENABLED_QUICKSTEP_ONCE = "launcher.has_enabled_quickstep_once";
+    private static final ConstantItem<Boolean> HAS_ENABLED_QUICKSTEP_ONCE =
+            LauncherPrefs.backedUpItem("launcher.has_enabled_quickstep_once", true, false);
 
     private final TISBinder mTISBinder = new TISBinder();
 
@@ -419,6 +421,10 @@ public class TouchInteractionService extends Service
 
         ProtoTracer.INSTANCE.get(this).add(this);
         sConnected = true;
+
+        if (FeatureFlags.ENABLE_BINDER_ACCOUNTING.get()) {
+            BinderTracker.startAccounting();
+        }
     }
 
     private void disposeEventHandlers(String reason) {
@@ -490,13 +496,12 @@ public class TouchInteractionService extends Service
             return;
         }
 
-        // Reset home bounce seen on quick step enabled for first time
-        SharedPreferences sharedPrefs = LauncherPrefs.getPrefs(this);
-        if (!sharedPrefs.getBoolean(HAS_ENABLED_QUICKSTEP_ONCE, true)) {
-            sharedPrefs.edit()
-                    .putBoolean(HAS_ENABLED_QUICKSTEP_ONCE, true)
-                    .putBoolean(OnboardingPrefs.HOME_BOUNCE_SEEN, false)
-                    .apply();
+        // Reset home bounce seen on quick step enabled for first time. This goes through
+        // LauncherPrefs so that a buffered HOME_BOUNCE_SEEN write can't overwrite the reset.
+        LauncherPrefs prefs = LauncherPrefs.get(this);
+        if (!prefs.get(HAS_ENABLED_QUICKSTEP_ONCE)) {
+            prefs.put(HAS_ENABLED_QUICKSTEP_ONCE.to(true),
+                    OnboardingPrefs.boolItem(OnboardingPrefs.HOME_BOUNCE_SEEN).to(false));
         }
     }
 
@@ -622,6 +627,7 @@ public class TouchInteractionService extends Service
 
         Object traceToken = TraceHelper.INSTANCE.beginFlagsOverride(
                 TraceHelper.FLAG_ALLOW_BINDER_TRACKING);
+        int callSiteToken = BinderTracker.beginCallSite("TIS.onInputEvent");
 
         final int action = event.getAction();
         if (action == ACTION_DOWN) {
@@ -692,6 +698,7 @@ public class TouchInteractionService extends Service
         if (cleanUpConsumer) {
             reset();
         }
+        BinderTracker.endCallSite(callSiteToken);
         TraceHelper.INSTANCE.endFlagsOverride(traceToken);
         ProtoTracer.INSTANCE.get(this).scheduleFrameUpdate();
     }
@@ -1215,6 +1222,8 @@ public class TouchInteractionService extends Service
                 createdOverviewActivity.getDeviceProfile().dump(this, "", pw);
             }
             mTaskbarManager.dumpLogs("", pw);
+            BinderTracker.dump("", pw);
+            SystemUiProxy.INSTANCE.get(this).dump(pw);
 
             if (FeatureFlags.CONTINUOUS_VIEW_TREE_CAPTURE.get()) {
                 SettingsAwareViewCapture.getInstance(this).dump(pw, fd, this);
@@ -1226,6 +1235,7 @@ public class TouchInteractionService extends Service
         pw.println("Available commands:");
         pw.println("  clear-touch-log: Clears the touch interaction log");
         pw.println("  print-gesture-log: only prints the ActiveGestureLog dump");
+        pw.println("  clear-binder-stats: Clears the binder calls accounted by BinderTracker");
     }
 
     private void onCommand(PrintWriter pw, LinkedList<String> args) {
@@ -1242,6 +1252,9 @@ public class TouchInteractionService extends Service
             case "print-gesture-log":
                 ActiveGestureLog.INSTANCE.dump("", pw);
                 break;
+            case "clear-binder-stats":
+                BinderTracker.resetAccounting();
+                break;
             default:
                 pw.println("Command does not exist: " + cmd);
                 printAvailableCommands(pw);
@@ -16,20 +16,54 @@
 
 package com.android.quickstep.util;
 
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
 import android.os.Binder;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.RemoteException;
+import android.os.SystemClock;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
 import com.android.launcher3.config.FeatureFlags;
 
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
 /**
- * Utility class to test and check binder calls during development.
+ * Utility class to test and check binder calls.
+ *
+ * {@link #start()} logs binder calls on the UI thread during development, while
+ * {@link #startAccounting()} aggregates the count and latency of all outgoing binder calls,
+ * per calling thread, interface and call site, and is cheap enough to use in released code.
  */
 public class BinderTracker {
 
     private static final String TAG = "BinderTracker";
 
+    public static final String THREAD_MAIN = "main";
+    private static final String THREAD_MODEL = "model";
+    private static final String THREAD_UI_HELPER = "ui-helper";
+    private static final String THREAD_OTHER = "other";
+    private static final String[] THREAD_NAMES =
+            {THREAD_MAIN, THREAD_MODEL, THREAD_UI_HELPER, THREAD_OTHER};
+
+    private static final String UNKNOWN = "unknown";
+
+    private static final ThreadLocal<ThreadState> sThreadState =
+            ThreadLocal.withInitial(ThreadState::new);
+
+    @Nullable
+    private static volatile AccountingTracker sAccountingTracker;
+
     public static void start() {
         if (!FeatureFlags.IS_STUDIO_BUILD) {
             Log.wtf(TAG, "Accessing tracker in released code.", new Exception());
@@ -47,6 +81,96 @@ public class BinderTracker {
         Binder.setProxyTransactListener(null);
     }
 
+    /**
+     * Starts accounting binder calls, replacing any other proxy transaction listener. The
+     * accounted calls are kept until {@link #resetAccounting()} is called.
+     */
+    public static synchronized void startAccounting() {
+        AccountingTracker tracker = sAccountingTracker;
+        if (tracker == null) {
+            tracker = new AccountingTracker();
+            sAccountingTracker = tracker;
+        }
+        tracker.mEnabled = true;
+        Binder.setProxyTransactListener(tracker);
+    }
+
+    /**
+     * Stops accounting binder calls, keeping the calls accounted so far
+     */
+    public static synchronized void stopAccounting() {
+        AccountingTracker tracker = sAccountingTracker;
+        if (tracker != null && tracker.mEnabled) {
+            tracker.mEnabled = false;
+            Binder.setProxyTransactListener(null);
+        }
+    }
+
+    /**
+     * Clears the binder calls accounted so far
+     */
+    public static void resetAccounting() {
+        AccountingTracker tracker = sAccountingTracker;
+        if (tracker != null) {
+            tracker.mTable.reset();
+        }
+    }
+
+    /**
+     * Attributes the binder calls made by the current thread to the call site, until
+     * {@link #endCallSite(int)} is called with the returned token.
+     */
+    public static int beginCallSite(String callSite) {
+        AccountingTracker tracker = sAccountingTracker;
+        ThreadState state = sThreadState.get();
+        int token = state.callSite;
+        if (tracker != null && tracker.mEnabled) {
+            state.callSite = tracker.mTable.getCallSiteId(callSite);
+        }
+        return token;
+    }
+
+    /**
+     * Restores the call site which was current before {@link #beginCallSite(String)}
+     */
+    public static void endCallSite(int token) {
+        sThreadState.get().callSite = token;
+    }
+
+    /**
+     * Returns a snapshot of the accounted binder calls, one row per thread, interface and call
+     * site, with the most expensive ones first.
+     */
+    public static ArrayList<String> getAccountingSnapshot() {
+        AccountingTracker tracker = sAccountingTracker;
+        return tracker == null ? new ArrayList<>() : tracker.mTable.getSnapshot();
+    }
+
+    /**
+     * Returns the number of binder calls accounted on the thread to the interfaces whose
+     * descriptor starts with any of the prefixes, or -1 if binder calls are not accounted.
+     */
+    public static long getCallCount(String thread, String... descriptorPrefixes) {
+        AccountingTracker tracker = sAccountingTracker;
+        return tracker == null ? -1 : tracker.mTable.getCallCount(
+                Arrays.asList(THREAD_NAMES).indexOf(thread), descriptorPrefixes);
+    }
+
+    public static void dump(String prefix, PrintWriter writer) {
+        AccountingTracker tracker = sAccountingTracker;
+        writer.println(prefix + "BinderTracker:");
+        if (tracker == null) {
+            writer.println(prefix + "\tnot accounting");
+            return;
+        }
+        writer.println(prefix + "\tenabled: " + tracker.mEnabled
+                + ", dropped: " + tracker.mTable.getDroppedCount());
+        writer.println(prefix + "\t" + CallTable.SNAPSHOT_HEADER);
+        for (String row : tracker.mTable.getSnapshot()) {
+            writer.println(prefix + "\t" + row);
+        }
+    }
+
     private static class Tracker implements Binder.ProxyTransactListener {
 
         @Override
@@ -60,4 +184,220 @@ public class BinderTracker {
         @Override
         public void onTransactEnded(Object session) { }
     }
+
+    private static class AccountingTracker implements Binder.ProxyTransactListener {
+
+        final CallTable mTable = new CallTable();
+        // Interface ids of the binder proxies, the descriptor of a proxy being a binder call
+        private final WeakHashMap<IBinder, Integer> mDescriptorIds = new WeakHashMap<>();
+        volatile boolean mEnabled;
+
+        @Override
+        public Object onTransactStarted(IBinder binder, int code) {
+            ThreadState state = sThreadState.get();
+            if (!mEnabled || state.isLookingUpDescriptor) {
+                return null;
+            }
+            state.descriptor = getDescriptorId(binder, state);
+            state.startNanos = SystemClock.elapsedRealtimeNanos();
+            state.isInTransaction = true;
+            return null;
+        }
+
+        @Override
+        public void onTransactEnded(Object session) {
+            ThreadState state = sThreadState.get();
+            if (!state.isInTransaction) {
+                return;
+            }
+            state.isInTransaction = false;
+            mTable.record(state.thread, state.descriptor, state.callSite,
+                    SystemClock.elapsedRealtimeNanos() - state.startNanos);
+        }
+
+        private int getDescriptorId(IBinder binder, ThreadState state) {
+            synchronized (mDescriptorIds) {
+                Integer id = mDescriptorIds.get(binder);
+                if (id != null) {
+                    return id;
+                }
+            }
+
+            String descriptor;
+            state.isLookingUpDescriptor = true;
+            try {
+                descriptor = binder.getInterfaceDescriptor();
+            } catch (RemoteException e) {
+                descriptor = null;
+            } finally {
+                state.isLookingUpDescriptor = false;
+            }
+            int id = mTable.getDescriptorId(descriptor == null ? UNKNOWN : descriptor);
+            synchronized (mDescriptorIds) {
+                mDescriptorIds.put(binder, id);
+            }
+            return id;
+        }
+    }
+
+    private static class ThreadState {
+        final int thread;
+        int callSite;
+        int descriptor;
+        long startNanos;
+        boolean isInTransaction;
+        boolean isLookingUpDescriptor;
+
+        ThreadState() {
+            Looper looper = Looper.myLooper();
+            if (looper == Looper.getMainLooper()) {
+                thread = 0;
+            } else if (looper == MODEL_EXECUTOR.getLooper()) {
+                thread = 1;
+            } else if (looper == UI_HELPER_EXECUTOR.getLooper()) {
+                thread = 2;
+            } else {
+                thread = 3;
+            }
+        }
+    }
+
+    /**
+     * Fixed size tables of the binder call counts and latencies. Interfaces and call sites are
+     * interned into small tables of names, and any name or row past their capacity is dropped.
+     */
+    @VisibleForTesting
+    static class CallTable {
+
+        static final String SNAPSHOT_HEADER =
+                "thread, interface, callSite, count, totalMicros, maxMicros";
+
+        private static final int MAX_NAMES = 64;
+        private static final int MAX_ROWS = 256;
+        // Open addressing hash table of the row keys, at most half full
+        private static final int SLOT_COUNT = MAX_ROWS * 2;
+
+        private final String[] mDescriptors = new String[MAX_NAMES];
+        private final String[] mCallSites = new String[MAX_NAMES];
+        private int mDescriptorCount;
+        private int mCallSiteCount;
+
+        private final long[] mSlotKeys = new long[SLOT_COUNT];
+        // Row index + 1 for each slot, 0 for empty slots
+        private final int[] mSlotRows = new int[SLOT_COUNT];
+
+        private final long[] mRowKeys = new long[MAX_ROWS];
+        private final long[] mCounts = new long[MAX_ROWS];
+        private final long[] mTotalNanos = new long[MAX_ROWS];
+        private final long[] mMaxNanos = new long[MAX_ROWS];
+        private int mRowCount;
+        private long mDroppedCount;
+
+        CallTable() {
+            // Id 0 is used for calls without an interface or call site
+            mDescriptors[mDescriptorCount++] = UNKNOWN;
+            mCallSites[mCallSiteCount++] = "-";
+        }
+
+        synchronized int getDescriptorId(String descriptor) {
+            int id = indexOf(mDescriptors, mDescriptorCount, descriptor);
+            if (id < 0 && mDescriptorCount < MAX_NAMES) {
+                id = mDescriptorCount++;
+                mDescriptors[id] = descriptor;
+            }
+            return Math.max(id, 0);
+        }
+
+        synchronized int getCallSiteId(String callSite) {
+            int id = indexOf(mCallSites, mCallSiteCount, callSite);
+            if (id < 0 && mCallSiteCount < MAX_NAMES) {
+                id = mCallSiteCount++;
+                mCallSites[id] = callSite;
+            }
+            return Math.max(id, 0);
+        }
+
+        synchronized void record(int thread, int descriptor, int callSite, long durationNanos) {
+            long key = ((long) thread << 32) | ((long) descriptor << 16) | callSite;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & (SLOT_COUNT - 1);
+            while (mSlotRows[slot] != 0 && mSlotKeys[slot] != key) {
+                slot = (slot + 1) & (SLOT_COUNT - 1);
+            }
+
+            int row = mSlotRows[slot] - 1;
+            if (row < 0) {
+                if (mRowCount == MAX_ROWS) {
+                    mDroppedCount++;
+                    return;
+                }
+                row = mRowCount++;
+                mRowKeys[row] = key;
+                mSlotKeys[slot] = key;
+                mSlotRows[slot] = row + 1;
+            }
+            mCounts[row]++;
+            mTotalNanos[row] += durationNanos;
+            mMaxNanos[row] = Math.max(mMaxNanos[row], durationNanos);
+        }
+
+        synchronized void reset() {
+            Arrays.fill(mSlotRows, 0);
+            Arrays.fill(mCounts, 0);
+            Arrays.fill(mTotalNanos, 0);
+            Arrays.fill(mMaxNanos, 0);
+            mRowCount = 0;
+            mDroppedCount = 0;
+        }
+
+        synchronized long getDroppedCount() {
+            return mDroppedCount;
+        }
+
+        synchronized long getCallCount(int thread, String[] descriptorPrefixes) {
+            long count = 0;
+            for (int row = 0; row < mRowCount; row++) {
+                long key = mRowKeys[row];
+                if ((int) (key >>> 32) != thread) {
+                    continue;
+                }
+                String descriptor = mDescriptors[(int) ((key >>> 16) & 0xFFFF)];
+                for (String descriptorPrefix : descriptorPrefixes) {
+                    if (descriptor.startsWith(descriptorPrefix)) {
+                        count += mCounts[row];
+                        break;
+                    }
+                }
+            }
+            return count;
+        }
+
+        synchronized ArrayList<String> getSnapshot() {
+            Integer[] rows = new Integer[mRowCount];
+            for (int i = 0; i < mRowCount; i++) {
+                rows[i] = i;
+            }
+            Arrays.sort(rows, Comparator.comparingLong(row -> -mTotalNanos[row]));
+
+            ArrayList<String> snapshot = new ArrayList<>(mRowCount);
+            for (int row : rows) {
+                long key = mRowKeys[row];
+                snapshot.add(THREAD_NAMES[(int) (key >>> 32)]
+                        + ", " + mDescriptors[(int) ((key >>> 16) & 0xFFFF)]
+                        + ", " + mCallSites[(int) (key & 0xFFFF)]
+                        + ", " + mCounts[row]
+                        + ", " + TimeUnit.NANOSECONDS.toMicros(mTotalNanos[row])
+                        + ", " + TimeUnit.NANOSECONDS.toMicros(mMaxNanos[row]));
+            }
+            return snapshot;
+        }
+
+        private static int indexOf(String[] names, int count, String name) {
+            for (int i = 0; i < count; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
 }
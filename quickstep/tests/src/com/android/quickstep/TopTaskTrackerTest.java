@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.quickstep;
+
+import static android.view.Display.DEFAULT_DISPLAY;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.app.ActivityManager.RunningTaskInfo;
+
+import androidx.test.filters.SmallTest;
+
+import com.android.quickstep.TopTaskTracker.TaskHistory;
+
+import org.junit.Test;
+
+@SmallTest
+public class TopTaskTrackerTest {
+
+    @Test
+    public void moveToFront_newTask_addedFirst() {
+        TaskHistory history = new TaskHistory(5);
+        history.moveToFront(task(1, DEFAULT_DISPLAY));
+        history.moveToFront(task(2, DEFAULT_DISPLAY));
+
+        assertEquals(2, history.size());
+        assertEquals(2, history.getTaskId(0));
+        assertEquals(1, history.getTaskId(1));
+    }
+
+    @Test
+    public void moveToFront_existingTask_reordered() {
+        TaskHistory history = new TaskHistory(5);
+        history.moveToFront(task(1, DEFAULT_DISPLAY));
+        history.moveToFront(task(2, DEFAULT_DISPLAY));
+        history.moveToFront(task(3, DEFAULT_DISPLAY));
+        history.moveToFront(task(1, DEFAULT_DISPLAY));
+
+        assertEquals(3, history.size());
+        assertEquals(1, history.getTaskId(0));
+        assertEquals(3, history.getTaskId(1));
+        assertEquals(2, history.getTaskId(2));
+    }
+
+    @Test
+    public void moveFirstOnDisplayToFront_keepsHomeDisplayTaskFirst() {
+        TaskHistory history = new TaskHistory(5);
+        history.moveToFront(task(1, DEFAULT_DISPLAY));
+        history.moveToFront(task(2, DEFAULT_DISPLAY + 1));
+        history.moveFirstOnDisplayToFront(DEFAULT_DISPLAY);
+
+        assertEquals(1, history.getTaskId(0));
+        assertEquals(2, history.getTaskId(1));
+    }
+
+    @Test
+    public void trimOldest_skipsKeptTasks() {
+        TaskHistory history = new TaskHistory(5);
+        history.addAll(new RunningTaskInfo[] {
+                task(1, DEFAULT_DISPLAY), task(2, DEFAULT_DISPLAY), task(3, DEFAULT_DISPLAY)});
+        history.trimOldest(1, 3, -1);
+
+        assertEquals(2, history.size());
+        assertEquals(1, history.getTaskId(0));
+        assertEquals(3, history.getTaskId(1));
+    }
+
+    @Test
+    public void remove_missingTask_returnsFalse() {
+        TaskHistory history = new TaskHistory(5);
+        history.moveToFront(task(1, DEFAULT_DISPLAY));
+
+        assertFalse(history.remove(2));
+        assertTrue(history.remove(1));
+        assertEquals(0, history.size());
+    }
+
+    @Test
+    public void moveToFront_withTrim_keepsMostRecentTasks() {
+        TaskHistory history = new TaskHistory(5);
+        for (int i = 0; i < 8; i++) {
+            history.moveToFront(task(i, DEFAULT_DISPLAY));
+            if (history.size() >= 5) {
+                history.trimOldest(i, -1, -1);
+            }
+        }
+
+        assertEquals(4, history.size());
+        assertEquals(7, history.getTaskId(0));
+        assertEquals(4, history.getTaskId(3));
+    }
+
+    private static RunningTaskInfo task(int taskId, int displayId) {
+        RunningTaskInfo info = new RunningTaskInfo();
+        info.taskId = taskId;
+        info.displayId = displayId;
+        return info;
+    }
+}
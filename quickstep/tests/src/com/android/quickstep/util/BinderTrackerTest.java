@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the binder call accounting of {@link BinderTracker}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class BinderTrackerTest {
+
+    @Test
+    public void callsAreAggregatedPerThreadInterfaceAndCallSite() {
+        BinderTracker.CallTable table = new BinderTracker.CallTable();
+        int descriptor = table.getDescriptorId("android.app.IActivityManager");
+        int callSite = table.getCallSiteId("test");
+
+        table.record(0, descriptor, callSite, TimeUnit.MICROSECONDS.toNanos(100));
+        table.record(0, descriptor, callSite, TimeUnit.MICROSECONDS.toNanos(300));
+        table.record(1, descriptor, 0, TimeUnit.MICROSECONDS.toNanos(50));
+
+        List<String> snapshot = table.getSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals("main, android.app.IActivityManager, test, 2, 400, 300", snapshot.get(0));
+        assertEquals("model, android.app.IActivityManager, -, 1, 50, 50", snapshot.get(1));
+    }
+
+    @Test
+    public void namesAreInternedOnce() {
+        BinderTracker.CallTable table = new BinderTracker.CallTable();
+        assertEquals(table.getDescriptorId("a"), table.getDescriptorId("a"));
+        assertEquals(table.getCallSiteId("b"), table.getCallSiteId("b"));
+    }
+
+    @Test
+    public void callCountIsFilteredByThreadAndInterface() {
+        BinderTracker.CallTable table = new BinderTracker.CallTable();
+        int pip = table.getDescriptorId("com.android.wm.shell.pip.IPip");
+        int activityManager = table.getDescriptorId("android.app.IActivityManager");
+        table.record(0, pip, 0, 1000);
+        table.record(0, pip, table.getCallSiteId("test"), 1000);
+        table.record(0, activityManager, 0, 1000);
+        table.record(1, pip, 0, 1000);
+
+        assertEquals(2, table.getCallCount(0, new String[] {"com.android.wm.shell."}));
+        assertEquals(1, table.getCallCount(1, new String[] {"com.android.wm.shell."}));
+        assertEquals(0, table.getCallCount(2, new String[] {"com.android.wm.shell."}));
+    }
+
+    @Test
+    public void resetClearsRows() {
+        BinderTracker.CallTable table = new BinderTracker.CallTable();
+        table.record(0, table.getDescriptorId("a"), 0, 1000);
+        table.reset();
+        assertEquals(0, table.getSnapshot().size());
+    }
+}
@@ -217,9 +217,10 @@ import com.android.launcher3.widget.PendingAddShortcutInfo;
 import com.android.launcher3.widget.PendingAddWidgetInfo;
 import com.android.launcher3.widget.PendingAppWidgetHostView;
 import com.android.launcher3.widget.WidgetAddFlowHandler;
+import com.android.launcher3.widget.WidgetHostViewPrewarmer;
 import com.android.launcher3.widget.WidgetManagerHelper;
 import com.android.launcher3.widget.custom.CustomWidgetManager;
-import com.android.launcher3.widget.model.WidgetsListBaseEntry;
+import com.android.launcher3.widget.model.WidgetsIndex;
 import com.android.launcher3.widget.picker.WidgetsFullSheet;
 import com.android.systemui.plugins.LauncherOverlayPlugin;
 import com.android.systemui.plugins.PluginListener;
@@ -326,6 +327,7 @@ public class Launcher extends StatefulActivity<LauncherState>
 
     private WidgetManagerHelper mAppWidgetManager;
     private LauncherWidgetHolder mAppWidgetHolder;
+    private WidgetHostViewPrewarmer mWidgetHostViewPrewarmer;
 
     private final int[] mTmpAddItemCellCoordinates = new int[2];
 
@@ -489,7 +491,7 @@ public class Launcher extends StatefulActivity<LauncherState>
         mAllAppsController = new AllAppsTransitionController(this);
         mStateManager = new StateManager<>(this, NORMAL);
 
-        mOnboardingPrefs = createOnboardingPrefs(mSharedPrefs);
+        mOnboardingPrefs = createOnboardingPrefs(LauncherPrefs.get(this));
 
         // TODO: move the SearchConfig to SearchState when new LauncherState is created.
         mBaseSearchConfig = new BaseSearchConfig();
@@ -497,6 +499,7 @@ public class Launcher extends StatefulActivity<LauncherState>
         mAppWidgetManager = new WidgetManagerHelper(this);
         mAppWidgetHolder = createAppWidgetHolder();
         mAppWidgetHolder.startListening();
+        mWidgetHostViewPrewarmer = new WidgetHostViewPrewarmer(this);
 
         setupViews();
         mPopupDataProvider = new PopupDataProvider(this::updateNotificationDots);
@@ -620,8 +623,8 @@ public class Launcher extends StatefulActivity<LauncherState>
     }
 
     protected OnboardingPrefs<? extends Launcher> createOnboardingPrefs(
-            SharedPreferences sharedPrefs) {
-        return new OnboardingPrefs<>(this, sharedPrefs);
+            LauncherPrefs launcherPrefs) {
+        return new OnboardingPrefs<>(this, launcherPrefs);
     }
 
     public OnboardingPrefs<? extends Launcher> getOnboardingPrefs() {
@@ -1064,6 +1067,7 @@ public class Launcher extends StatefulActivity<LauncherState>
         logStopAndResume(false /* isResume */);
         mAppWidgetHolder.setActivityStarted(false);
         NotificationListener.removeNotificationsChangedListener(getPopupDataProvider());
+        LauncherPrefs.get(this).flushPendingWrites();
     }
 
     @Override
@@ -1410,6 +1414,10 @@ public class Launcher extends StatefulActivity<LauncherState>
         }
 
         int[] cellXY = mTmpAddItemCellCoordinates;
+        if (container < 0) {
+            // Bind any deferred items on the page first, so that the occupancy is up to date
+            mWorkspace.materializePage(screenId);
+        }
         CellLayout layout = getCellLayout(container, screenId);
 
         WorkspaceItemInfo info = PinRequestHelper.createWorkspaceItemFromPinItemRequest(
@@ -1518,6 +1526,12 @@ public class Launcher extends StatefulActivity<LauncherState>
                 itemInfo.container, presenterPos.screenId, presenterPos.cellX, presenterPos.cellY);
 
         hostView.setVisibility(View.VISIBLE);
+        if (hostView instanceof LauncherAppWidgetHostView
+                && itemInfo instanceof PendingAddWidgetInfo
+                && ((PendingAddWidgetInfo) itemInfo).dropTimeMillis > 0) {
+            ((LauncherAppWidgetHostView) hostView).logDropToFirstFrameLatency(
+                    ((PendingAddWidgetInfo) itemInfo).dropTimeMillis);
+        }
         prepareAppWidget(hostView, launcherInfo);
         mWorkspace.addInScreen(hostView, launcherInfo);
         announceForAccessibility(R.string.item_added_to_workspace);
@@ -1615,6 +1629,10 @@ public class Launcher extends StatefulActivity<LauncherState>
         return mAppWidgetHolder;
     }
 
+    public WidgetHostViewPrewarmer getWidgetHostViewPrewarmer() {
+        return mWidgetHostViewPrewarmer;
+    }
+
     protected LauncherWidgetHolder createAppWidgetHolder() {
         return LauncherWidgetHolder.HolderFactory.newFactory(this).newInstance(
                 this, appWidgetId -> getWorkspace().removeWidget(appWidgetId));
@@ -1779,6 +1797,7 @@ public class Launcher extends StatefulActivity<LauncherState>
 
         mModel.removeCallbacks(this);
         mRotationHelper.destroy();
+        mWidgetHostViewPrewarmer.clear();
 
         try {
             mAppWidgetHolder.stopListening();
@@ -1943,6 +1962,7 @@ public class Launcher extends StatefulActivity<LauncherState>
      * Process a widget drop.
      */
     private void addAppWidgetFromDrop(PendingAddWidgetInfo info) {
+        info.dropTimeMillis = SystemClock.uptimeMillis();
         AppWidgetHostView hostView = info.boundWidget;
         final int appWidgetId;
         WidgetAddFlowHandler addFlowHandler = info.getHandler();
@@ -2206,6 +2226,9 @@ public class Launcher extends StatefulActivity<LauncherState>
             // 3MB of memory for caching which isn't necessary.
             SQLiteDatabase.releaseMemory();
 
+            // Don't hold on to buffered preference writes if the process is likely to be killed.
+            LauncherPrefs.get(this).flushPendingWrites();
+
             // This clears all widget bitmaps from the widget tray
             // TODO(hyunyoungs)
         }
@@ -2407,6 +2430,11 @@ public class Launcher extends StatefulActivity<LauncherState>
         mWorkspace.removeExtraEmptyScreen(false);
     }
 
+    @Override
+    public void bindDeferredItems(List<ItemInfo> items) {
+        mWorkspace.deferItems(items);
+    }
+
     /**
      * Bind the items start-end from the list.
      *
@@ -2478,6 +2506,8 @@ public class Launcher extends StatefulActivity<LauncherState>
              */
             CellPos presenterPos = getCellPosMapper().mapModelToPresenter(item);
             if (item.container == CONTAINER_DESKTOP) {
+                // Bind any deferred items on the page first, so that collisions are detected
+                mWorkspace.materializePage(presenterPos.screenId);
                 CellLayout cl = mWorkspace.getScreenWithId(presenterPos.screenId);
                 if (cl != null && cl.isOccupied(presenterPos.cellX, presenterPos.cellY)) {
                     View v = cl.getChildAt(presenterPos.cellX, presenterPos.cellY);
@@ -3031,7 +3061,7 @@ public class Launcher extends StatefulActivity<LauncherState>
     }
 
     @Override
-    public void bindAllWidgets(final List<WidgetsListBaseEntry> allWidgets) {
+    public void bindAllWidgets(final WidgetsIndex allWidgets) {
         mPopupDataProvider.setAllWidgets(allWidgets);
     }
 
@@ -3095,6 +3125,7 @@ public class Launcher extends StatefulActivity<LauncherState>
 
         // Extra logging for general debugging
         mDragLayer.dump(prefix, writer);
+        mDragController.dump(prefix, writer);
         mStateManager.dump(prefix, writer);
         mPopupDataProvider.dump(prefix, writer);
         mDeviceProfile.dump(this, prefix, writer);
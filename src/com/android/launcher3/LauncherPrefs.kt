@@ -19,6 +19,8 @@ import android.content.Context
 import android.content.Context.MODE_PRIVATE
 import android.content.SharedPreferences
 import android.content.SharedPreferences.OnSharedPreferenceChangeListener
+import android.os.Looper
+import android.os.SystemClock
 import android.util.Log
 import androidx.annotation.VisibleForTesting
 import com.android.launcher3.LauncherFiles.DEVICE_PREFERENCES_KEY
@@ -29,6 +31,7 @@ import com.android.launcher3.pm.InstallSessionHelper
 import com.android.launcher3.provider.RestoreDbTask
 import com.android.launcher3.states.RotationHelper
 import com.android.launcher3.util.DisplayController
+import com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR
 import com.android.launcher3.util.MainThreadInitializedObject
 import com.android.launcher3.util.Themes
 
@@ -50,6 +53,11 @@ class LauncherPrefs(private val encryptedContext: Context) {
     private val Item.encryptedPrefs
         get() = encryptedContext.getSharedPreferences(sharedPrefFile, MODE_PRIVATE)
 
+    // Values written via `putBuffered` which have not been handed to `SharedPreferences` yet.
+    // Guarded by itself.
+    private val pendingWrites = LinkedHashMap<Item, Any>()
+    private val flushPendingWritesRunnable = Runnable { flushPendingWrites() }
+
     // This call to `SharedPreferences` needs to be explicit rather than using `get` since doing so
     // would result in a circular dependency between `isStartupDataMigrated` and `choosePreferences`
     val isStartupDataMigrated: Boolean
@@ -78,6 +86,7 @@ class LauncherPrefs(private val encryptedContext: Context) {
      */
     @Suppress("IMPLICIT_CAST_TO_ANY", "UNCHECKED_CAST")
     private fun <T> getInner(item: Item, default: T): T {
+        synchronized(pendingWrites) { pendingWrites[item] }?.let { return it as T }
         val sp = chooseSharedPreferences(item)
 
         return when (item.type) {
@@ -108,8 +117,10 @@ class LauncherPrefs(private val encryptedContext: Context) {
      * prepareToPutValue(itemsToValues) for every distinct `SharedPreferences` file present in the
      * provided item configurations.
      */
-    fun put(vararg itemsToValues: Pair<Item, Any>): Unit =
+    fun put(vararg itemsToValues: Pair<Item, Any>) {
+        dropPendingWrites(itemsToValues.map { it.first })
         prepareToPutValues(itemsToValues).forEach { it.apply() }
+    }
 
     /** See referenced `put` method above. */
     fun <T : Any> put(item: Item, value: T): Unit = put(item.to(value))
@@ -118,8 +129,66 @@ class LauncherPrefs(private val encryptedContext: Context) {
      * Synchronously stores all the values provided according to their associated Item
      * configuration.
      */
-    fun putSync(vararg itemsToValues: Pair<Item, Any>): Unit =
+    fun putSync(vararg itemsToValues: Pair<Item, Any>) {
+        dropPendingWrites(itemsToValues.map { it.first })
+        if (!isStrictModeEnabled || Looper.myLooper() != Looper.getMainLooper()) {
+            prepareToPutValues(itemsToValues).forEach { it.commit() }
+            return
+        }
+        val startTime = SystemClock.uptimeMillis()
         prepareToPutValues(itemsToValues).forEach { it.commit() }
+        Log.w(
+            TAG,
+            "putSync on main thread took ${SystemClock.uptimeMillis() - startTime}ms for " +
+                itemsToValues.joinToString { it.first.sharedPrefKey },
+            Exception()
+        )
+    }
+
+    /**
+     * Same as [put], but the values are held in memory for [BUFFERED_WRITE_DELAY_MS] so that
+     * repeated updates of the same or neighbouring items result in a single disk write per
+     * `SharedPreferences` file. Buffered values are immediately visible through [get] and [has].
+     *
+     * Use this for small, frequently updated values (counters, timestamps) where losing the last
+     * update on a process crash is acceptable. Pending values are flushed by [flushPendingWrites].
+     */
+    fun putBuffered(vararg itemsToValues: Pair<Item, Any>) {
+        synchronized(pendingWrites) {
+            if (pendingWrites.isEmpty()) {
+                UI_HELPER_EXECUTOR.handler.postDelayed(
+                    flushPendingWritesRunnable,
+                    BUFFERED_WRITE_DELAY_MS
+                )
+            }
+            itemsToValues.forEach { (item, value) -> pendingWrites[item] = value }
+        }
+    }
+
+    /** See referenced `putBuffered` method above. */
+    fun <T : Any> putBuffered(item: Item, value: T): Unit = putBuffered(item.to(value))
+
+    /**
+     * Hands all values buffered through [putBuffered] to `SharedPreferences`, merging them into a
+     * single apply per file. Should be called when the process is likely to be killed, e.g. when
+     * the launcher is stopped or asked to trim memory.
+     *
+     * The values are applied while holding the buffer lock, so a concurrent [get] either sees the
+     * buffered value or the applied one, and concurrent flushes can't apply out of order.
+     */
+    fun flushPendingWrites() {
+        synchronized(pendingWrites) {
+            if (pendingWrites.isEmpty()) return
+            val updates = pendingWrites.map { it.toPair() }.toTypedArray()
+            UI_HELPER_EXECUTOR.handler.removeCallbacks(flushPendingWritesRunnable)
+            prepareToPutValues(updates).forEach { it.apply() }
+            pendingWrites.clear()
+        }
+    }
+
+    private fun dropPendingWrites(items: List<Item>) {
+        synchronized(pendingWrites) { items.forEach { pendingWrites.remove(it) } }
+    }
 
     /**
      * Updates the values stored in `SharedPreferences` for each corresponding Item-value pair. If
@@ -208,7 +277,7 @@ class LauncherPrefs(private val encryptedContext: Context) {
      * `SharedPreferences` files.
      */
     fun has(vararg items: Item): Boolean {
-        items
+        synchronized(pendingWrites) { items.filterNot { pendingWrites.containsKey(it) } }
             .groupBy { chooseSharedPreferences(it) }
             .forEach { (prefs, itemsSublist) ->
                 if (!itemsSublist.none { !prefs.contains(it.sharedPrefKey) }) return false
@@ -219,10 +288,16 @@ class LauncherPrefs(private val encryptedContext: Context) {
     /**
      * Asynchronously removes the [Item]'s value from its corresponding `SharedPreferences` file.
      */
-    fun remove(vararg items: Item) = prepareToRemove(items).forEach { it.apply() }
+    fun remove(vararg items: Item) {
+        dropPendingWrites(items.asList())
+        prepareToRemove(items).forEach { it.apply() }
+    }
 
     /** Synchronously removes the [Item]'s value from its corresponding `SharedPreferences` file. */
-    fun removeSync(vararg items: Item) = prepareToRemove(items).forEach { it.commit() }
+    fun removeSync(vararg items: Item) {
+        dropPendingWrites(items.asList())
+        prepareToRemove(items).forEach { it.commit() }
+    }
 
     /**
      * Removes the key value pairs stored in `SharedPreferences` for each corresponding Item. If the
@@ -268,6 +343,7 @@ class LauncherPrefs(private val encryptedContext: Context) {
     companion object {
         private const val TAG = "LauncherPrefs"
         @VisibleForTesting const val BOOT_AWARE_PREFS_KEY = "boot_aware_prefs"
+        @VisibleForTesting const val BUFFERED_WRITE_DELAY_MS = 500L
 
         @JvmField var INSTANCE = MainThreadInitializedObject { LauncherPrefs(it) }
 
@@ -374,6 +450,10 @@ class LauncherPrefs(private val encryptedContext: Context) {
 // a var because the unit tests are setting this to true so they can run.
 @VisibleForTesting var isBootAwareStartupDataEnabled: Boolean = false
 
+// When enabled, synchronous writes issued from the main thread are logged along with their duration
+// and the calling stack, so that they can be moved to `put` or `putBuffered`.
+@VisibleForTesting var isStrictModeEnabled: Boolean = BuildConfig.IS_DEBUG_DEVICE
+
 private val BOOT_AWARE_ITEMS: MutableSet<ConstantItem<*>> = mutableSetOf()
 
 abstract class Item {
@@ -62,6 +62,7 @@ import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.logging.FileLog;
 import com.android.launcher3.model.DbDowngradeHelper;
 import com.android.launcher3.pm.UserCache;
+import com.android.launcher3.provider.IntentColumns;
 import com.android.launcher3.provider.LauncherDbUtils;
 import com.android.launcher3.provider.LauncherDbUtils.SQLiteTransaction;
 import com.android.launcher3.provider.RestoreDbTask;
@@ -100,7 +101,7 @@ public class LauncherProvider extends ContentProvider {
      * Represents the schema of the database. Changes in scheme need not be backwards compatible.
      * When increasing the scheme version, ensure that downgrade_schema.json is updated
      */
-    public static final int SCHEMA_VERSION = 31;
+    public static final int SCHEMA_VERSION = 32;
 
     public static final String AUTHORITY = BuildConfig.APPLICATION_ID + ".settings";
     public static final String KEY_LAYOUT_PROVIDER_AUTHORITY = "KEY_LAYOUT_PROVIDER_AUTHORITY";
@@ -207,6 +208,7 @@ public class LauncherProvider extends ContentProvider {
             throw new RuntimeException("Error: attempting to add item without specifying an id");
         }
         helper.checkId(values);
+        IntentColumns.addToValues(values);
         return (int) db.insert(table, nullColumnHack, values);
     }
 
@@ -356,6 +358,7 @@ public class LauncherProvider extends ContentProvider {
         SqlArguments args = new SqlArguments(uri, selection, selectionArgs);
 
         addModifiedTime(values);
+        IntentColumns.addToValues(values);
         SQLiteDatabase db = mOpenHelper.getWritableDatabase();
         int count = db.update(args.table, values, args.where, args.args);
         reloadLauncherIfExternal();
@@ -393,6 +396,15 @@ public class LauncherProvider extends ContentProvider {
                         mOpenHelper.generateNewItemId());
                 return result;
             }
+            case LauncherSettings.Settings.METHOD_NEW_ITEM_IDS: {
+                int[] ids = new int[Integer.parseInt(arg)];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = mOpenHelper.generateNewItemId();
+                }
+                Bundle result = new Bundle();
+                result.putIntArray(LauncherSettings.Settings.EXTRA_VALUE, ids);
+                return result;
+            }
             case LauncherSettings.Settings.METHOD_NEW_SCREEN_ID: {
                 Bundle result = new Bundle();
                 result.putInt(LauncherSettings.Settings.EXTRA_VALUE,
@@ -912,9 +924,14 @@ public class LauncherProvider extends ContentProvider {
                                         Favorites.CONTAINER, Favorites.CONTAINER_DESKTOP,
                                         Favorites.CELLY, 0), null);
                     }
-                    return;
                 }
                 case 31: {
+                    if (!addIntentColumns(db)) {
+                        // Old version remains, which means we wipe old data
+                        break;
+                    }
+                }
+                case 32: {
                     // DB Upgraded successfully
                     return;
                 }
@@ -1067,6 +1084,37 @@ public class LauncherProvider extends ContentProvider {
             return true;
         }
 
+        private boolean addIntentColumns(SQLiteDatabase db) {
+            try (SQLiteTransaction t = new SQLiteTransaction(db)) {
+                // Backup tables are copied into favorites with all their columns, so they need
+                // the same schema to be restored
+                for (String table : new String[] {Favorites.TABLE_NAME,
+                        Favorites.BACKUP_TABLE_NAME, Favorites.HYBRID_HOTSEAT_BACKUP_TABLE}) {
+                    if (table.equals(Favorites.TABLE_NAME) || tableExists(db, table)) {
+                        addIntentColumns(db, table);
+                    }
+                }
+                t.commit();
+            } catch (SQLException ex) {
+                Log.e(TAG, ex.getMessage(), ex);
+                return false;
+            }
+            return true;
+        }
+
+        private static void addIntentColumns(SQLiteDatabase db, String tableName) {
+            for (String column : new String[] {Favorites.INTENT_ACTION,
+                    Favorites.INTENT_PACKAGE, Favorites.INTENT_COMPONENT,
+                    Favorites.INTENT_CATEGORY}) {
+                db.execSQL("ALTER TABLE " + tableName + " ADD COLUMN " + column + " TEXT;");
+            }
+            db.execSQL("ALTER TABLE " + tableName + " ADD COLUMN "
+                    + Favorites.INTENT_FLAGS + " INTEGER;");
+            db.execSQL("ALTER TABLE " + tableName + " ADD COLUMN "
+                    + Favorites.INTENT_SOURCE + " TEXT;");
+            IntentColumns.updateAllRows(db, tableName);
+        }
+
         private boolean addIntegerColumn(SQLiteDatabase db, String columnName, long defaultValue) {
             try (SQLiteTransaction t = new SQLiteTransaction(db)) {
                 db.execSQL("ALTER TABLE favorites ADD COLUMN "
@@ -338,6 +338,44 @@ public class LauncherSettings {
          */
         public static final String APPWIDGET_SOURCE = "appWidgetSource";
 
+        /**
+         * The action of the {@link #INTENT}, set only for intents which can be built from the
+         * normalized intent columns, see {@link com.android.launcher3.provider.IntentColumns}
+         * <p>Type: TEXT</p>
+         */
+        public static final String INTENT_ACTION = "intentAction";
+
+        /**
+         * The package of the {@link #INTENT}, see {@link #INTENT_ACTION}
+         * <p>Type: TEXT</p>
+         */
+        public static final String INTENT_PACKAGE = "intentPackage";
+
+        /**
+         * The flattened component of the {@link #INTENT}, see {@link #INTENT_ACTION}
+         * <p>Type: TEXT</p>
+         */
+        public static final String INTENT_COMPONENT = "intentComponent";
+
+        /**
+         * The category of the {@link #INTENT}, see {@link #INTENT_ACTION}
+         * <p>Type: TEXT</p>
+         */
+        public static final String INTENT_CATEGORY = "intentCategory";
+
+        /**
+         * The flags of the {@link #INTENT}, see {@link #INTENT_ACTION}
+         * <p>Type: INTEGER</p>
+         */
+        public static final String INTENT_FLAGS = "intentFlags";
+
+        /**
+         * The {@link #INTENT} string which the normalized intent columns were set from, or null
+         * if the intent can't be built from them
+         * <p>Type: TEXT</p>
+         */
+        public static final String INTENT_SOURCE = "intentSource";
+
         public static void addTableToDb(SQLiteDatabase db, long myProfileId, boolean optional) {
             addTableToDb(db, myProfileId, optional, TABLE_NAME);
         }
@@ -366,7 +404,13 @@ public class LauncherSettings {
                     "profileId INTEGER DEFAULT " + myProfileId + "," +
                     "rank INTEGER NOT NULL DEFAULT 0," +
                     "options INTEGER NOT NULL DEFAULT 0," +
-                    APPWIDGET_SOURCE + " INTEGER NOT NULL DEFAULT " + CONTAINER_UNKNOWN +
+                    APPWIDGET_SOURCE + " INTEGER NOT NULL DEFAULT " + CONTAINER_UNKNOWN + "," +
+                    INTENT_ACTION + " TEXT," +
+                    INTENT_PACKAGE + " TEXT," +
+                    INTENT_COMPONENT + " TEXT," +
+                    INTENT_CATEGORY + " TEXT," +
+                    INTENT_FLAGS + " INTEGER," +
+                    INTENT_SOURCE + " TEXT" +
                     ");");
         }
     }
@@ -385,6 +429,8 @@ public class LauncherSettings {
         public static final String METHOD_DELETE_EMPTY_FOLDERS = "delete_empty_folders";
 
         public static final String METHOD_NEW_ITEM_ID = "generate_new_item_id";
+        // Generates the number of item ids given as the arg, returned as an int array
+        public static final String METHOD_NEW_ITEM_IDS = "generate_new_item_ids";
         public static final String METHOD_NEW_SCREEN_ID = "generate_new_screen_id";
 
         public static final String METHOD_CREATE_EMPTY_DB = "create_empty_db";
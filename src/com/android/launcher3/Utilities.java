@@ -270,6 +270,15 @@ public final class Utilities {
      * Inverse of {@link #getDescendantCoordRelativeToAncestor(View, View, float[], boolean)}.
      */
     public static void mapCoordInSelfToDescendant(View descendant, View root, float[] coord) {
+        getMatrixInSelfToDescendant(descendant, root, sInverseMatrix);
+        sInverseMatrix.mapPoints(coord);
+    }
+
+    /**
+     * Sets {@param out} to the matrix mapping coordinates in {@param root} to coordinates in
+     * {@param descendant}, which can be reused as long as the views between the two don't change.
+     */
+    public static void getMatrixInSelfToDescendant(View descendant, View root, Matrix out) {
         sMatrix.reset();
         View v = descendant;
         while(v != root) {
@@ -279,8 +288,7 @@ public final class Utilities {
             v = (View) v.getParent();
         }
         sMatrix.postTranslate(-v.getScrollX(), -v.getScrollY());
-        sMatrix.invert(sInverseMatrix);
-        sInverseMatrix.mapPoints(coord);
+        sMatrix.invert(out);
     }
 
     /**
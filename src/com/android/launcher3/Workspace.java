@@ -118,6 +118,7 @@ import com.android.launcher3.widget.NavigableAppWidgetHostView;
 import com.android.launcher3.widget.PendingAddShortcutInfo;
 import com.android.launcher3.widget.PendingAddWidgetInfo;
 import com.android.launcher3.widget.PendingAppWidgetHostView;
+import com.android.launcher3.widget.WidgetInflationExecutor;
 import com.android.launcher3.widget.WidgetManagerHelper;
 import com.android.launcher3.widget.dragndrop.AppWidgetHostViewDragListener;
 import com.android.launcher3.widget.util.WidgetSizes;
@@ -228,6 +229,12 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
 
     private boolean mStripScreensOnPageStopMoving = false;
 
+    // Items on pages which have not been materialized yet, keyed by screen id
+    private final IntSparseArrayMap<ArrayList<ItemInfo>> mDeferredPageItems =
+            new IntSparseArrayMap<>();
+    private final Runnable mMaterializePagesRunnable = this::materializePagesNearCurrentPage;
+    private boolean mMaterializePagesPosted;
+
     private boolean mWorkspaceFadeInAdjacentScreens;
 
     final WallpaperOffsetInterpolator mWallpaperOffset;
@@ -456,6 +463,9 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
             enforceDragParity("onDragStart", 0, 0);
         }
 
+        // The drop target can be on any page, bind the deferred pages so their cells are occupied
+        materializeAllPages();
+
         if (mDragInfo != null && mDragInfo.cell != null) {
             CellLayout layout = (CellLayout) (mDragInfo.cell instanceof LauncherAppWidgetHostView
                     ? dragObject.dragView.getContentViewParent().getParent()
@@ -509,6 +519,26 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
         return isTwoPanelEnabled() ? 2 : super.getPanelCount();
     }
 
+    /**
+     * Returns the {@link WidgetInflationExecutor} priority of the widgets on the provided page,
+     * depending on whether the page is visible or next to the visible pages.
+     */
+    public int getWidgetInflationPriority(CellLayout page) {
+        int pageIndex = indexOfChild(page);
+        if (pageIndex < 0) {
+            return WidgetInflationExecutor.PRIORITY_DEFAULT;
+        }
+        int panelCount = getPanelCount();
+        int firstVisiblePage = getNextPage();
+        if (pageIndex >= firstVisiblePage && pageIndex < firstVisiblePage + panelCount) {
+            return WidgetInflationExecutor.PRIORITY_VISIBLE;
+        } else if (pageIndex >= firstVisiblePage - panelCount
+                && pageIndex < firstVisiblePage + 2 * panelCount) {
+            return WidgetInflationExecutor.PRIORITY_ADJACENT;
+        }
+        return WidgetInflationExecutor.PRIORITY_DEFAULT;
+    }
+
     public void deferRemoveExtraEmptyScreen() {
         mDeferRemoveExtraEmptyScreen = true;
     }
@@ -631,6 +661,7 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
         removeAllViews();
         mScreenOrder.clear();
         mWorkspaceScreens.clear();
+        mDeferredPageItems.clear();
 
         // Remove any deferred refresh callbacks
         mLauncher.mHandler.removeCallbacksAndMessages(DeferredWidgetRefresh.class);
@@ -1007,7 +1038,8 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
             CellLayout cl = mWorkspaceScreens.valueAt(i);
             // FIRST_SCREEN_ID can never be removed.
             if ((!FeatureFlags.QSB_ON_FIRST_SCREEN || id > FIRST_SCREEN_ID)
-                    && cl.getShortcutsAndWidgets().getChildCount() == 0) {
+                    && cl.getShortcutsAndWidgets().getChildCount() == 0
+                    && !mDeferredPageItems.containsKey(id)) {
                 removeScreens.add(id);
             }
         }
@@ -1160,11 +1192,14 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
     protected void onPageBeginTransition() {
         super.onPageBeginTransition();
         updateChildrenLayersEnabled();
+        scheduleMaterializePages();
+        WidgetInflationExecutor.INSTANCE.updatePriorities();
     }
 
     protected void onPageEndTransition() {
         super.onPageEndTransition();
         updateChildrenLayersEnabled();
+        WidgetInflationExecutor.INSTANCE.updatePriorities();
 
         if (mDragController.isDragging()) {
             if (workspaceInModalState()) {
@@ -1232,6 +1267,94 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
         updatePageAlphaValues();
         updatePageScrollValues();
         enableHwLayersOnVisiblePages();
+        scheduleMaterializePages();
+    }
+
+    /**
+     * Holds on to the provided items without creating their views until their page is about to
+     * become visible. Items which are not directly on a workspace page are bound immediately.
+     */
+    public void deferItems(List<ItemInfo> items) {
+        ArrayList<ItemInfo> bindNow = new ArrayList<>();
+        for (ItemInfo item : items) {
+            if (item.container != LauncherSettings.Favorites.CONTAINER_DESKTOP) {
+                bindNow.add(item);
+                continue;
+            }
+            int screenId = getCellPosMapper().mapModelToPresenter(item).screenId;
+            ArrayList<ItemInfo> pageItems = mDeferredPageItems.get(screenId);
+            if (pageItems == null) {
+                pageItems = new ArrayList<>();
+                mDeferredPageItems.put(screenId, pageItems);
+            }
+            pageItems.add(item);
+        }
+        if (!bindNow.isEmpty()) {
+            mLauncher.bindItems(bindNow, false);
+        }
+        if (mLauncher.getDragController().isDragging()) {
+            // The drag can target any page, so its occupancy must be complete
+            materializeAllPages();
+        } else {
+            scheduleMaterializePages();
+        }
+    }
+
+    /**
+     * Creates the views for any deferred items on the page with the provided screen id
+     */
+    public void materializePage(int screenId) {
+        ArrayList<ItemInfo> items = mDeferredPageItems.get(screenId);
+        if (items != null) {
+            mDeferredPageItems.remove(screenId);
+            mLauncher.bindItems(items, false);
+        }
+    }
+
+    /**
+     * Creates the views for all the deferred items. Must be called before the occupancy of pages
+     * away from the current page is queried or changed, e.g. when a drag starts, as deferred pages
+     * look empty until then.
+     */
+    public void materializeAllPages() {
+        if (mDeferredPageItems.size() == 0) {
+            return;
+        }
+        ArrayList<ItemInfo> items = new ArrayList<>();
+        for (ArrayList<ItemInfo> pageItems : mDeferredPageItems) {
+            items.addAll(pageItems);
+        }
+        mDeferredPageItems.clear();
+        mLauncher.bindItems(items, false);
+    }
+
+    private void scheduleMaterializePages() {
+        // Views are added from a separate message, as this can be called during draw
+        if (!mMaterializePagesPosted && mDeferredPageItems.size() > 0) {
+            mMaterializePagesPosted = true;
+            post(mMaterializePagesRunnable);
+        }
+    }
+
+    private void materializePagesNearCurrentPage() {
+        mMaterializePagesPosted = false;
+        int pageCount = getChildCount();
+        if (mDeferredPageItems.size() == 0 || pageCount == 0) {
+            return;
+        }
+        // Materialize the visible panels and the panels on either side of them, both around the
+        // page under the current scroll and the page we are settling to.
+        int panelCount = getPanelCount();
+        for (int page : new int[] {getPageNearestToCenterOfScreen(), getNextPage()}) {
+            // Align to the first panel of the group, like BaseLauncherBinder does for the initial
+            // bind, so that both sides of a panel group are bound together
+            int groupStart = page - page % panelCount;
+            int first = Math.max(0, groupStart - panelCount);
+            int last = Math.min(pageCount - 1, groupStart + 2 * panelCount - 1);
+            for (int i = first; i <= last; i++) {
+                materializePage(getScreenIdForPageIndex(i));
+            }
+        }
     }
 
     public void showPageIndicatorAtCurrentScroll() {
@@ -3280,6 +3403,26 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
             }
         }
 
+        // Remove the matching items which have not been materialized yet
+        for (int i = mDeferredPageItems.size() - 1; i >= 0; i--) {
+            ArrayList<ItemInfo> pageItems = mDeferredPageItems.valueAt(i);
+            pageItems.removeIf(matcher);
+            for (ItemInfo info : pageItems) {
+                if (info instanceof FolderInfo) {
+                    FolderInfo folderInfo = (FolderInfo) info;
+                    List<WorkspaceItemInfo> matches = folderInfo.contents.stream()
+                            .filter(matcher)
+                            .collect(Collectors.toList());
+                    if (!matches.isEmpty()) {
+                        folderInfo.removeAll(matches, false);
+                    }
+                }
+            }
+            if (pageItems.isEmpty()) {
+                mDeferredPageItems.removeAt(i);
+            }
+        }
+
         // Strip all the empty screens
         stripEmptyScreens();
     }
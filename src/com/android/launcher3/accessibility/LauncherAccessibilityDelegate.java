@@ -332,6 +332,8 @@ public class LauncherAccessibilityDelegate extends BaseAccessibilityDelegate<Lau
      */
     protected int findSpaceOnWorkspace(ItemInfo info, int[] outCoordinates) {
         Workspace<?> workspace = mContext.getWorkspace();
+        // Every page is searched, so deferred items must be bound for the occupancy to be correct
+        workspace.materializeAllPages();
         IntArray workspaceScreens = workspace.getScreenOrder();
         int screenId;
 
@@ -20,8 +20,8 @@ import static com.android.launcher3.model.data.AppInfo.EMPTY_ARRAY;
 import static com.android.launcher3.model.data.ItemInfoWithIcon.FLAG_SHOW_DOWNLOAD_PROGRESS_MASK;
 import static com.android.launcher3.testing.shared.TestProtocol.WORK_TAB_MISSING;
 
+import android.util.ArraySet;
 import android.util.Log;
-import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.Nullable;
@@ -35,9 +35,11 @@ import com.android.launcher3.util.PackageUserKey;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 /**
@@ -57,6 +59,15 @@ public class AllAppsStore {
 
     private final List<OnUpdateListener> mUpdateListeners = new CopyOnWriteArrayList<>();
     private final ArrayList<ViewGroup> mIconContainers = new ArrayList<>();
+
+    // Icons bound by the registered containers, mapped to the info they were bound with, and
+    // indexed by package and item so that dot and progress updates only visit affected icons.
+    private final IdentityHashMap<BubbleTextView, ItemInfo> mBoundIcons = new IdentityHashMap<>();
+    private final HashMap<PackageUserKey, ArraySet<BubbleTextView>> mIconsByPackage =
+            new HashMap<>();
+    private final IdentityHashMap<ItemInfo, ArraySet<BubbleTextView>> mIconsByItem =
+            new IdentityHashMap<>();
+    private final ArrayList<BubbleTextView> mStaleIcons = new ArrayList<>();
     private int mModelFlags;
 
     private int mDeferUpdatesFlags = 0;
@@ -147,15 +158,73 @@ public class AllAppsStore {
         mIconContainers.remove(container);
     }
 
+    /**
+     * Called when {@param icon} has been bound to the {@link ItemInfo} set as its tag, so that it
+     * receives notification dot and progress updates. Icons should be unregistered using
+     * {@link #onIconUnbound} when they are recycled or removed from their container.
+     */
+    public void onIconBound(BubbleTextView icon) {
+        if (!(icon.getTag() instanceof ItemInfo)) {
+            onIconUnbound(icon);
+            return;
+        }
+        ItemInfo info = (ItemInfo) icon.getTag();
+        ItemInfo previous = mBoundIcons.put(icon, info);
+        if (previous == info) {
+            return;
+        }
+        if (previous != null) {
+            removeFromIndex(icon, previous);
+        }
+        mIconsByItem.computeIfAbsent(info, i -> new ArraySet<>()).add(icon);
+        PackageUserKey key = PackageUserKey.fromItemInfo(info);
+        if (key != null) {
+            mIconsByPackage.computeIfAbsent(key, k -> new ArraySet<>()).add(icon);
+        }
+    }
+
+    /**
+     * Called when {@param icon} is no longer bound to the item it was registered with.
+     */
+    public void onIconUnbound(BubbleTextView icon) {
+        ItemInfo previous = mBoundIcons.remove(icon);
+        if (previous != null) {
+            removeFromIndex(icon, previous);
+        }
+    }
+
+    private void removeFromIndex(BubbleTextView icon, ItemInfo info) {
+        ArraySet<BubbleTextView> icons = mIconsByItem.get(info);
+        if (icons != null && icons.remove(icon) && icons.isEmpty()) {
+            mIconsByItem.remove(info);
+        }
+        PackageUserKey key = PackageUserKey.fromItemInfo(info);
+        if (key != null) {
+            icons = mIconsByPackage.get(key);
+            if (icons != null && icons.remove(icon) && icons.isEmpty()) {
+                mIconsByPackage.remove(key);
+            }
+        }
+    }
+
     public void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
-        updateAllIcons((child) -> {
-            if (child.getTag() instanceof ItemInfo) {
-                ItemInfo info = (ItemInfo) child.getTag();
-                if (mTempKey.updateFromItemInfo(info) && updatedDots.test(mTempKey)) {
-                    child.applyDotState(info, true /* animate */);
+        for (Map.Entry<PackageUserKey, ArraySet<BubbleTextView>> entry
+                : mIconsByPackage.entrySet()) {
+            if (!updatedDots.test(entry.getKey())) {
+                continue;
+            }
+            ArraySet<BubbleTextView> icons = entry.getValue();
+            for (int i = icons.size() - 1; i >= 0; i--) {
+                BubbleTextView icon = icons.valueAt(i);
+                if (isIconActive(icon)) {
+                    ItemInfo info = (ItemInfo) icon.getTag();
+                    if (mTempKey.updateFromItemInfo(info)) {
+                        icon.applyDotState(info, true /* animate */);
+                    }
                 }
             }
-        });
+        }
+        removeStaleIcons();
     }
 
     /**
@@ -168,29 +237,41 @@ public class AllAppsStore {
      * If this app is fully downloaded, the app icon will be reapplied.
      */
     public void updateProgressBar(AppInfo app) {
-        updateAllIcons((child) -> {
-            if (child.getTag() == app) {
+        ArraySet<BubbleTextView> icons = mIconsByItem.get(app);
+        if (icons == null) {
+            return;
+        }
+        for (int i = icons.size() - 1; i >= 0; i--) {
+            BubbleTextView icon = icons.valueAt(i);
+            if (isIconActive(icon)) {
                 if ((app.runtimeStatusFlags & FLAG_SHOW_DOWNLOAD_PROGRESS_MASK) == 0) {
-                    child.applyFromApplicationInfo(app);
+                    icon.applyFromApplicationInfo(app);
                 } else {
-                    child.applyProgressLevel();
+                    icon.applyProgressLevel();
                 }
             }
-        });
+        }
+        removeStaleIcons();
     }
 
-    private void updateAllIcons(Consumer<BubbleTextView> action) {
-        for (int i = mIconContainers.size() - 1; i >= 0; i--) {
-            ViewGroup parent = mIconContainers.get(i);
-            int childCount = parent.getChildCount();
+    /**
+     * Returns true if the icon is still bound to the item it was registered with and is attached
+     * to one of the registered containers. Icons which have since been rebound without
+     * notifying the store are queued for removal from the index.
+     */
+    private boolean isIconActive(BubbleTextView icon) {
+        if (icon.getTag() != mBoundIcons.get(icon)) {
+            mStaleIcons.add(icon);
+            return false;
+        }
+        return mIconContainers.contains(icon.getParent());
+    }
 
-            for (int j = 0; j < childCount; j++) {
-                View child = parent.getChildAt(j);
-                if (child instanceof BubbleTextView) {
-                    action.accept((BubbleTextView) child);
-                }
-            }
+    private void removeStaleIcons() {
+        for (int i = mStaleIcons.size() - 1; i >= 0; i--) {
+            onIconUnbound(mStaleIcons.get(i));
         }
+        mStaleIcons.clear();
     }
 
     public interface OnUpdateListener {
@@ -15,10 +15,14 @@
  */
 package com.android.launcher3.allapps;
 
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
 import android.content.Context;
 
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.DiffUtil.DiffResult;
 
 import com.android.launcher3.R;
 import com.android.launcher3.allapps.BaseAllAppsAdapter.AdapterItem;
@@ -28,12 +32,14 @@ import com.android.launcher3.util.LabelComparator;
 import com.android.launcher3.views.ActivityContext;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * The alphabetically sorted list of applications.
@@ -68,6 +74,10 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
 
     // The set of apps from the system
     private final List<AppInfo> mApps = new ArrayList<>();
+    // The filtered apps ordered by mAppNameComparator, along with the titles they were sorted with.
+    // Used to only sort the apps which changed on the next update.
+    private List<AppInfo> mSortedApps = new ArrayList<>();
+    private List<String> mSortedTitles = new ArrayList<>();
     @Nullable
     private final AllAppsStore mAllAppsStore;
 
@@ -87,6 +97,9 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
     private Predicate<ItemInfo> mItemFilter;
     private final boolean mSortSections;
 
+    // Incremented on every adapter update, to drop outdated results computed in the background
+    private int mUpdateGeneration = 0;
+
     public AlphabeticalAppsList(Context context, @Nullable AllAppsStore appsStore,
             WorkProfileManager workProfileManager) {
         mAllAppsStore = appsStore;
@@ -102,7 +115,7 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
 
     public void updateItemFilter(Predicate<ItemInfo> itemFilter) {
         this.mItemFilter = itemFilter;
-        onAppsUpdated();
+        updateApps(false /* allowAsyncDiff */);
     }
 
     /**
@@ -189,37 +202,84 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
      */
     @Override
     public void onAppsUpdated() {
+        updateApps(true /* allowAsyncDiff */);
+    }
+
+    private void updateApps(boolean allowAsyncDiff) {
         if (mAllAppsStore == null) {
             return;
         }
-        // Sort the list of apps
-        mApps.clear();
+        Predicate<ItemInfo> filter = !hasSearchResults() ? mItemFilter : null;
+        Set<AppInfo> newApps = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (AppInfo info : mAllAppsStore.getApps()) {
+            if (filter == null || filter.test(info)) {
+                newApps.add(info);
+            }
+        }
 
-        Stream<AppInfo> appSteam = Stream.of(mAllAppsStore.getApps());
-        if (!hasSearchResults() && mItemFilter != null) {
-            appSteam = appSteam.filter(mItemFilter);
+        // Apps which were already sorted and whose title did not change keep their relative order,
+        // only the remaining apps need to be sorted and merged in.
+        List<AppInfo> kept = new ArrayList<>(newApps.size());
+        List<AppInfo> changed = new ArrayList<>();
+        for (int i = 0; i < mSortedApps.size(); i++) {
+            AppInfo info = mSortedApps.get(i);
+            if (newApps.remove(info)) {
+                if (getTitle(info).equals(mSortedTitles.get(i))) {
+                    kept.add(info);
+                } else {
+                    changed.add(info);
+                }
+            }
+        }
+        changed.addAll(newApps);
+        changed.sort(mAppNameComparator);
+        mSortedApps = mergeSorted(kept, changed);
+        mSortedTitles = new ArrayList<>(mSortedApps.size());
+        for (AppInfo info : mSortedApps) {
+            mSortedTitles.add(getTitle(info));
         }
-        appSteam = appSteam.sorted(mAppNameComparator);
+        mAppNameComparator.trimCache(mSortedApps);
 
+        mApps.clear();
         // As a special case for some languages (currently only Simplified Chinese), we may need to
         // coalesce sections
         if (mSortSections) {
             // Compute the section headers. We use a TreeMap with the section name comparator to
             // ensure that the sections are ordered when we iterate over it later
-            appSteam = appSteam.collect(Collectors.groupingBy(
+            mSortedApps.stream().collect(Collectors.groupingBy(
                     info -> info.sectionName,
                     () -> new TreeMap<>(new LabelComparator()),
                     Collectors.toCollection(ArrayList::new)))
                     .values()
-                    .stream()
-                    .flatMap(ArrayList::stream);
+                    .forEach(mApps::addAll);
+        } else {
+            mApps.addAll(mSortedApps);
         }
 
-        appSteam.forEachOrdered(mApps::add);
         // Recompose the set of adapter items from the current set of apps
         if (mSearchResults.isEmpty()) {
-            updateAdapterItems();
+            updateAdapterItems(allowAsyncDiff);
+        }
+    }
+
+    private static String getTitle(AppInfo info) {
+        return info.title == null ? "" : info.title.toString();
+    }
+
+    private List<AppInfo> mergeSorted(List<AppInfo> a, List<AppInfo> b) {
+        if (b.isEmpty()) {
+            return a;
+        }
+        List<AppInfo> result = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            result.add(mAppNameComparator.compare(a.get(i), b.get(j)) <= 0
+                    ? a.get(i++) : b.get(j++));
         }
+        result.addAll(a.subList(i, a.size()));
+        result.addAll(b.subList(j, b.size()));
+        return result;
     }
 
     /**
@@ -227,38 +287,71 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
      * mCachedSectionNames to have been calculated for the set of all apps in mApps.
      */
     public void updateAdapterItems() {
-        List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
-        // Prepare to update the list of sections, filtered apps, etc.
-        mFastScrollerSections.clear();
-        mAdapterItems.clear();
-        mAccessibilityResultsCount = 0;
+        updateAdapterItems(false /* allowAsyncDiff */);
+    }
+
+    /**
+     * @param allowAsyncDiff if true and the list is already populated, the diff with the current
+     *                       items is calculated in the background and the new items are applied
+     *                       along with it. Any later update drops the pending result.
+     */
+    private void updateAdapterItems(boolean allowAsyncDiff) {
+        int generation = ++mUpdateGeneration;
+        ArrayList<AdapterItem> newItems = new ArrayList<>();
+        List<FastScrollSectionInfo> newSections = new ArrayList<>();
 
         // Recreate the filtered and sectioned apps (for convenience for the grid layout) from the
         // ordered set of sections
         if (hasSearchResults()) {
-            mAdapterItems.addAll(mSearchResults);
+            newItems.addAll(mSearchResults);
         } else {
             int position = 0;
             boolean addApps = true;
             if (mWorkProviderManager != null) {
-                position += mWorkProviderManager.addWorkItems(mAdapterItems);
+                position += mWorkProviderManager.addWorkItems(newItems);
                 addApps = mWorkProviderManager.shouldShowWorkApps();
             }
             if (addApps) {
                 String lastSectionName = null;
                 for (AppInfo info : mApps) {
-                    mAdapterItems.add(AdapterItem.asApp(info));
+                    newItems.add(AdapterItem.asApp(info));
 
                     String sectionName = info.sectionName;
                     // Create a new section if the section names do not match
                     if (!sectionName.equals(lastSectionName)) {
                         lastSectionName = sectionName;
-                        mFastScrollerSections.add(new FastScrollSectionInfo(sectionName, position));
+                        newSections.add(new FastScrollSectionInfo(sectionName, position));
                     }
                     position++;
                 }
             }
         }
+
+        if (mAdapter == null) {
+            applyAdapterItems(newItems, newSections, null);
+        } else if (!allowAsyncDiff || mAdapterItems.isEmpty()) {
+            applyAdapterItems(newItems, newSections,
+                    DiffUtil.calculateDiff(new MyDiffCallback(mAdapterItems, newItems), false));
+        } else {
+            List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
+            UI_HELPER_EXECUTOR.execute(() -> {
+                DiffResult result =
+                        DiffUtil.calculateDiff(new MyDiffCallback(oldItems, newItems), false);
+                MAIN_EXECUTOR.execute(() -> {
+                    if (generation == mUpdateGeneration) {
+                        applyAdapterItems(newItems, newSections, result);
+                    }
+                });
+            });
+        }
+    }
+
+    private void applyAdapterItems(List<AdapterItem> newItems,
+            List<FastScrollSectionInfo> newSections, @Nullable DiffResult diffResult) {
+        mAdapterItems.clear();
+        mAdapterItems.addAll(newItems);
+        mFastScrollerSections.clear();
+        mFastScrollerSections.addAll(newSections);
         mAccessibilityResultsCount = (int) mAdapterItems.stream()
                 .filter(AdapterItem::isCountedForAccessibility).count();
 
@@ -286,9 +379,8 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
             mNumAppRowsInAdapter = rowIndex + 1;
         }
 
-        if (mAdapter != null) {
-            DiffUtil.calculateDiff(new MyDiffCallback(oldItems, mAdapterItems), false)
-                    .dispatchUpdatesTo(mAdapter);
+        if (mAdapter != null && diffResult != null) {
+            diffResult.dispatchUpdatesTo(mAdapter);
         }
     }
 
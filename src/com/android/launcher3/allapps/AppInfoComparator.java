@@ -23,7 +23,10 @@ import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.pm.UserCache;
 import com.android.launcher3.util.LabelComparator;
 
+import java.text.CollationKey;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A comparator to arrange items based on user profiles.
@@ -34,6 +37,9 @@ public class AppInfoComparator implements Comparator<AppInfo> {
     private final UserHandle mMyUser;
     private final LabelComparator mLabelComparator;
 
+    // Collation keys of the titles seen so far, so that each title is only collated once
+    private Map<String, CollationKey> mCollationKeys = new HashMap<>();
+
     public AppInfoComparator(Context context) {
         mUserManager = UserCache.INSTANCE.get(context);
         mMyUser = Process.myUserHandle();
@@ -43,9 +49,10 @@ public class AppInfoComparator implements Comparator<AppInfo> {
     @Override
     public int compare(AppInfo a, AppInfo b) {
         // Order by the title in the current locale
+        String titleA = a.title == null ? "" : a.title.toString();
+        String titleB = b.title == null ? "" : b.title.toString();
         int result = mLabelComparator.compare(
-                a.title == null ? "" : a.title.toString(),
-                b.title == null ? "" : b.title.toString());
+                titleA, getCollationKey(titleA), titleB, getCollationKey(titleB));
         if (result != 0) {
             return result;
         }
@@ -64,4 +71,28 @@ public class AppInfoComparator implements Comparator<AppInfo> {
             return aUserSerial.compareTo(bUserSerial);
         }
     }
+
+    private CollationKey getCollationKey(String title) {
+        CollationKey key = mCollationKeys.get(title);
+        if (key == null) {
+            key = mLabelComparator.getCollationKey(title);
+            mCollationKeys.put(title, key);
+        }
+        return key;
+    }
+
+    /**
+     * Drops the cached collation keys which are not used by any of the provided apps
+     */
+    public void trimCache(Iterable<AppInfo> apps) {
+        Map<String, CollationKey> keys = new HashMap<>(mCollationKeys.size());
+        for (AppInfo app : apps) {
+            String title = app.title == null ? "" : app.title.toString();
+            CollationKey key = mCollationKeys.get(title);
+            if (key != null) {
+                keys.put(title, key);
+            }
+        }
+        mCollationKeys = keys;
+    }
 }
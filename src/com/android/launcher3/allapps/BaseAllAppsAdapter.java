@@ -230,6 +230,10 @@ public abstract class BaseAllAppsAdapter<T extends Context & ActivityContext> ex
                 BubbleTextView icon = (BubbleTextView) holder.itemView;
                 icon.reset();
                 icon.applyFromApplicationInfo(adapterItem.itemInfo);
+                AllAppsStore appsStore = getAppsStore();
+                if (appsStore != null) {
+                    appsStore.onIconBound(icon);
+                }
                 break;
             }
             case VIEW_TYPE_EMPTY_SEARCH: {
@@ -254,6 +258,22 @@ public abstract class BaseAllAppsAdapter<T extends Context & ActivityContext> ex
         }
     }
 
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        if (holder.itemView instanceof BubbleTextView) {
+            AllAppsStore appsStore = getAppsStore();
+            if (appsStore != null) {
+                appsStore.onIconUnbound((BubbleTextView) holder.itemView);
+            }
+        }
+    }
+
+    @Nullable
+    private AllAppsStore getAppsStore() {
+        ActivityAllAppsContainerView<?> appsView = mActivityContext.getAppsView();
+        return appsView == null ? null : appsView.getAppsStore();
+    }
+
     @Override
     public boolean onFailedToRecycleView(ViewHolder holder) {
         // Always recycle and we will reset the view when it is bound
@@ -28,6 +28,9 @@ import android.animation.AnimatorSet;
 import android.animation.TimeInterpolator;
 import android.animation.ValueAnimator;
 import android.content.Context;
+import android.util.FloatProperty;
+
+import androidx.annotation.Nullable;
 
 import com.android.launcher3.Utilities;
 
@@ -67,6 +70,8 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
 
     private final AnimatorSet mAnim;
     private final Holder[] mChildAnimations;
+    @Nullable
+    private final FloatTracks mFloatTracks;
 
     protected float mCurrentFraction;
     private Runnable mEndAction;
@@ -75,6 +80,16 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
 
     /** package private */
     AnimatorPlaybackController(AnimatorSet anim, long duration, ArrayList<Holder> childAnims) {
+        this(anim, duration, childAnims, null);
+    }
+
+    /**
+     * package private
+     * @param floatTracks animations of {@param anim} which are evaluated directly, instead of
+     *                    through their animators, and are not part of {@param childAnims}
+     */
+    AnimatorPlaybackController(AnimatorSet anim, long duration, ArrayList<Holder> childAnims,
+            @Nullable FloatTracks floatTracks) {
         mAnim = anim;
         mDuration = duration;
 
@@ -101,6 +116,7 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
         });
 
         mChildAnimations = childAnims.toArray(new Holder[childAnims.size()]);
+        mFloatTracks = floatTracks;
     }
 
     public AnimatorSet getTarget() {
@@ -222,6 +238,9 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
         for (Holder h : mChildAnimations) {
             h.reset();
         }
+        if (mFloatTracks != null) {
+            mFloatTracks.reset();
+        }
         mAnimationPlayer.cancel();
     }
 
@@ -246,6 +265,9 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
         for (Holder holder : mChildAnimations) {
             holder.setProgress(progress);
         }
+        if (mFloatTracks != null) {
+            mFloatTracks.setProgress(progress);
+        }
     }
 
     public float getProgressFraction() {
@@ -295,6 +317,9 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
 
     public void dispatchSetInterpolator(TimeInterpolator interpolator) {
         callAnimatorCommandRecursively(mAnim, a -> a.setInterpolator(interpolator));
+        if (mFloatTracks != null) {
+            mFloatTracks.setInterpolator(interpolator);
+        }
     }
 
     /**
@@ -392,6 +417,68 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
         }
     }
 
+    /**
+     * Float properties animated between fixed values, stored in flat arrays and evaluated in a
+     * single loop. This matches what their {@link android.animation.ObjectAnimator}s would set,
+     * without going through the animators' property value holders. These never use springs.
+     */
+    static class FloatTracks {
+
+        private final Object[] mTargets;
+        private final FloatProperty[] mProperties;
+        private final float[] mFrom;
+        private final float[] mTo;
+        private final TimeInterpolator[] mInterpolators;
+        // Interpolators the tracks were added with, restored by reset()
+        private final TimeInterpolator[] mOriginalInterpolators;
+        // Progress of the controller at which each track ends
+        private final float[] mEndProgress;
+        private int mCount;
+
+        FloatTracks(int capacity) {
+            mTargets = new Object[capacity];
+            mProperties = new FloatProperty[capacity];
+            mFrom = new float[capacity];
+            mTo = new float[capacity];
+            mInterpolators = new TimeInterpolator[capacity];
+            mOriginalInterpolators = new TimeInterpolator[capacity];
+            mEndProgress = new float[capacity];
+        }
+
+        void add(Object target, FloatProperty property, float from, float to,
+                TimeInterpolator interpolator, float endProgress) {
+            mTargets[mCount] = target;
+            mProperties[mCount] = property;
+            mFrom[mCount] = from;
+            mTo[mCount] = to;
+            mInterpolators[mCount] = interpolator == null ? LINEAR : interpolator;
+            mOriginalInterpolators[mCount] = mInterpolators[mCount];
+            mEndProgress[mCount] = endProgress;
+            mCount++;
+        }
+
+        @SuppressWarnings("unchecked")
+        void setProgress(float progress) {
+            for (int i = 0; i < mCount; i++) {
+                float end = mEndProgress[i];
+                float trackProgress = end > progress ? progress / end : 1;
+                float value = mFrom[i]
+                        + (mTo[i] - mFrom[i]) * mInterpolators[i].getInterpolation(trackProgress);
+                mProperties[i].setValue(mTargets[i], value);
+            }
+        }
+
+        void setInterpolator(TimeInterpolator interpolator) {
+            for (int i = 0; i < mCount; i++) {
+                mInterpolators[i] = interpolator == null ? LINEAR : interpolator;
+            }
+        }
+
+        void reset() {
+            System.arraycopy(mOriginalInterpolators, 0, mInterpolators, 0, mCount);
+        }
+    }
+
     static void addAnimationHoldersRecur(Animator anim, long globalDuration,
             SpringProperty springProperty, ArrayList<Holder> out) {
         long forceDuration = anim.getDuration();
@@ -24,9 +24,14 @@ import android.animation.TimeInterpolator;
 import android.animation.ValueAnimator;
 import android.util.FloatProperty;
 
+import com.android.launcher3.anim.AnimatorPlaybackController.FloatTracks;
 import com.android.launcher3.anim.AnimatorPlaybackController.Holder;
+import com.android.launcher3.config.FeatureFlags;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 /**
  * Utility class to keep track of a running animation.
@@ -40,6 +45,8 @@ import java.util.ArrayList;
 public class PendingAnimation extends AnimatedPropertySetter {
 
     private final ArrayList<Holder> mAnimHolders = new ArrayList<>();
+    // Animations added with addFloat, which a controller can evaluate without their animators
+    private final ArrayList<FloatAnim> mFloatAnims = new ArrayList<>();
     private final long mDuration;
 
     public PendingAnimation(long  duration) {
@@ -80,6 +87,7 @@ public class PendingAnimation extends AnimatedPropertySetter {
         Animator anim = ObjectAnimator.ofFloat(target, property, from, to);
         anim.setInterpolator(interpolator);
         add(anim);
+        mFloatAnims.add(new FloatAnim(anim, target, property, from, to));
     }
 
     /**
@@ -98,6 +106,41 @@ public class PendingAnimation extends AnimatedPropertySetter {
      * Creates a controller for this animation
      */
     public AnimatorPlaybackController createPlaybackController() {
-        return new AnimatorPlaybackController(buildAnim(), mDuration, mAnimHolders);
+        AnimatorSet anim = buildAnim();
+        if (mFloatAnims.isEmpty() || !FeatureFlags.ENABLE_COMPILED_ANIMATION_PLAYBACK.get()) {
+            return new AnimatorPlaybackController(anim, mDuration, mAnimHolders);
+        }
+
+        FloatTracks floatTracks = new FloatTracks(mFloatAnims.size());
+        Set<Animator> compiledAnims = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (FloatAnim floatAnim : mFloatAnims) {
+            float endProgress = floatAnim.anim.getDuration() / (float) mDuration;
+            floatTracks.add(floatAnim.target, floatAnim.property, floatAnim.from, floatAnim.to,
+                    floatAnim.anim.getInterpolator(), endProgress);
+            compiledAnims.add(floatAnim.anim);
+        }
+        ArrayList<Holder> holders = new ArrayList<>(mAnimHolders.size());
+        for (Holder holder : mAnimHolders) {
+            if (!compiledAnims.contains(holder.anim)) {
+                holders.add(holder);
+            }
+        }
+        return new AnimatorPlaybackController(anim, mDuration, holders, floatTracks);
+    }
+
+    private static class FloatAnim {
+        final Animator anim;
+        final Object target;
+        final FloatProperty property;
+        final float from;
+        final float to;
+
+        FloatAnim(Animator anim, Object target, FloatProperty property, float from, float to) {
+            this.anim = anim;
+            this.target = target;
+            this.property = property;
+            this.from = from;
+            this.to = to;
+        }
     }
 }
@@ -383,6 +383,22 @@ public final class FeatureFlags {
                     + "visible to the user before the rest rather than loading all of them at once."
     );
 
+    public static final BooleanFlag ENABLE_LAZY_WORKSPACE_PAGES = getDebugFlag(270397212,
+            "ENABLE_LAZY_WORKSPACE_PAGES", false, "Only bind the items of the workspace pages "
+                    + "next to the current page, binding other pages as the user scrolls to them.");
+
+    public static final BooleanFlag ENABLE_WIDGET_HOST_VIEW_PREWARM = getDebugFlag(270397213,
+            "ENABLE_WIDGET_HOST_VIEW_PREWARM", false, "Bind and inflate a widget while it is "
+                    + "being long pressed in the widget picker, before the drag starts.");
+
+    public static final BooleanFlag ENABLE_BINDER_ACCOUNTING = getReleaseFlag(270397214,
+            "ENABLE_BINDER_ACCOUNTING", false, "Count the binder calls made by launcher and "
+                    + "their latency, per thread, interface and call site, for dumpsys.");
+
+    public static final BooleanFlag ENABLE_COMPILED_ANIMATION_PLAYBACK = getDebugFlag(270397215,
+            "ENABLE_COMPILED_ANIMATION_PLAYBACK", false, "Evaluate the float animations of "
+                    + "controlled state transitions in a single loop instead of their animators.");
+
     public static final BooleanFlag ENABLE_GRID_ONLY_OVERVIEW = getDebugFlag(270397206,
             "ENABLE_GRID_ONLY_OVERVIEW", false,
             "Enable a grid-only overview without a focused task.");
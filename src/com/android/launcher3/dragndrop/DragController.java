@@ -26,6 +26,7 @@ import android.view.DragEvent;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewTreeObserver;
 
 import androidx.annotation.Nullable;
 
@@ -36,9 +37,11 @@ import com.android.launcher3.logging.InstanceId;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.testing.shared.TestProtocol;
+import com.android.launcher3.util.LatencyHistogram;
 import com.android.launcher3.util.TouchController;
 import com.android.launcher3.views.ActivityContext;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -84,6 +87,17 @@ public abstract class DragController<T extends ActivityContext>
     private final ArrayList<DropTarget> mDropTargets = new ArrayList<>();
     private final ArrayList<DragListener> mListeners = new ArrayList<>();
 
+    /** Cached hit rects of {@link #mDropTargets}, invalidated on layout and scroll changes */
+    private final DropTargetIndex mDropTargetIndex = new DropTargetIndex();
+    private final ViewTreeObserver.OnGlobalLayoutListener mInvalidateIndexOnLayout =
+            this::invalidateDropTargetIndex;
+    private final ViewTreeObserver.OnScrollChangedListener mInvalidateIndexOnScroll =
+            this::invalidateDropTargetIndex;
+    @Nullable
+    private ViewTreeObserver mObservedViewTree;
+
+    private final LatencyHistogram mDragMoveCost = new LatencyHistogram("dragMoveCost");
+
     protected DropTarget mLastDropTarget;
 
     private int mLastTouchClassification;
@@ -217,6 +231,7 @@ public abstract class DragController<T extends ActivityContext>
             mOptions.preDragCondition.onPreDragEnd(mDragObject, true /* dragStarted*/);
         }
         mIsInPreDrag = false;
+        invalidateDropTargetIndex();
         if (mOptions.preDragEndScale != 0) {
             mDragObject.dragView
                     .animate()
@@ -342,6 +357,8 @@ public abstract class DragController<T extends ActivityContext>
         for (DragListener listener : new ArrayList<>(mListeners)) {
             listener.onDragEnd();
         }
+        stopObservingViewTree();
+        mDropTargetIndex.invalidate();
     }
 
     /**
@@ -443,6 +460,7 @@ public abstract class DragController<T extends ActivityContext>
     }
 
     protected void handleMoveEvent(int x, int y) {
+        long startNanos = System.nanoTime();
         mDragObject.dragView.move(x, y);
 
         // Drop on someone?
@@ -464,6 +482,7 @@ public abstract class DragController<T extends ActivityContext>
                 && mOptions.preDragCondition.shouldStartDrag(distanceDragged)) {
             callOnDragStart();
         }
+        mDragMoveCost.record(System.nanoTime() - startNanos);
     }
 
     public float getDistanceDragged() {
@@ -559,21 +578,35 @@ public abstract class DragController<T extends ActivityContext>
         mDragObject.x = x;
         mDragObject.y = y;
 
-        final Rect r = mRectTemp;
-        final ArrayList<DropTarget> dropTargets = mDropTargets;
-        final int count = dropTargets.size();
-        for (int i = count - 1; i >= 0; i--) {
-            DropTarget target = dropTargets.get(i);
-            if (!target.isDropEnabled())
-                continue;
-
-            target.getHitRectRelativeToDragLayer(r);
-            if (r.contains(x, y)) {
-                dropCoordinates[0] = x;
-                dropCoordinates[1] = y;
-                mActivity.getDragLayer().mapCoordInSelfToDescendant((View) target, dropCoordinates);
+        if (canUseDropTargetIndex()) {
+            if (!mDropTargetIndex.isValid()) {
+                mDropTargetIndex.rebuild(mDropTargets, mActivity.getDragLayer());
+                observeViewTree();
+            }
+            DropTarget target = mDropTargetIndex.findDropTarget(x, y, dropCoordinates);
+            if (target != null) {
                 return target;
             }
+        } else {
+            // Targets are moving, so resolve them against the current view hierarchy
+            mDropTargetIndex.invalidate();
+            final Rect r = mRectTemp;
+            final ArrayList<DropTarget> dropTargets = mDropTargets;
+            final int count = dropTargets.size();
+            for (int i = count - 1; i >= 0; i--) {
+                DropTarget target = dropTargets.get(i);
+                if (!target.isDropEnabled())
+                    continue;
+
+                target.getHitRectRelativeToDragLayer(r);
+                if (r.contains(x, y)) {
+                    dropCoordinates[0] = x;
+                    dropCoordinates[1] = y;
+                    mActivity.getDragLayer().mapCoordInSelfToDescendant(
+                            (View) target, dropCoordinates);
+                    return target;
+                }
+            }
         }
         // Pass all unhandled drag to workspace. Workspace finds the correct
         // cell layout to drop to in the existing drag/drop logic.
@@ -582,6 +615,53 @@ public abstract class DragController<T extends ActivityContext>
         return getDefaultDropTarget(dropCoordinates);
     }
 
+    /**
+     * Returns whether drop targets can be resolved from cached hit rects. Subclasses should return
+     * false while the targets are being animated, as transforms don't invalidate the cache.
+     */
+    protected boolean canUseDropTargetIndex() {
+        return true;
+    }
+
+    /**
+     * Invalidates the cached hit rects of the drop targets, which should be called when any of
+     * the targets moves without a layout or scroll change.
+     */
+    public void invalidateDropTargetIndex() {
+        mDropTargetIndex.invalidate();
+    }
+
+    /**
+     * Maps the coordinates from the drag layer into {@param descendant}, using the cached
+     * transform while the drop target index is valid.
+     */
+    protected void mapCoordInDragLayerToDescendant(View descendant, int[] coordinates) {
+        if (mDropTargetIndex.isValid()) {
+            mDropTargetIndex.mapCoordInRootToDescendant(descendant, coordinates);
+        } else {
+            mActivity.getDragLayer().mapCoordInSelfToDescendant(descendant, coordinates);
+        }
+    }
+
+    private void observeViewTree() {
+        ViewTreeObserver observer = mActivity.getDragLayer().getViewTreeObserver();
+        if (observer == mObservedViewTree) {
+            return;
+        }
+        stopObservingViewTree();
+        observer.addOnGlobalLayoutListener(mInvalidateIndexOnLayout);
+        observer.addOnScrollChangedListener(mInvalidateIndexOnScroll);
+        mObservedViewTree = observer;
+    }
+
+    private void stopObservingViewTree() {
+        if (mObservedViewTree != null && mObservedViewTree.isAlive()) {
+            mObservedViewTree.removeOnGlobalLayoutListener(mInvalidateIndexOnLayout);
+            mObservedViewTree.removeOnScrollChangedListener(mInvalidateIndexOnScroll);
+        }
+        mObservedViewTree = null;
+    }
+
     protected abstract DropTarget getDefaultDropTarget(int[] dropCoordinates);
 
     /**
@@ -603,6 +683,7 @@ public abstract class DragController<T extends ActivityContext>
      */
     public void addDropTarget(DropTarget target) {
         mDropTargets.add(target);
+        mDropTargetIndex.invalidate();
     }
 
     /**
@@ -610,5 +691,13 @@ public abstract class DragController<T extends ActivityContext>
      */
     public void removeDropTarget(DropTarget target) {
         mDropTargets.remove(target);
+        mDropTargetIndex.invalidate();
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "DragController:");
+        writer.println(prefix + "\tdropTargets=" + mDropTargets.size()
+                + " isDragging=" + isDragging());
+        mDragMoveCost.dump(prefix + "\t", writer);
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.dragndrop;
+
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.android.launcher3.DropTarget;
+import com.android.launcher3.Utilities;
+import com.android.launcher3.util.IntArray;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A spatial index of the hit rects of the registered {@link DropTarget}s in drag layer
+ * coordinates, along with the matrix mapping drag layer coordinates into each target. The drag
+ * layer is divided into a coarse grid, where each cell lists the targets overlapping it, so that
+ * resolving a drag move only checks a few cached rects and doesn't walk the view hierarchy.
+ *
+ * The index is a snapshot of the view hierarchy and must be invalidated whenever the targets are
+ * laid out, scrolled or transformed.
+ */
+class DropTargetIndex {
+
+    private static final int GRID_SIZE = 8;
+
+    private final ArrayList<DropTarget> mTargets = new ArrayList<>();
+    private final ArrayList<Rect> mHitRects = new ArrayList<>();
+    private final IntArray[] mCells = new IntArray[GRID_SIZE * GRID_SIZE];
+    private final IdentityHashMap<View, Matrix> mTransforms = new IdentityHashMap<>();
+    private final float[] mTmpPoint = new float[2];
+
+    private View mRoot;
+    private int mCellWidth;
+    private int mCellHeight;
+    private boolean mValid;
+
+    DropTargetIndex() {
+        for (int i = 0; i < mCells.length; i++) {
+            mCells[i] = new IntArray();
+        }
+    }
+
+    boolean isValid() {
+        return mValid;
+    }
+
+    void invalidate() {
+        mValid = false;
+        mTargets.clear();
+        mTransforms.clear();
+        for (IntArray cell : mCells) {
+            cell.clear();
+        }
+    }
+
+    /**
+     * Rebuilds the index for the provided targets, where the last target has the highest priority
+     */
+    void rebuild(List<DropTarget> targets, View root) {
+        invalidate();
+        mRoot = root;
+        mCellWidth = Math.max(1, (root.getWidth() + GRID_SIZE - 1) / GRID_SIZE);
+        mCellHeight = Math.max(1, (root.getHeight() + GRID_SIZE - 1) / GRID_SIZE);
+
+        for (int i = targets.size() - 1; i >= 0; i--) {
+            DropTarget target = targets.get(i);
+            int index = mTargets.size();
+            mTargets.add(target);
+            if (mHitRects.size() <= index) {
+                mHitRects.add(new Rect());
+            }
+            Rect hitRect = mHitRects.get(index);
+            target.getHitRectRelativeToDragLayer(hitRect);
+            if (hitRect.isEmpty()) {
+                continue;
+            }
+
+            int left = getCellX(hitRect.left);
+            int right = getCellX(hitRect.right - 1);
+            int top = getCellY(hitRect.top);
+            int bottom = getCellY(hitRect.bottom - 1);
+            for (int y = top; y <= bottom; y++) {
+                for (int x = left; x <= right; x++) {
+                    mCells[y * GRID_SIZE + x].add(index);
+                }
+            }
+        }
+        mValid = true;
+    }
+
+    /**
+     * Returns the highest priority enabled target whose hit rect contains the point, and maps the
+     * point into that target's coordinates, or returns null if no target contains the point.
+     */
+    @Nullable
+    DropTarget findDropTarget(int x, int y, int[] outCoordinates) {
+        IntArray cell = mCells[getCellY(y) * GRID_SIZE + getCellX(x)];
+        for (int i = 0; i < cell.size(); i++) {
+            int index = cell.get(i);
+            DropTarget target = mTargets.get(index);
+            if (target.isDropEnabled() && mHitRects.get(index).contains(x, y)) {
+                outCoordinates[0] = x;
+                outCoordinates[1] = y;
+                mapCoordInRootToDescendant((View) target, outCoordinates);
+                return target;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps the coordinates in place from the drag layer into {@param descendant}, caching the
+     * transform until the index is invalidated.
+     */
+    void mapCoordInRootToDescendant(View descendant, int[] coordinates) {
+        Matrix matrix = mTransforms.get(descendant);
+        if (matrix == null) {
+            matrix = new Matrix();
+            Utilities.getMatrixInSelfToDescendant(descendant, mRoot, matrix);
+            mTransforms.put(descendant, matrix);
+        }
+        mTmpPoint[0] = coordinates[0];
+        mTmpPoint[1] = coordinates[1];
+        matrix.mapPoints(mTmpPoint);
+        Utilities.roundArray(mTmpPoint, coordinates);
+    }
+
+    private int getCellX(int x) {
+        return Utilities.boundToRange(x / mCellWidth, 0, GRID_SIZE - 1);
+    }
+
+    private int getCellY(int y) {
+        return Utilities.boundToRange(y / mCellHeight, 0, GRID_SIZE - 1);
+    }
+}
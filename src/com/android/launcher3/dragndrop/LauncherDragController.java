@@ -34,9 +34,11 @@ import com.android.launcher3.AbstractFloatingView;
 import com.android.launcher3.DragSource;
 import com.android.launcher3.DropTarget;
 import com.android.launcher3.Launcher;
+import com.android.launcher3.LauncherState;
 import com.android.launcher3.R;
 import com.android.launcher3.accessibility.DragViewStateAnnouncer;
 import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.statemanager.StateManager.StateListener;
 import com.android.launcher3.testing.shared.TestProtocol;
 
 /**
@@ -51,6 +53,12 @@ public class LauncherDragController extends DragController<Launcher> {
     public LauncherDragController(Launcher launcher) {
         super(launcher);
         mFlingToDeleteHelper = new FlingToDeleteHelper(launcher);
+        launcher.getStateManager().addStateListener(new StateListener<LauncherState>() {
+            @Override
+            public void onStateTransitionComplete(LauncherState finalState) {
+                invalidateDropTargetIndex();
+            }
+        });
     }
 
     @Override
@@ -183,8 +191,13 @@ public class LauncherDragController extends DragController<Launcher> {
 
     @Override
     protected DropTarget getDefaultDropTarget(int[] dropCoordinates) {
-        mActivity.getDragLayer().mapCoordInSelfToDescendant(mActivity.getWorkspace(),
-                dropCoordinates);
+        mapCoordInDragLayerToDescendant(mActivity.getWorkspace(), dropCoordinates);
         return mActivity.getWorkspace();
     }
+
+    @Override
+    protected boolean canUseDropTargetIndex() {
+        // The workspace is scaled and translated during state transitions
+        return !mActivity.getStateManager().isInTransition();
+    }
 }
@@ -657,6 +657,27 @@ public class StatsLogManager implements ResourceBasedOverride {
         }
     }
 
+    /**
+     * Launcher specific latency events.
+     */
+    public enum LauncherLatencyEvent implements EventEnum {
+
+        @UiEvent(doc = "Time from a widget being dropped on the workspace to its first frame drawn"
+                + " with content, HOT if the content was ready when dropped.")
+        LAUNCHER_LATENCY_WIDGET_DROP_TO_FIRST_FRAME(1372);
+        // ADD MORE
+
+        private final int mId;
+
+        LauncherLatencyEvent(int id) {
+            mId = id;
+        }
+
+        public int getId() {
+            return mId;
+        }
+    }
+
     /**
      * Launcher specific ranking related events.
      */
@@ -129,12 +129,8 @@ public class AddWorkspaceItemsTask extends BaseModelUpdateTask {
                     InstallSessionHelper.INSTANCE.get(app.getContext());
             LauncherApps launcherApps = app.getContext().getSystemService(LauncherApps.class);
 
+            List<ItemInfo> itemsToAdd = new ArrayList<>();
             for (ItemInfo item : filteredItems) {
-                // Find appropriate space for the item.
-                int[] coords = mItemSpaceFinder.findSpaceForItem(app, dataModel, workspaceScreens,
-                        addedWorkspaceScreensFinal, item.spanX, item.spanY);
-                int screenId = coords[0];
-
                 ItemInfo itemInfo;
                 if (item instanceof WorkspaceItemInfo || item instanceof FolderInfo ||
                         item instanceof LauncherAppWidgetInfo) {
@@ -210,16 +206,40 @@ public class AddWorkspaceItemsTask extends BaseModelUpdateTask {
                     }
                 }
 
-                // Add the shortcut to the db
-                getModelWriter().addItemToDatabase(itemInfo,
-                        LauncherSettings.Favorites.CONTAINER_DESKTOP, screenId,
-                        coords[1], coords[2]);
+                itemsToAdd.add(itemInfo);
+            }
+
+            if (!itemsToAdd.isEmpty()) {
+                // Find space for all the items in one pass over the workspace
+                List<int[]> positions = new ArrayList<>(itemsToAdd.size());
+                mItemSpaceFinder.startBatch();
+                try {
+                    for (ItemInfo itemInfo : itemsToAdd) {
+                        positions.add(mItemSpaceFinder.findSpaceForItem(app, dataModel,
+                                workspaceScreens, addedWorkspaceScreensFinal, itemInfo.spanX,
+                                itemInfo.spanY));
+                    }
+                } finally {
+                    mItemSpaceFinder.endBatch();
+                }
 
-                // Save the WorkspaceItemInfo for binding in the workspace
-                addedItemsFinal.add(itemInfo);
+                // Add the shortcuts to the db
+                getModelWriter().addItemsToDatabase(itemsToAdd,
+                        LauncherSettings.Favorites.CONTAINER_DESKTOP, positions);
+
+                // Save the WorkspaceItemInfo for binding in the workspace. The items are written
+                // right away on the model thread, and the ones which couldn't be written are not
+                // in the model.
+                for (ItemInfo itemInfo : itemsToAdd) {
+                    if (dataModel.itemsIdMap.get(itemInfo.id) == itemInfo) {
+                        addedItemsFinal.add(itemInfo);
+                    }
+                }
 
                 // log bitmap and label
-                FileLog.d(LOG, "Adding item info to workspace: " + itemInfo);
+                for (ItemInfo itemInfo : itemsToAdd) {
+                    FileLog.d(LOG, "Adding item info to workspace: " + itemInfo);
+                }
             }
         }
 
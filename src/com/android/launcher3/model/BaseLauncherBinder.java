@@ -23,6 +23,8 @@ import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
 import android.os.Process;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.LauncherModel.CallbackTask;
@@ -48,6 +50,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Binds the results of {@link com.android.launcher3.model.LoaderTask} to the Callbacks objects.
@@ -55,7 +58,9 @@ import java.util.concurrent.Executor;
 public abstract class BaseLauncherBinder {
 
     protected static final String TAG = "LauncherBinder";
-    private static final int ITEMS_CHUNK = 6; // batch size for the workspace icons
+    // Maximum bind cost of a batch of workspace items, where an icon costs 1
+    private static final int ITEMS_BATCH_COST = 12;
+    private static final int FOLDER_BIND_COST = 3;
 
     protected final LooperExecutor mUiExecutor;
 
@@ -189,6 +194,61 @@ public abstract class BaseLauncherBinder {
         });
     }
 
+    /**
+     * Splits the workspace items into consecutive batches whose total bind cost does not exceed
+     * {@link #ITEMS_BATCH_COST}, so that cheap icons are bound in larger batches than folders.
+     * Widgets are not batched and should be bound one at a time.
+     */
+    @VisibleForTesting
+    static void forEachItemBatch(List<ItemInfo> items, Consumer<List<ItemInfo>> batchConsumer) {
+        int count = items.size();
+        int start = 0;
+        int cost = 0;
+        for (int i = 0; i < count; i++) {
+            int itemCost = items.get(i).itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER
+                    ? FOLDER_BIND_COST : 1;
+            if (i > start && cost + itemCost > ITEMS_BATCH_COST) {
+                batchConsumer.accept(items.subList(start, i));
+                start = i;
+                cost = 0;
+            }
+            cost += itemCost;
+        }
+        if (start < count) {
+            batchConsumer.accept(items.subList(start, count));
+        }
+    }
+
+    /**
+     * Returns the ids of the screens in the panel groups immediately before and after the current
+     * screens. The current screens are the visible panel group, so a group has as many screens.
+     * This matches the pages the workspace binds around the current page as the user scrolls.
+     */
+    @VisibleForTesting
+    static IntSet getAdjacentScreenIds(IntArray orderedScreenIds, IntSet currentScreenIds) {
+        IntSet result = new IntSet();
+        int count = orderedScreenIds.size();
+        int first = count;
+        int last = -1;
+        for (int i = 0; i < count; i++) {
+            if (currentScreenIds.contains(orderedScreenIds.get(i))) {
+                first = Math.min(first, i);
+                last = i;
+            }
+        }
+        if (last < 0) {
+            return result;
+        }
+        int panelCount = currentScreenIds.size();
+        for (int i = Math.max(0, first - panelCount); i < first; i++) {
+            result.add(orderedScreenIds.get(i));
+        }
+        for (int i = last + 1; i <= Math.min(count - 1, last + panelCount); i++) {
+            result.add(orderedScreenIds.get(i));
+        }
+        return result;
+    }
+
     protected void executeCallbacksTask(CallbackTask task, Executor executor) {
         executor.execute(() -> {
             if (mMyBindingId != mBgDataModel.lastBindId) {
@@ -298,8 +358,31 @@ public abstract class BaseLauncherBinder {
 
             RunnableList pendingTasks = new RunnableList();
             Executor pendingExecutor = pendingTasks::add;
-            bindWorkspaceItems(otherWorkspaceItems, pendingExecutor);
-            bindAppWidgets(otherAppWidgets, pendingExecutor);
+            if (FeatureFlags.ENABLE_LAZY_WORKSPACE_PAGES.get() && !currentScreenIds.isEmpty()) {
+                // Only create views for the pages next to the current page, the rest are handed
+                // over as model data and bound once the user scrolls towards them.
+                IntSet adjacentScreenIds =
+                        getAdjacentScreenIds(mOrderedScreenIds, currentScreenIds);
+                ArrayList<ItemInfo> deferredItems = new ArrayList<>();
+                ArrayList<ItemInfo> adjacentWorkspaceItems = new ArrayList<>();
+                ArrayList<LauncherAppWidgetInfo> adjacentAppWidgets = new ArrayList<>();
+                filterCurrentWorkspaceItems(adjacentScreenIds, otherWorkspaceItems,
+                        adjacentWorkspaceItems, deferredItems);
+                ArrayList<LauncherAppWidgetInfo> deferredWidgets = new ArrayList<>();
+                filterCurrentWorkspaceItems(adjacentScreenIds, otherAppWidgets,
+                        adjacentAppWidgets, deferredWidgets);
+                deferredItems.addAll(deferredWidgets);
+                sortWorkspaceItemsSpatially(idp, adjacentWorkspaceItems);
+
+                bindWorkspaceItems(adjacentWorkspaceItems, pendingExecutor);
+                bindAppWidgets(adjacentAppWidgets, pendingExecutor);
+                if (!deferredItems.isEmpty()) {
+                    executeCallbacksTask(c -> c.bindDeferredItems(deferredItems), pendingExecutor);
+                }
+            } else {
+                bindWorkspaceItems(otherWorkspaceItems, pendingExecutor);
+                bindAppWidgets(otherAppWidgets, pendingExecutor);
+            }
             if (TestProtocol.sDebugTracing) {
                 Log.d(TestProtocol.FLAKY_BINDING, "scheduling: finishBindingItems");
             }
@@ -323,14 +406,8 @@ public abstract class BaseLauncherBinder {
         private void bindWorkspaceItems(
                 final ArrayList<ItemInfo> workspaceItems, final Executor executor) {
             // Bind the workspace items
-            int count = workspaceItems.size();
-            for (int i = 0; i < count; i += ITEMS_CHUNK) {
-                final int start = i;
-                final int chunkSize = (i + ITEMS_CHUNK <= count) ? ITEMS_CHUNK : (count - i);
-                executeCallbacksTask(
-                        c -> c.bindItems(workspaceItems.subList(start, start + chunkSize), false),
-                        executor);
-            }
+            forEachItemBatch(workspaceItems, batch ->
+                    executeCallbacksTask(c -> c.bindItems(batch, false), executor));
         }
 
         private void bindAppWidgets(List<LauncherAppWidgetInfo> appWidgets, Executor executor) {
@@ -443,14 +520,8 @@ public abstract class BaseLauncherBinder {
 
         private void bindWorkspaceItems(final ArrayList<ItemInfo> workspaceItems) {
             // Bind the workspace items
-            int count = workspaceItems.size();
-            for (int i = 0; i < count; i += ITEMS_CHUNK) {
-                final int start = i;
-                final int chunkSize = (i + ITEMS_CHUNK <= count) ? ITEMS_CHUNK : (count - i);
-                executeCallbacksTask(
-                        c -> c.bindItems(workspaceItems.subList(start, start + chunkSize), false),
-                        mUiExecutor);
-            }
+            forEachItemBatch(workspaceItems, batch ->
+                    executeCallbacksTask(c -> c.bindItems(batch, false), mUiExecutor));
         }
 
         private void bindAppWidgets(List<LauncherAppWidgetInfo> appWidgets) {
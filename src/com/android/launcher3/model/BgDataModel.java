@@ -52,7 +52,7 @@ import com.android.launcher3.util.IntArray;
 import com.android.launcher3.util.IntSet;
 import com.android.launcher3.util.IntSparseArrayMap;
 import com.android.launcher3.util.RunnableList;
-import com.android.launcher3.widget.model.WidgetsListBaseEntry;
+import com.android.launcher3.widget.model.WidgetsIndex;
 
 import java.io.FileDescriptor;
 import java.io.PrintWriter;
@@ -464,6 +464,15 @@ public class BgDataModel {
         default void startBinding() { }
 
         default void bindItems(List<ItemInfo> shortcuts, boolean forceAnimateIcons) { }
+
+        /**
+         * Binds items on pages away from the current page. The callbacks can defer creating views
+         * for these items until their page is about to become visible.
+         */
+        default void bindDeferredItems(List<ItemInfo> items) {
+            bindItems(items, false);
+        }
+
         default void bindScreens(IntArray orderedScreenIds) { }
         default void finishBindingItems(IntSet pagesBoundFirst) { }
         default void preAddApps() { }
@@ -483,7 +492,7 @@ public class BgDataModel {
         default void bindWidgetsRestored(ArrayList<LauncherAppWidgetInfo> widgets) { }
         default void bindRestoreItemsChange(HashSet<ItemInfo> updates) { }
         default void bindWorkspaceComponentsRemoved(Predicate<ItemInfo> matcher) { }
-        default void bindAllWidgets(List<WidgetsListBaseEntry> widgets) { }
+        default void bindAllWidgets(WidgetsIndex widgets) { }
 
         default void onInitialBindComplete(IntSet boundPages, RunnableList pendingTasks) {
             pendingTasks.executeAllAndDestroy();
@@ -30,8 +30,10 @@ import android.database.sqlite.SQLiteDatabase;
 import android.graphics.Point;
 import android.util.ArrayMap;
 import android.util.Log;
+import android.util.TimingLogger;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherAppState;
@@ -91,10 +93,19 @@ public class GridSizeMigrationUtil {
 
     /** See {@link #migrateGridIfNeeded(Context, InvariantDeviceProfile)} */
     public static boolean migrateGridIfNeeded(Context context) {
+        return migrateGridIfNeeded(context, (TimingLogger) null);
+    }
+
+    /**
+     * See {@link #migrateGridIfNeeded(Context, InvariantDeviceProfile)}
+     * @param timingLogger if not null, the time spent in each migration phase is added to it
+     */
+    public static boolean migrateGridIfNeeded(Context context,
+            @Nullable TimingLogger timingLogger) {
         if (context instanceof LauncherPreviewRenderer.PreviewContext) {
             return true;
         }
-        return migrateGridIfNeeded(context, null);
+        return migrateGridIfNeeded(context, null, timingLogger);
     }
 
     /**
@@ -112,6 +123,11 @@ public class GridSizeMigrationUtil {
      * @return false if the migration failed.
      */
     public static boolean migrateGridIfNeeded(Context context, InvariantDeviceProfile idp) {
+        return migrateGridIfNeeded(context, idp, null);
+    }
+
+    private static boolean migrateGridIfNeeded(Context context, InvariantDeviceProfile idp,
+            @Nullable TimingLogger timingLogger) {
         boolean migrateForPreview = idp != null;
         if (!migrateForPreview) {
             idp = LauncherAppState.getIDP(context);
@@ -158,7 +174,7 @@ public class GridSizeMigrationUtil {
 
             Point targetSize = new Point(destDeviceState.getColumns(), destDeviceState.getRows());
             migrate(context, t.getDb(), srcReader, destReader, destDeviceState.getNumHotseat(),
-                    targetSize, srcDeviceState, destDeviceState);
+                    targetSize, srcDeviceState, destDeviceState, timingLogger);
 
             if (!migrateForPreview) {
                 dropTable(t.getDb(), LauncherSettings.Favorites.TMP_TABLE);
@@ -187,6 +203,24 @@ public class GridSizeMigrationUtil {
             final int destHotseatSize, @NonNull final Point targetSize,
             @NonNull final DeviceGridState srcDeviceState,
             @NonNull final DeviceGridState destDeviceState) {
+        return migrate(context, db, srcReader, destReader, destHotseatSize, targetSize,
+                srcDeviceState, destDeviceState, null);
+    }
+
+    /**
+     * Migrates the items from {@param srcReader} into {@param destReader}. Placement is first
+     * solved in memory for all the screens, then all the new rows are written in a single
+     * transaction.
+     *
+     * @param timingLogger if not null, the time spent in each migration phase is added to it
+     */
+    public static boolean migrate(
+            @NonNull final Context context, @NonNull final SQLiteDatabase db,
+            @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
+            final int destHotseatSize, @NonNull final Point targetSize,
+            @NonNull final DeviceGridState srcDeviceState,
+            @NonNull final DeviceGridState destDeviceState,
+            @Nullable final TimingLogger timingLogger) {
 
         final List<DbEntry> srcHotseatItems = srcReader.loadHotseatEntries();
         final List<DbEntry> srcWorkspaceItems = srcReader.loadAllWorkspaceEntries();
@@ -195,9 +229,11 @@ public class GridSizeMigrationUtil {
         final List<DbEntry> hotseatToBeAdded = new ArrayList<>(1);
         final List<DbEntry> workspaceToBeAdded = new ArrayList<>(1);
         final IntArray toBeRemoved = new IntArray();
+        addSplit(timingLogger, "gridMigration: load entries");
 
         calcDiff(srcHotseatItems, dstHotseatItems, hotseatToBeAdded, toBeRemoved);
         calcDiff(srcWorkspaceItems, dstWorkspaceItems, workspaceToBeAdded, toBeRemoved);
+        addSplit(timingLogger, "gridMigration: calcDiff");
 
         final int trgX = targetSize.x;
         final int trgY = targetSize.y;
@@ -233,9 +269,12 @@ public class GridSizeMigrationUtil {
         Collections.sort(hotseatToBeAdded);
         Collections.sort(workspaceToBeAdded);
 
+        // Entries which have been placed and need to be written to the db
+        final List<DbEntry> placedEntries = new ArrayList<>();
+
         // Migrate hotseat
-        solveHotseatPlacement(db, srcReader,
-                destReader, context, destHotseatSize, dstHotseatItems, hotseatToBeAdded);
+        solveHotseatPlacement(destHotseatSize, dstHotseatItems, hotseatToBeAdded, placedEntries);
+        addSplit(timingLogger, "gridMigration: solve hotseat");
 
         // Migrate workspace.
         // First we create a collection of the screens
@@ -255,8 +294,8 @@ public class GridSizeMigrationUtil {
             if (DEBUG) {
                 Log.d(TAG, "Migrating " + screenId);
             }
-            solveGridPlacement(db, srcReader,
-                    destReader, context, screenId, trgX, trgY, workspaceToBeAdded, false);
+            solveGridPlacement(destReader, screenId, trgX, trgY, workspaceToBeAdded, false,
+                    placedEntries);
             if (workspaceToBeAdded.isEmpty()) {
                 break;
             }
@@ -266,14 +305,24 @@ public class GridSizeMigrationUtil {
         // any of the screens, in this case we add them to new screens until all of them are placed.
         int screenId = destReader.mLastScreenId + 1;
         while (!workspaceToBeAdded.isEmpty()) {
-            solveGridPlacement(db, srcReader,
-                    destReader, context, screenId, trgX, trgY, workspaceToBeAdded, preservePages);
+            solveGridPlacement(destReader, screenId, trgX, trgY, workspaceToBeAdded,
+                    preservePages, placedEntries);
             screenId++;
         }
+        addSplit(timingLogger, "gridMigration: solve workspace");
 
+        insertEntriesInDb(db, context, placedEntries, srcReader.mTableName,
+                destReader.mTableName);
+        addSplit(timingLogger, "gridMigration: write " + placedEntries.size() + " entries");
         return true;
     }
 
+    private static void addSplit(@Nullable TimingLogger timingLogger, String label) {
+        if (timingLogger != null) {
+            timingLogger.addSplit(label);
+        }
+    }
+
     /**
      * Calculate the differences between {@code src} (denoted by A) and {@code dest}
      * (denoted by B).
@@ -283,13 +332,15 @@ public class GridSizeMigrationUtil {
     private static void calcDiff(@NonNull final List<DbEntry> src,
             @NonNull final List<DbEntry> dest, @NonNull final List<DbEntry> toBeAdded,
             @NonNull final IntArray toBeRemoved) {
+        final Set<DbEntry> srcSet = new HashSet<>(src);
+        final Set<DbEntry> destSet = new HashSet<>(dest);
         src.forEach(entry -> {
-            if (!dest.contains(entry)) {
+            if (!destSet.contains(entry)) {
                 toBeAdded.add(entry);
             }
         });
         dest.forEach(entry -> {
-            if (!src.contains(entry)) {
+            if (!srcSet.contains(entry)) {
                 toBeRemoved.add(entry.id);
                 if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
                     entry.mFolderItems.values().forEach(ids -> ids.forEach(toBeRemoved::add));
@@ -298,50 +349,86 @@ public class GridSizeMigrationUtil {
         });
     }
 
-    private static void insertEntryInDb(SQLiteDatabase db, Context context, DbEntry entry,
-            String srcTableName, String destTableName) {
-        int id = copyEntryAndUpdate(db, context, entry, srcTableName, destTableName);
+    /**
+     * Copies the rows of all the provided entries (and of their folder contents) from
+     * {@param srcTableName} into {@param destTableName}, using a single query on the source table
+     * and a single transaction for all the inserts.
+     */
+    private static void insertEntriesInDb(SQLiteDatabase db, Context context,
+            List<DbEntry> entries, String srcTableName, String destTableName) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        IntArray srcIds = new IntArray(entries.size());
+        for (DbEntry entry : entries) {
+            srcIds.add(entry.id);
+        }
 
-        if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
-            for (Set<Integer> itemIds : entry.mFolderItems.values()) {
-                for (int itemId : itemIds) {
-                    copyEntryAndUpdate(db, context, itemId, id, srcTableName, destTableName);
-                }
+        Map<Integer, ContentValues> rows = new HashMap<>(entries.size());
+        try (Cursor c = db.query(srcTableName, null,
+                Utilities.createDbSelectionQuery(LauncherSettings.Favorites._ID, srcIds),
+                null, null, null, null)) {
+            int indexId = c.getColumnIndexOrThrow(LauncherSettings.Favorites._ID);
+            while (c.moveToNext()) {
+                ContentValues values = new ContentValues();
+                DatabaseUtils.cursorRowToContentValues(c, values);
+                rows.put(c.getInt(indexId), values);
             }
         }
-    }
-
-    private static int copyEntryAndUpdate(SQLiteDatabase db, Context context,
-            DbEntry entry, String srcTableName, String destTableName) {
-        return copyEntryAndUpdate(db, context, entry, -1, -1, srcTableName, destTableName);
-    }
 
-    private static int copyEntryAndUpdate(SQLiteDatabase db, Context context,
-            int id, int folderId, String srcTableName, String destTableName) {
-        return copyEntryAndUpdate(db, context, null, id, folderId, srcTableName, destTableName);
-    }
+        // Folder contents only need their container updated
+        IntArray folderItemIds = new IntArray();
+        Map<Integer, ContentValues> folderItemRows = new HashMap<>();
+        for (DbEntry entry : entries) {
+            if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
+                entry.mFolderItems.values().forEach(ids -> ids.forEach(folderItemIds::add));
+            }
+        }
+        if (!folderItemIds.isEmpty()) {
+            try (Cursor c = db.query(srcTableName, null,
+                    Utilities.createDbSelectionQuery(LauncherSettings.Favorites._ID, folderItemIds),
+                    null, null, null, null)) {
+                int indexId = c.getColumnIndexOrThrow(LauncherSettings.Favorites._ID);
+                while (c.moveToNext()) {
+                    ContentValues values = new ContentValues();
+                    DatabaseUtils.cursorRowToContentValues(c, values);
+                    folderItemRows.put(c.getInt(indexId), values);
+                }
+            }
+        }
 
-    private static int copyEntryAndUpdate(SQLiteDatabase db, Context context,
-            DbEntry entry, int id, int folderId, String srcTableName, String destTableName) {
-        int newId = -1;
-        Cursor c = db.query(srcTableName, null,
-                LauncherSettings.Favorites._ID + " = '" + (entry != null ? entry.id : id) + "'",
-                null, null, null, null);
-        while (c.moveToNext()) {
-            ContentValues values = new ContentValues();
-            DatabaseUtils.cursorRowToContentValues(c, values);
-            if (entry != null) {
+        try (SQLiteTransaction t = new SQLiteTransaction(db)) {
+            for (DbEntry entry : entries) {
+                ContentValues values = rows.get(entry.id);
+                if (values == null) {
+                    continue;
+                }
                 entry.updateContentValues(values);
-            } else {
-                values.put(LauncherSettings.Favorites.CONTAINER, folderId);
+                int newId = insertWithNewId(db, context, values, destTableName);
+
+                if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
+                    for (Set<Integer> itemIds : entry.mFolderItems.values()) {
+                        for (int itemId : itemIds) {
+                            ContentValues itemValues = folderItemRows.get(itemId);
+                            if (itemValues != null) {
+                                itemValues.put(LauncherSettings.Favorites.CONTAINER, newId);
+                                insertWithNewId(db, context, itemValues, destTableName);
+                            }
+                        }
+                    }
+                }
             }
-            newId = LauncherSettings.Settings.call(context.getContentResolver(),
-                    LauncherSettings.Settings.METHOD_NEW_ITEM_ID).getInt(
-                    LauncherSettings.Settings.EXTRA_VALUE);
-            values.put(LauncherSettings.Favorites._ID, newId);
-            db.insert(destTableName, null, values);
+            t.commit();
         }
-        c.close();
+    }
+
+    private static int insertWithNewId(SQLiteDatabase db, Context context, ContentValues values,
+            String destTableName) {
+        int newId = LauncherSettings.Settings.call(context.getContentResolver(),
+                LauncherSettings.Settings.METHOD_NEW_ITEM_ID).getInt(
+                LauncherSettings.Settings.EXTRA_VALUE);
+        values.put(LauncherSettings.Favorites._ID, newId);
+        db.insert(destTableName, null, values);
         return newId;
     }
 
@@ -367,10 +454,10 @@ public class GridSizeMigrationUtil {
         return validPackages;
     }
 
-    private static void solveGridPlacement(@NonNull final SQLiteDatabase db,
-            @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
-            @NonNull final Context context, final int screenId, final int trgX, final int trgY,
-            @NonNull final List<DbEntry> sortedItemsToPlace, final boolean matchingScreenIdOnly) {
+    private static void solveGridPlacement(@NonNull final DbReader destReader,
+            final int screenId, final int trgX, final int trgY,
+            @NonNull final List<DbEntry> sortedItemsToPlace, final boolean matchingScreenIdOnly,
+            @NonNull final List<DbEntry> placedEntries) {
         final GridOccupancy occupied = new GridOccupancy(trgX, trgY);
         final Point trg = new Point(trgX, trgY);
         final Point next = new Point(0, screenId == 0 && FeatureFlags.QSB_ON_FIRST_SCREEN
@@ -391,7 +478,7 @@ public class GridSizeMigrationUtil {
                 continue;
             }
             if (findPlacementForEntry(entry, next, trg, occupied, screenId)) {
-                insertEntryInDb(db, context, entry, srcReader.mTableName, destReader.mTableName);
+                placedEntries.add(entry);
                 iterator.remove();
             }
         }
@@ -428,11 +515,10 @@ public class GridSizeMigrationUtil {
         return false;
     }
 
-    private static void solveHotseatPlacement(@NonNull final SQLiteDatabase db,
-            @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
-            @NonNull final Context context, final int hotseatSize,
+    private static void solveHotseatPlacement(final int hotseatSize,
             @NonNull final  List<DbEntry> placedHotseatItems,
-            @NonNull final List<DbEntry> itemsToPlace) {
+            @NonNull final List<DbEntry> itemsToPlace,
+            @NonNull final List<DbEntry> placedEntries) {
 
         final boolean[] occupied = new boolean[hotseatSize];
         for (DbEntry entry : placedHotseatItems) {
@@ -447,7 +533,7 @@ public class GridSizeMigrationUtil {
                 // to something other than -1.
                 entry.cellX = i;
                 entry.cellY = 0;
-                insertEntryInDb(db, context, entry, srcReader.mTableName, destReader.mTableName);
+                placedEntries.add(entry);
                 occupied[entry.screenId] = true;
             }
         }
@@ -687,6 +773,9 @@ public class GridSizeMigrationUtil {
         private String mProvider;
         private Map<String, Set<Integer>> mFolderItems = new HashMap<>();
 
+        // Cached value of getEntryMigrationId(), which parses intents and is used in equals()
+        private String mMigrationId;
+
         /** Comparator according to the reading order */
         @Override
         public int compareTo(DbEntry another) {
@@ -725,6 +814,13 @@ public class GridSizeMigrationUtil {
          * migration id even thought they have different database ids.
          */
         public String getEntryMigrationId() {
+            if (mMigrationId == null) {
+                mMigrationId = calculateEntryMigrationId();
+            }
+            return mMigrationId;
+        }
+
+        private String calculateEntryMigrationId() {
             switch (itemType) {
                 case LauncherSettings.Favorites.ITEM_TYPE_FOLDER:
                     return getFolderMigrationId();
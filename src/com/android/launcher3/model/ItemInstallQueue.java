@@ -51,12 +51,17 @@ import com.android.launcher3.shortcuts.ShortcutKey;
 import com.android.launcher3.shortcuts.ShortcutRequest;
 import com.android.launcher3.testing.shared.TestProtocol;
 import com.android.launcher3.util.MainThreadInitializedObject;
+import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.PersistedItemArray;
 import com.android.launcher3.util.Preconditions;
 import com.android.launcher3.widget.LauncherAppWidgetProviderInfo;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -76,6 +81,11 @@ public class ItemInstallQueue {
     // The set of shortcuts that are pending install
     private static final String APPS_PENDING_INSTALL = "apps_to_install";
 
+    // Number of items added to the workspace by each model task when flushing the queue
+    private static final int FLUSH_CHUNK_SIZE = 32;
+    // Minimum number of journal records before the queue is rewritten
+    private static final int MIN_JOURNAL_SIZE_TO_COMPACT = 16;
+
     public static final int NEW_SHORTCUT_BOUNCE_DURATION = 450;
     public static final int NEW_SHORTCUT_STAGGER_DELAY = 85;
 
@@ -91,7 +101,9 @@ public class ItemInstallQueue {
     private int mInstallQueueDisabledFlags = 0;
 
     // Only accessed on worker thread
-    private List<PendingInstallShortcutInfo> mItems;
+    private LinkedHashSet<PendingInstallShortcutInfo> mItems;
+    private final HashMap<PackageUserKey, ArrayList<PendingInstallShortcutInfo>> mItemsByPackage =
+            new HashMap<>();
 
     private ItemInstallQueue(Context context) {
         mContext = context;
@@ -101,16 +113,47 @@ public class ItemInstallQueue {
     private void ensureQueueLoaded() {
         Preconditions.assertWorkerThread();
         if (mItems == null) {
-            mItems = mStorage.read(mContext, this::decode);
+            mItems = new LinkedHashSet<>();
+            for (PendingInstallShortcutInfo info : mStorage.read(mContext, this::decode)) {
+                addItem(info);
+            }
         }
     }
 
     @WorkerThread
     private void addToQueue(PendingInstallShortcutInfo info) {
         ensureQueueLoaded();
-        if (!mItems.contains(info)) {
-            mItems.add(info);
-            mStorage.write(mContext, mItems);
+        if (addItem(info)) {
+            mStorage.append(mContext, info);
+            maybeCompactStorage();
+        }
+    }
+
+    private boolean addItem(PendingInstallShortcutInfo info) {
+        if (!mItems.add(info)) {
+            return false;
+        }
+        mItemsByPackage.computeIfAbsent(
+                new PackageUserKey(getIntentPackage(info.intent), info.user),
+                k -> new ArrayList<>()).add(info);
+        return true;
+    }
+
+    private void removeItem(PendingInstallShortcutInfo info) {
+        mItems.remove(info);
+        PackageUserKey key = new PackageUserKey(getIntentPackage(info.intent), info.user);
+        ArrayList<PendingInstallShortcutInfo> packageItems = mItemsByPackage.get(key);
+        if (packageItems != null && packageItems.remove(info) && packageItems.isEmpty()) {
+            mItemsByPackage.remove(key);
+        }
+    }
+
+    /**
+     * Rewrites the queue once its journal is longer than the queue itself
+     */
+    private void maybeCompactStorage() {
+        if (mStorage.getJournalSize() > Math.max(MIN_JOURNAL_SIZE_TO_COMPACT, mItems.size())) {
+            mStorage.write(mContext, new ArrayList<>(mItems));
         }
     }
 
@@ -134,7 +177,12 @@ public class ItemInstallQueue {
             return;
         }
 
-        List<Pair<ItemInfo, Object>> installQueue = mItems.stream()
+        // Add the items in chunks, each added and bound by a separate model task, so that other
+        // model tasks can run in between when many items are queued
+        List<PendingInstallShortcutInfo> chunk = mItems.stream()
+                .limit(FLUSH_CHUNK_SIZE)
+                .collect(Collectors.toList());
+        List<Pair<ItemInfo, Object>> installQueue = chunk.stream()
                 .map(info -> info.getItemInfo(mContext))
                 .collect(Collectors.toList());
 
@@ -147,8 +195,16 @@ public class ItemInstallQueue {
             // add log
             launcher.getModel().addAndBindAddedWorkspaceItems(installQueue);
         }
-        mItems.clear();
-        mStorage.getFile(mContext).delete();
+        for (PendingInstallShortcutInfo info : chunk) {
+            removeItem(info);
+            mStorage.appendRemoval(mContext, info);
+        }
+        if (mItems.isEmpty()) {
+            mStorage.delete(mContext);
+        } else {
+            maybeCompactStorage();
+            flushInstallQueue();
+        }
     }
 
     /**
@@ -160,9 +216,21 @@ public class ItemInstallQueue {
             return;
         }
         ensureQueueLoaded();
-        if (mItems.removeIf(item ->
-                item.user.equals(user) && packageNames.contains(getIntentPackage(item.intent)))) {
-            mStorage.write(mContext, mItems);
+        boolean removed = false;
+        for (String packageName : packageNames) {
+            ArrayList<PendingInstallShortcutInfo> packageItems =
+                    mItemsByPackage.remove(new PackageUserKey(packageName, user));
+            if (packageItems == null) {
+                continue;
+            }
+            for (PendingInstallShortcutInfo item : packageItems) {
+                mItems.remove(item);
+                mStorage.appendRemoval(mContext, item);
+            }
+            removed = true;
+        }
+        if (removed) {
+            maybeCompactStorage();
         }
     }
 
@@ -254,6 +322,9 @@ public class ItemInstallQueue {
         @Nullable ShortcutInfo shortcutInfo;
         @Nullable AppWidgetProviderInfo providerInfo;
 
+        // Lazily initialized, as the intent is not modified after construction
+        @Nullable private String mIntentUri;
+
         /**
          * Initializes a PendingInstallShortcutInfo to represent a pending launcher target.
          */
@@ -293,6 +364,13 @@ public class ItemInstallQueue {
             return intent;
         }
 
+        private String getIntentUri() {
+            if (mIntentUri == null) {
+                mIntentUri = intent.toUri(0);
+            }
+            return mIntentUri;
+        }
+
         public Pair<ItemInfo, Object> getItemInfo(Context context) {
             switch (itemType) {
                 case ITEM_TYPE_APPLICATION: {
@@ -351,7 +429,7 @@ public class ItemInstallQueue {
 
                 boolean userMatches = user.equals(other.user);
                 boolean itemTypeMatches = itemType == other.itemType;
-                boolean intentMatches = intent.toUri(0).equals(other.intent.toUri(0));
+                boolean intentMatches = getIntentUri().equals(other.getIntentUri());
                 boolean shortcutInfoMatches = shortcutInfo == null
                         ? other.shortcutInfo == null
                         : other.shortcutInfo != null
@@ -370,6 +448,11 @@ public class ItemInstallQueue {
             }
             return false;
         }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(user, itemType, getIntentUri());
+        }
     }
 
     private static String getIntentPackage(Intent intent) {
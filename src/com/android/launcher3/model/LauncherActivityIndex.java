@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.LauncherApps;
+import android.os.UserHandle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.PackageManagerHelper;
+import com.android.launcher3.util.PackageUserKey;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An index of the launcher activities of each user, fetched with a single call per user, which
+ * lets the loader resolve workspace items without a binder call per item.
+ *
+ * A launcher activity in the index means that both the activity and its package are enabled.
+ * Lookups which miss the index fall back to the corresponding {@link LauncherApps} call, as the
+ * target may be enabled without being a launcher activity.
+ */
+@WorkerThread
+public class LauncherActivityIndex {
+
+    private final LauncherApps mLauncherApps;
+    private final PackageManagerHelper mPmHelper;
+
+    private final HashMap<UserHandle, List<LauncherActivityInfo>> mActivityLists =
+            new HashMap<>();
+    private final HashMap<ComponentKey, LauncherActivityInfo> mActivities = new HashMap<>();
+    // First launcher activity of each package, as used for its launch intent
+    private final HashMap<PackageUserKey, LauncherActivityInfo> mPackages = new HashMap<>();
+
+    private int mFallbackCount;
+
+    public LauncherActivityIndex(LauncherApps launcherApps, PackageManagerHelper pmHelper) {
+        mLauncherApps = launcherApps;
+        mPmHelper = pmHelper;
+    }
+
+    /**
+     * Fetches and indexes the launcher activities of the user
+     */
+    public void addUser(UserHandle user) {
+        List<LauncherActivityInfo> activities = mLauncherApps.getActivityList(null, user);
+        if (activities == null) {
+            return;
+        }
+        mActivityLists.put(user, activities);
+        for (LauncherActivityInfo info : activities) {
+            ComponentName cn = info.getComponentName();
+            mActivities.put(new ComponentKey(cn, user), info);
+            mPackages.putIfAbsent(new PackageUserKey(cn.getPackageName(), user), info);
+        }
+    }
+
+    /**
+     * Returns the launcher activities fetched for the user, or null if the user was not added
+     */
+    @Nullable
+    public List<LauncherActivityInfo> getActivityList(UserHandle user) {
+        return mActivityLists.get(user);
+    }
+
+    /**
+     * @see LauncherApps#isPackageEnabled(String, UserHandle)
+     */
+    public boolean isPackageEnabled(@NonNull String packageName, UserHandle user) {
+        if (mPackages.containsKey(new PackageUserKey(packageName, user))) {
+            return true;
+        }
+        mFallbackCount++;
+        return mLauncherApps.isPackageEnabled(packageName, user);
+    }
+
+    /**
+     * @see LauncherApps#isActivityEnabled(ComponentName, UserHandle)
+     */
+    public boolean isActivityEnabled(@NonNull ComponentName cn, UserHandle user) {
+        if (mActivities.containsKey(new ComponentKey(cn, user))) {
+            return true;
+        }
+        mFallbackCount++;
+        return mLauncherApps.isActivityEnabled(cn, user);
+    }
+
+    /**
+     * Returns the launcher activity for the component, the same as resolving its launch intent
+     * with {@link LauncherApps#resolveActivity(Intent, UserHandle)}.
+     */
+    @Nullable
+    public LauncherActivityInfo resolveActivity(@NonNull Intent launchIntent, UserHandle user) {
+        LauncherActivityInfo info = launchIntent.getComponent() == null ? null
+                : mActivities.get(new ComponentKey(launchIntent.getComponent(), user));
+        if (info != null) {
+            return info;
+        }
+        mFallbackCount++;
+        return mLauncherApps.resolveActivity(launchIntent, user);
+    }
+
+    /**
+     * @see PackageManagerHelper#getAppLaunchIntent(String, UserHandle)
+     */
+    @Nullable
+    public Intent getAppLaunchIntent(@NonNull String packageName, @NonNull UserHandle user) {
+        LauncherActivityInfo info = mPackages.get(new PackageUserKey(packageName, user));
+        if (info != null) {
+            return AppInfo.makeLaunchIntent(info);
+        }
+        mFallbackCount++;
+        return mPmHelper.getAppLaunchIntent(packageName, user);
+    }
+
+    /**
+     * Returns the number of lookups which missed the index and made a binder call
+     */
+    public int getFallbackCount() {
+        return mFallbackCount;
+    }
+}
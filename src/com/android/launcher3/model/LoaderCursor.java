@@ -26,6 +26,7 @@ import android.content.pm.PackageManager;
 import android.database.Cursor;
 import android.database.CursorWrapper;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.os.UserHandle;
 import android.provider.BaseColumns;
 import android.text.TextUtils;
@@ -47,6 +48,7 @@ import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.IconRequestInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.provider.IntentColumns;
 import com.android.launcher3.shortcuts.ShortcutKey;
 import com.android.launcher3.util.ContentWriter;
 import com.android.launcher3.util.GridOccupancy;
@@ -55,6 +57,7 @@ import com.android.launcher3.util.IntSparseArrayMap;
 
 import java.net.URISyntaxException;
 import java.security.InvalidParameterException;
+import java.util.Locale;
 
 /**
  * Extension of {@link Cursor} with utility methods for workspace loading.
@@ -98,8 +101,23 @@ public class LoaderCursor extends CursorWrapper {
     private final int mOptionsIndex;
     private final int mAppWidgetSourceIndex;
 
+    // Normalized intent columns, which are missing from cursors of other projections
+    private final int mIntentActionIndex;
+    private final int mIntentPackageIndex;
+    private final int mIntentComponentIndex;
+    private final int mIntentCategoryIndex;
+    private final int mIntentFlagsIndex;
+    private final int mIntentSourceIndex;
+
+    private int mIntentsFromColumnsCount;
+    private long mIntentsFromColumnsNanos;
+    private int mIntentsParsedCount;
+    private long mIntentsParsedNanos;
+
     @Nullable
     private LauncherActivityInfo mActivityInfo;
+    @Nullable
+    private LauncherActivityIndex mActivityIndex;
 
     // Properties loaded per iteration
     public long serialNumber;
@@ -143,6 +161,20 @@ public class LoaderCursor extends CursorWrapper {
         mRankIndex = getColumnIndexOrThrow(Favorites.RANK);
         mOptionsIndex = getColumnIndexOrThrow(Favorites.OPTIONS);
         mAppWidgetSourceIndex = getColumnIndexOrThrow(Favorites.APPWIDGET_SOURCE);
+
+        mIntentActionIndex = getColumnIndex(Favorites.INTENT_ACTION);
+        mIntentPackageIndex = getColumnIndex(Favorites.INTENT_PACKAGE);
+        mIntentComponentIndex = getColumnIndex(Favorites.INTENT_COMPONENT);
+        mIntentCategoryIndex = getColumnIndex(Favorites.INTENT_CATEGORY);
+        mIntentFlagsIndex = getColumnIndex(Favorites.INTENT_FLAGS);
+        mIntentSourceIndex = getColumnIndex(Favorites.INTENT_SOURCE);
+    }
+
+    /**
+     * Sets the index used to resolve app targets, instead of querying {@link LauncherApps}
+     */
+    public void setActivityIndex(@Nullable LauncherActivityIndex activityIndex) {
+        mActivityIndex = activityIndex;
     }
 
     @Override
@@ -164,15 +196,40 @@ public class LoaderCursor extends CursorWrapper {
 
     public Intent parseIntent() {
         String intentDescription = getString(mIntentIndex);
+        if (TextUtils.isEmpty(intentDescription)) {
+            return null;
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        if (mIntentSourceIndex >= 0
+                && intentDescription.equals(getString(mIntentSourceIndex))) {
+            Intent intent = IntentColumns.buildIntent(getString(mIntentActionIndex),
+                    getString(mIntentPackageIndex), getString(mIntentComponentIndex),
+                    getString(mIntentCategoryIndex), getInt(mIntentFlagsIndex));
+            mIntentsFromColumnsCount++;
+            mIntentsFromColumnsNanos += SystemClock.elapsedRealtimeNanos() - start;
+            return intent;
+        }
         try {
-            return TextUtils.isEmpty(intentDescription) ?
-                    null : Intent.parseUri(intentDescription, 0);
+            Intent intent = Intent.parseUri(intentDescription, 0);
+            mIntentsParsedCount++;
+            mIntentsParsedNanos += SystemClock.elapsedRealtimeNanos() - start;
+            return intent;
         } catch (URISyntaxException e) {
             Log.e(TAG, "Error parsing Intent");
             return null;
         }
     }
 
+    /**
+     * Returns the number of intents built from the intent columns and the number of intents
+     * parsed from their string by this cursor, with the time spent on each, as a log string
+     */
+    public String getIntentStats() {
+        return String.format(Locale.ENGLISH, "%d built from columns in %.2fms, %d parsed in %.2fms",
+                mIntentsFromColumnsCount, mIntentsFromColumnsNanos / 1e6,
+                mIntentsParsedCount, mIntentsParsedNanos / 1e6);
+    }
+
     @VisibleForTesting
     public WorkspaceItemInfo loadSimpleWorkspaceItem() {
         final WorkspaceItemInfo info = new WorkspaceItemInfo();
@@ -344,8 +401,9 @@ public class LoaderCursor extends CursorWrapper {
         Intent newIntent = new Intent(Intent.ACTION_MAIN, null);
         newIntent.addCategory(Intent.CATEGORY_LAUNCHER);
         newIntent.setComponent(componentName);
-        mActivityInfo = mContext.getSystemService(LauncherApps.class)
-                .resolveActivity(newIntent, user);
+        mActivityInfo = mActivityIndex != null
+                ? mActivityIndex.resolveActivity(newIntent, user)
+                : mContext.getSystemService(LauncherApps.class).resolveActivity(newIntent, user);
         if ((mActivityInfo == null) && !allowMissingTarget) {
             Log.d(TAG, "Missing activity found in getShortcutInfo: " + componentName);
             return null;
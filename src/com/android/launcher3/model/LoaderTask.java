@@ -138,6 +138,10 @@ public class LoaderTask implements Runnable {
 
     private final UserManagerState mUserManagerState = new UserManagerState();
 
+    // Launcher activities fetched while loading the workspace, reused when loading all apps
+    @Nullable
+    private LauncherActivityIndex mActivityIndex;
+
     protected final Map<ComponentKey, AppWidgetProviderInfo> mWidgetProvidersMap = new ArrayMap<>();
 
     private boolean mStopped;
@@ -206,7 +210,7 @@ public class LoaderTask implements Runnable {
             List<ShortcutInfo> allShortcuts = new ArrayList<>();
             Trace.beginSection("LoadWorkspace");
             try {
-                loadWorkspace(allShortcuts, memoryLogger);
+                loadWorkspace(allShortcuts, memoryLogger, timingLogger);
             } finally {
                 Trace.endSection();
             }
@@ -290,7 +294,7 @@ public class LoaderTask implements Runnable {
             // fourth step
             List<ComponentWithLabelAndIcon> allWidgetsList =
                     mBgDataModel.widgetsModel.update(mApp, null);
-            logASplit(timingLogger, "load widgets");
+            logASplit(timingLogger, "load widget providers");
 
             verifyNotStopped();
             mLauncherBinder.bindWidgets();
@@ -330,21 +334,23 @@ public class LoaderTask implements Runnable {
     }
 
     private void loadWorkspace(
-            List<ShortcutInfo> allDeepShortcuts, LoaderMemoryLogger memoryLogger) {
+            List<ShortcutInfo> allDeepShortcuts, LoaderMemoryLogger memoryLogger,
+            TimingLogger timingLogger) {
         loadWorkspace(allDeepShortcuts, Favorites.CONTENT_URI,
-                null /* selection */, memoryLogger);
+                null /* selection */, memoryLogger, timingLogger);
     }
 
     protected void loadWorkspace(
             List<ShortcutInfo> allDeepShortcuts, Uri contentUri, String selection) {
-        loadWorkspace(allDeepShortcuts, contentUri, selection, null);
+        loadWorkspace(allDeepShortcuts, contentUri, selection, null, null);
     }
 
     protected void loadWorkspace(
             List<ShortcutInfo> allDeepShortcuts,
             Uri contentUri,
             String selection,
-            @Nullable LoaderMemoryLogger memoryLogger) {
+            @Nullable LoaderMemoryLogger memoryLogger,
+            @Nullable TimingLogger timingLogger) {
         final Context context = mApp.getContext();
         final ContentResolver contentResolver = context.getContentResolver();
         final PackageManagerHelper pmHelper = new PackageManagerHelper(context);
@@ -353,7 +359,7 @@ public class LoaderTask implements Runnable {
         final WidgetManagerHelper widgetHelper = new WidgetManagerHelper(context);
 
         boolean clearDb = false;
-        if (!GridSizeMigrationUtil.migrateGridIfNeeded(context)) {
+        if (!GridSizeMigrationUtil.migrateGridIfNeeded(context, timingLogger)) {
             // Migration failed. Clear workspace.
             clearDb = true;
         }
@@ -388,7 +394,13 @@ public class LoaderTask implements Runnable {
 
                 mUserManagerState.init(mUserCache, mUserManager);
 
+                // Resolve the items against the launcher activities of each user, fetched in
+                // one call per user, instead of making binder calls for every item.
+                mActivityIndex = new LauncherActivityIndex(mLauncherApps, pmHelper);
+                c.setActivityIndex(mActivityIndex);
+
                 for (UserHandle user : mUserCache.getUserProfiles()) {
+                    mActivityIndex.addUser(user);
                     long serialNo = mUserCache.getSerialNumberForUser(user);
                     boolean userUnlocked = mUserManager.isUserUnlocked(user);
 
@@ -419,6 +431,9 @@ public class LoaderTask implements Runnable {
                             iconRequestInfos, unlockedUsers, isSafeMode, allDeepShortcuts);
                 }
                 maybeLoadWorkspaceIconsInBulk(iconRequestInfos);
+                Log.d(TAG, "loadWorkspace: " + mActivityIndex.getFallbackCount()
+                        + " items not resolved from the activity index");
+                Log.d(TAG, "loadWorkspace: intents " + c.getIntentStats());
             } finally {
                 IOUtils.closeSilently(c);
             }
@@ -513,7 +528,7 @@ public class LoaderTask implements Runnable {
                     // If there is no target package, it's an implicit intent
                     // (legacy shortcut) which is always valid
                     boolean validTarget = TextUtils.isEmpty(targetPkg)
-                            || mLauncherApps.isPackageEnabled(targetPkg, c.user);
+                            || mActivityIndex.isPackageEnabled(targetPkg, c.user);
 
                     // If it's a deep shortcut, we'll use pinned shortcuts to restore it
                     if (cn != null && validTarget && c.itemType
@@ -521,12 +536,12 @@ public class LoaderTask implements Runnable {
                         // If the apk is present and the shortcut points to a specific component.
 
                         // If the component is already present
-                        if (mLauncherApps.isActivityEnabled(cn, c.user)) {
+                        if (mActivityIndex.isActivityEnabled(cn, c.user)) {
                             // no special handling necessary for this item
                             c.markRestored();
                         } else {
                             // Gracefully try to find a fallback activity.
-                            intent = pmHelper.getAppLaunchIntent(targetPkg, c.user);
+                            intent = mActivityIndex.getAppLaunchIntent(targetPkg, c.user);
                             if (intent != null) {
                                 c.restoreFlag = 0;
                                 c.updater().put(
@@ -944,9 +959,17 @@ public class LoaderTask implements Runnable {
         mBgAllAppsList.clear();
 
         List<IconRequestInfo<AppInfo>> iconRequestInfos = new ArrayList<>();
+        // The activities fetched while loading the workspace are still up to date, as package
+        // changes are only processed once the loader is done.
+        LauncherActivityIndex activityIndex = mActivityIndex;
+        mActivityIndex = null;
         for (UserHandle user : profiles) {
             // Query for the set of apps
-            final List<LauncherActivityInfo> apps = mLauncherApps.getActivityList(null, user);
+            List<LauncherActivityInfo> apps =
+                    activityIndex == null ? null : activityIndex.getActivityList(user);
+            if (apps == null) {
+                apps = mLauncherApps.getActivityList(null, user);
+            }
             // Fail if we don't have any apps
             // TODO: Fix this. Only fail for the current user.
             if (apps == null || apps.isEmpty()) {
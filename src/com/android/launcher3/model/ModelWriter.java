@@ -277,6 +277,66 @@ public class ModelWriter {
         });
     }
 
+    /**
+     * Adds the items to the DB in a single transaction. If the transaction fails, the items are
+     * added one by one, and the items which can't be added are left out of the model.
+     * @param positions the {screenId, cellX, cellY} of each item
+     */
+    public void addItemsToDatabase(final List<ItemInfo> items, int container,
+            List<int[]> positions) {
+        final ContentResolver cr = mContext.getContentResolver();
+        int[] ids = Settings.call(cr, Settings.METHOD_NEW_ITEM_IDS,
+                Integer.toString(items.size())).getIntArray(Settings.EXTRA_VALUE);
+        for (int i = 0; i < items.size(); i++) {
+            ItemInfo item = items.get(i);
+            int[] position = positions.get(i);
+            updateItemInfoProps(item, container, position[0], position[1], position[2]);
+            item.id = ids[i];
+        }
+        notifyOtherCallbacks(c -> c.bindItems(items, false));
+
+        ModelVerifier verifier = new ModelVerifier();
+        final StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        MODEL_EXECUTOR.execute(() -> {
+            // Write the items on background thread, as some properties might have been updated in
+            // the background.
+            ContentValues[] values = new ContentValues[items.size()];
+            for (int i = 0; i < values.length; i++) {
+                ItemInfo item = items.get(i);
+                final ContentWriter writer = new ContentWriter(mContext);
+                item.onAddToDatabase(writer);
+                writer.put(Favorites._ID, item.id);
+                values[i] = writer.getValues(mContext);
+            }
+            List<ItemInfo> addedItems = items;
+            if (cr.bulkInsert(Favorites.CONTENT_URI, values) != values.length) {
+                // The transaction was rolled back, so add the items which can be added by
+                // themselves
+                addedItems = new ArrayList<>(items.size());
+                List<ItemInfo> failedItems = new ArrayList<>();
+                for (int i = 0; i < values.length; i++) {
+                    if (cr.insert(Favorites.CONTENT_URI, values[i]) != null) {
+                        addedItems.add(items.get(i));
+                    } else {
+                        failedItems.add(items.get(i));
+                    }
+                }
+                if (!failedItems.isEmpty()) {
+                    FileLog.e(TAG, "Unable to add items to the db: " + failedItems);
+                    notifyDelete(failedItems);
+                }
+            }
+
+            synchronized (mBgDataModel) {
+                for (ItemInfo item : addedItems) {
+                    checkItemInfoLocked(item.id, item, stackTrace);
+                    mBgDataModel.addItem(mContext, item, true);
+                }
+                verifier.verifyModel();
+            }
+        });
+    }
+
     /**
      * Removes the specified item from the database
      */
@@ -17,7 +17,7 @@ package com.android.launcher3.model;
 
 import static com.android.launcher3.WorkspaceLayoutManager.FIRST_SCREEN_ID;
 
-import android.util.LongSparseArray;
+import androidx.annotation.Nullable;
 
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherAppState;
@@ -27,14 +27,37 @@ import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.util.GridOccupancy;
 import com.android.launcher3.util.IntArray;
 import com.android.launcher3.util.IntSet;
-
-import java.util.ArrayList;
+import com.android.launcher3.util.IntSparseArrayMap;
 
 /**
  * Utility class to help find space for new workspace items
  */
 public class WorkspaceItemSpaceFinder {
 
+    private boolean mIsInBatch;
+    // Occupancy of each screen while placing a batch of items, computed for its first item
+    @Nullable
+    private IntSparseArrayMap<GridOccupancy> mBatchOccupancy;
+
+    /**
+     * Starts placing a batch of items. Until {@link #endBatch()}, the screen occupancy is
+     * computed once and the space found for each item is marked as occupied, so every item found
+     * a space in the batch must be added to the workspace. The model must not change otherwise
+     * during the batch.
+     */
+    public void startBatch() {
+        mIsInBatch = true;
+        mBatchOccupancy = null;
+    }
+
+    /**
+     * Ends the batch started by {@link #startBatch()}
+     */
+    public void endBatch() {
+        mIsInBatch = false;
+        mBatchOccupancy = null;
+    }
+
     /**
      * Find a position on the screen for the given size or adds a new screen.
      *
@@ -42,19 +65,11 @@ public class WorkspaceItemSpaceFinder {
      */
     public int[] findSpaceForItem(LauncherAppState app, BgDataModel dataModel,
             IntArray workspaceScreens, IntArray addedWorkspaceScreensFinal, int spanX, int spanY) {
-        LongSparseArray<ArrayList<ItemInfo>> screenItems = new LongSparseArray<>();
-
-        // Use sBgItemsIdMap as all the items are already loaded.
-        synchronized (dataModel) {
-            for (ItemInfo info : dataModel.itemsIdMap) {
-                if (info.container == LauncherSettings.Favorites.CONTAINER_DESKTOP) {
-                    ArrayList<ItemInfo> items = screenItems.get(info.screenId);
-                    if (items == null) {
-                        items = new ArrayList<>();
-                        screenItems.put(info.screenId, items);
-                    }
-                    items.add(info);
-                }
+        IntSparseArrayMap<GridOccupancy> screenOccupancy = mBatchOccupancy;
+        if (screenOccupancy == null) {
+            screenOccupancy = getScreenOccupancy(app, dataModel);
+            if (mIsInBatch) {
+                mBatchOccupancy = screenOccupancy;
             }
         }
 
@@ -70,10 +85,14 @@ public class WorkspaceItemSpaceFinder {
             screensToExclude.add(FIRST_SCREEN_ID);
         }
 
+        GridOccupancy occupancy = null;
         for (int screen = 0; screen < screenCount; screen++) {
             screenId = workspaceScreens.get(screen);
-            if (!screensToExclude.contains(screenId) && findNextAvailableIconSpaceInScreen(
-                    app, screenItems.get(screenId), coordinates, spanX, spanY)) {
+            if (screensToExclude.contains(screenId)) {
+                continue;
+            }
+            occupancy = getScreenOccupancy(app, screenOccupancy, screenId);
+            if (occupancy.findVacantCell(coordinates, spanX, spanY)) {
                 // We found a space for it
                 found = true;
                 break;
@@ -91,25 +110,41 @@ public class WorkspaceItemSpaceFinder {
             addedWorkspaceScreensFinal.add(screenId);
 
             // If we still can't find an empty space, then God help us all!!!
-            if (!findNextAvailableIconSpaceInScreen(
-                    app, screenItems.get(screenId), coordinates, spanX, spanY)) {
+            occupancy = getScreenOccupancy(app, screenOccupancy, screenId);
+            if (!occupancy.findVacantCell(coordinates, spanX, spanY)) {
                 throw new RuntimeException("Can't find space to add the item");
             }
         }
+        // The next items of the batch are placed around this one
+        occupancy.markCells(coordinates[0], coordinates[1], spanX, spanY, true);
         return new int[]{screenId, coordinates[0], coordinates[1]};
     }
 
-    private boolean findNextAvailableIconSpaceInScreen(
-            LauncherAppState app, ArrayList<ItemInfo> occupiedPos,
-            int[] xy, int spanX, int spanY) {
-        InvariantDeviceProfile profile = app.getInvariantDeviceProfile();
-
-        GridOccupancy occupied = new GridOccupancy(profile.numColumns, profile.numRows);
-        if (occupiedPos != null) {
-            for (ItemInfo r : occupiedPos) {
-                occupied.markCells(r, true);
+    /**
+     * Returns the occupancy of each screen by the desktop items
+     */
+    private IntSparseArrayMap<GridOccupancy> getScreenOccupancy(LauncherAppState app,
+            BgDataModel dataModel) {
+        IntSparseArrayMap<GridOccupancy> screenOccupancy = new IntSparseArrayMap<>();
+        // Use sBgItemsIdMap as all the items are already loaded.
+        synchronized (dataModel) {
+            for (ItemInfo info : dataModel.itemsIdMap) {
+                if (info.container == LauncherSettings.Favorites.CONTAINER_DESKTOP) {
+                    getScreenOccupancy(app, screenOccupancy, info.screenId).markCells(info, true);
+                }
             }
         }
-        return occupied.findVacantCell(xy, spanX, spanY);
+        return screenOccupancy;
+    }
+
+    private GridOccupancy getScreenOccupancy(LauncherAppState app,
+            IntSparseArrayMap<GridOccupancy> screenOccupancy, int screenId) {
+        GridOccupancy occupancy = screenOccupancy.get(screenId);
+        if (occupancy == null) {
+            InvariantDeviceProfile profile = app.getInvariantDeviceProfile();
+            occupancy = new GridOccupancy(profile.numColumns, profile.numRows);
+            screenOccupancy.put(screenId, occupancy);
+        }
+        return occupancy;
     }
 }
@@ -32,7 +32,6 @@ import android.service.notification.StatusBarNotification;
 import android.text.TextUtils;
 import android.util.ArraySet;
 import android.util.Log;
-import android.util.Pair;
 
 import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
@@ -42,6 +41,8 @@ import androidx.annotation.WorkerThread;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.SettingsCache;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -66,6 +67,10 @@ public class NotificationListener extends NotificationListenerService {
     private static final int MSG_NOTIFICATION_FULL_REFRESH = 3;
     private static final int MSG_CANCEL_NOTIFICATION = 4;
     private static final int MSG_RANKING_UPDATE = 5;
+    private static final int MSG_NOTIFICATIONS_CHANGED = 6;
+
+    // Posted and removed notifications are sent to the UI in batches collected over this window
+    private static final long CHANGES_BATCH_WINDOW_MS = 16;
 
     private static NotificationListener sNotificationListenerInstance = null;
     private static final ArraySet<NotificationsChangedListener> sNotificationsChangedListeners =
@@ -84,6 +89,12 @@ public class NotificationListener extends NotificationListenerService {
     /** The last notification key that was dismissed from launcher UI */
     private String mLastKeyDismissedByLauncher;
 
+    /** Changes which have not been sent to the UI yet, in the order they happened */
+    private final ArrayList<NotificationChange> mPendingChanges = new ArrayList<>();
+    // Stats, updated on the worker thread
+    private volatile int mProcessedNotificationCount;
+    private volatile int mDispatchedBatchCount;
+
     private SettingsCache mSettingsCache;
     private SettingsCache.OnChangeListener mNotificationSettingsChangedListener;
 
@@ -124,15 +135,12 @@ public class NotificationListener extends NotificationListenerService {
         switch (message.what) {
             case MSG_NOTIFICATION_POSTED: {
                 StatusBarNotification sbn = (StatusBarNotification) message.obj;
-                mUiHandler.obtainMessage(notificationIsValidForUI(sbn)
-                                ? MSG_NOTIFICATION_POSTED : MSG_NOTIFICATION_REMOVED,
-                        toKeyPair(sbn)).sendToTarget();
+                addPendingChange(sbn, notificationIsValidForUI(sbn));
                 return true;
             }
             case MSG_NOTIFICATION_REMOVED: {
                 StatusBarNotification sbn = (StatusBarNotification) message.obj;
-                mUiHandler.obtainMessage(MSG_NOTIFICATION_REMOVED,
-                        toKeyPair(sbn)).sendToTarget();
+                addPendingChange(sbn, false);
 
                 NotificationGroup notificationGroup = mNotificationGroupMap.get(sbn.getGroupKey());
                 String key = sbn.getKey();
@@ -152,7 +160,14 @@ public class NotificationListener extends NotificationListenerService {
                 }
                 return true;
             }
+            case MSG_NOTIFICATIONS_CHANGED:
+                flushPendingChanges();
+                return true;
             case MSG_NOTIFICATION_FULL_REFRESH:
+                // The full refresh already includes any pending change
+                mPendingChanges.clear();
+                mWorkerHandler.removeMessages(MSG_NOTIFICATIONS_CHANGED);
+
                 List<StatusBarNotification> activeNotifications = null;
                 if (sIsConnected) {
                     activeNotifications = Arrays.stream(getActiveNotificationsSafely(null))
@@ -180,21 +195,35 @@ public class NotificationListener extends NotificationListenerService {
         return false;
     }
 
+    @WorkerThread
+    private void addPendingChange(StatusBarNotification sbn, boolean isPosted) {
+        mPendingChanges.add(new NotificationChange(PackageUserKey.fromNotification(sbn),
+                NotificationKeyData.fromNotification(sbn), isPosted));
+        mProcessedNotificationCount++;
+        if (!mWorkerHandler.hasMessages(MSG_NOTIFICATIONS_CHANGED)) {
+            mWorkerHandler.sendEmptyMessageDelayed(
+                    MSG_NOTIFICATIONS_CHANGED, CHANGES_BATCH_WINDOW_MS);
+        }
+    }
+
+    @WorkerThread
+    private void flushPendingChanges() {
+        if (mPendingChanges.isEmpty()) {
+            return;
+        }
+        mUiHandler.obtainMessage(MSG_NOTIFICATIONS_CHANGED, new ArrayList<>(mPendingChanges))
+                .sendToTarget();
+        mPendingChanges.clear();
+        mDispatchedBatchCount++;
+    }
+
     private boolean handleUiMessage(Message message) {
         switch (message.what) {
-            case MSG_NOTIFICATION_POSTED:
+            case MSG_NOTIFICATIONS_CHANGED:
                 if (sNotificationsChangedListeners.size() > 0) {
-                    Pair<PackageUserKey, NotificationKeyData> msg = (Pair) message.obj;
+                    List<NotificationChange> changes = (List<NotificationChange>) message.obj;
                     for (NotificationsChangedListener listener : sNotificationsChangedListeners) {
-                        listener.onNotificationPosted(msg.first, msg.second);
-                    }
-                }
-                break;
-            case MSG_NOTIFICATION_REMOVED:
-                if (sNotificationsChangedListeners.size() > 0) {
-                    Pair<PackageUserKey, NotificationKeyData> msg = (Pair) message.obj;
-                    for (NotificationsChangedListener listener : sNotificationsChangedListeners) {
-                        listener.onNotificationRemoved(msg.first, msg.second);
+                        listener.onNotificationsChanged(changes);
                     }
                 }
                 break;
@@ -269,6 +298,8 @@ public class NotificationListener extends NotificationListenerService {
 
     @Override
     public void onNotificationRankingUpdate(RankingMap rankingMap) {
+        // Each ranking map contains all active notifications, so only the latest one is needed
+        mWorkerHandler.removeMessages(MSG_RANKING_UPDATE);
         mWorkerHandler.obtainMessage(MSG_RANKING_UPDATE, rankingMap).sendToTarget();
     }
 
@@ -350,9 +381,28 @@ public class NotificationListener extends NotificationListenerService {
         return !isGroupHeader && !missingTitleAndText;
     }
 
-    private static Pair<PackageUserKey, NotificationKeyData> toKeyPair(StatusBarNotification sbn) {
-        return Pair.create(PackageUserKey.fromNotification(sbn),
-                NotificationKeyData.fromNotification(sbn));
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(fd, writer, args);
+        writer.println(TAG + ":");
+        writer.println("\tprocessedNotifications: " + mProcessedNotificationCount);
+        writer.println("\tdispatchedBatches: " + mDispatchedBatchCount);
+    }
+
+    /**
+     * A notification which was posted or removed
+     */
+    public static class NotificationChange {
+        public final PackageUserKey packageUserKey;
+        public final NotificationKeyData notificationKey;
+        public final boolean isPosted;
+
+        public NotificationChange(PackageUserKey packageUserKey,
+                NotificationKeyData notificationKey, boolean isPosted) {
+            this.packageUserKey = packageUserKey;
+            this.notificationKey = notificationKey;
+            this.isPosted = isPosted;
+        }
     }
 
     public interface NotificationsChangedListener {
@@ -361,5 +411,19 @@ public class NotificationListener extends NotificationListenerService {
         void onNotificationRemoved(PackageUserKey removedPackageUserKey,
                 NotificationKeyData notificationKey);
         void onNotificationFullRefresh(List<StatusBarNotification> activeNotifications);
+
+        /**
+         * Called with the notifications posted or removed within a short window, in the order
+         * they happened. Listeners can override this to update their UI once per batch.
+         */
+        default void onNotificationsChanged(List<NotificationChange> changes) {
+            for (NotificationChange change : changes) {
+                if (change.isPosted) {
+                    onNotificationPosted(change.packageUserKey, change.notificationKey);
+                } else {
+                    onNotificationRemoved(change.packageUserKey, change.notificationKey);
+                }
+            }
+        }
     }
 }
@@ -16,6 +16,8 @@
 
 package com.android.launcher3.pm;
 
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.LauncherApps;
@@ -26,10 +28,12 @@ import android.os.Process;
 import android.os.UserHandle;
 import android.text.TextUtils;
 import android.util.Log;
+import android.util.SparseArray;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 
 import com.android.launcher3.LauncherPrefs;
@@ -48,6 +52,7 @@ import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.Preconditions;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -87,10 +92,26 @@ public class InstallSessionHelper {
     @Nullable
     private IntSet mPromiseIconIds;
 
+    // Verified sessions by session id, kept up to date by the registered tracker. Only accessed
+    // on the model thread, and null until the tracker has synced.
+    @Nullable
+    private SparseArray<SessionInfo> mSessionCache;
+
+    // Immutable snapshot of mSessionCache, which can be read from any thread
+    @Nullable
+    private volatile List<SessionInfo> mVerifiedSessions;
+
     public InstallSessionHelper(@NonNull final Context context) {
-        mInstaller = context.getPackageManager().getPackageInstaller();
+        this(context, context.getPackageManager().getPackageInstaller(),
+                context.getSystemService(LauncherApps.class));
+    }
+
+    @VisibleForTesting
+    InstallSessionHelper(@NonNull final Context context, @NonNull PackageInstaller installer,
+            @Nullable LauncherApps launcherApps) {
+        mInstaller = installer;
         mAppContext = context.getApplicationContext();
-        mLauncherApps = context.getSystemService(LauncherApps.class);
+        mLauncherApps = launcherApps;
     }
 
     @WorkerThread
@@ -189,8 +210,17 @@ public class InstallSessionHelper {
         return mSessionVerifiedMap.get(pkg);
     }
 
+    /**
+     * Returns the verified install sessions of all users. The returned list may not be modified.
+     */
     @NonNull
     public List<SessionInfo> getAllVerifiedSessions() {
+        List<SessionInfo> sessions = mVerifiedSessions;
+        return sessions != null ? sessions : fetchAllVerifiedSessions();
+    }
+
+    @NonNull
+    private List<SessionInfo> fetchAllVerifiedSessions() {
         List<SessionInfo> list = new ArrayList<>(Utilities.ATLEAST_Q
                 ? Objects.requireNonNull(mLauncherApps).getAllPackageInstallerSessions()
                 : mInstaller.getAllSessions());
@@ -203,6 +233,63 @@ public class InstallSessionHelper {
         return list;
     }
 
+    /**
+     * Fetches all the sessions once, after which the tracker callbacks keep the cache current
+     */
+    @WorkerThread
+    void syncSessionCache() {
+        mSessionCache = new SparseArray<>();
+        for (SessionInfo info : fetchAllVerifiedSessions()) {
+            mSessionCache.put(info.getSessionId(), info);
+        }
+        publishSessionCache();
+    }
+
+    /**
+     * Re-reads the session from the installer and updates the cache with its latest state, or
+     * drops it from the cache if it can no longer be verified
+     */
+    @WorkerThread
+    @Nullable
+    SessionInfo refreshSessionInfo(final int sessionId) {
+        SessionInfo verifiedInfo = getVerifiedSessionInfo(sessionId);
+        if (verifiedInfo == null) {
+            onSessionFinished(sessionId);
+        } else if (mSessionCache != null) {
+            mSessionCache.put(sessionId, verifiedInfo);
+            publishSessionCache();
+        }
+        return verifiedInfo;
+    }
+
+    /**
+     * Removes the finished session from the cache
+     */
+    @WorkerThread
+    void onSessionFinished(int sessionId) {
+        if (mSessionCache != null && mSessionCache.indexOfKey(sessionId) >= 0) {
+            mSessionCache.remove(sessionId);
+            publishSessionCache();
+        }
+    }
+
+    /**
+     * Drops the cache once no tracker keeps it up to date, reverting to direct queries
+     */
+    @WorkerThread
+    void clearSessionCache() {
+        mSessionCache = null;
+        mVerifiedSessions = null;
+    }
+
+    private void publishSessionCache() {
+        List<SessionInfo> sessions = new ArrayList<>(mSessionCache.size());
+        for (int i = 0; i < mSessionCache.size(); i++) {
+            sessions.add(mSessionCache.valueAt(i));
+        }
+        mVerifiedSessions = Collections.unmodifiableList(sessions);
+    }
+
     /**
      * Attempt to restore workspace layout if the session is triggered due to device restore.
      */
@@ -295,6 +382,8 @@ public class InstallSessionHelper {
         InstallSessionTracker tracker = new InstallSessionTracker(
                 this, callback, mInstaller, mLauncherApps);
         tracker.register();
+        // Callbacks run on the model thread, so any change after this sync updates the cache
+        MODEL_EXECUTOR.execute(this::syncSessionCache);
         return tracker;
     }
 
@@ -94,6 +94,9 @@ public class InstallSessionTracker extends PackageInstaller.SessionCallback {
     public void onFinished(final int sessionId, final boolean success) {
         InstallSessionHelper helper = mWeakHelper.get();
         Callback callback = mWeakCallback.get();
+        if (helper != null) {
+            helper.onSessionFinished(sessionId);
+        }
         if (callback == null || helper == null) {
             return;
         }
@@ -121,18 +124,24 @@ public class InstallSessionTracker extends PackageInstaller.SessionCallback {
     @Override
     public void onProgressChanged(final int sessionId, final float progress) {
         InstallSessionHelper helper = mWeakHelper.get();
-        Callback callback = mWeakCallback.get();
-        if (callback == null || helper == null) {
+        if (helper == null) {
             return;
         }
-        SessionInfo session = helper.getVerifiedSessionInfo(sessionId);
-        if (session != null && session.getAppPackageName() != null) {
+        // Keep the cached progress current even when nothing is listening for the change
+        SessionInfo session = helper.refreshSessionInfo(sessionId);
+        Callback callback = mWeakCallback.get();
+        if (callback != null && session != null && session.getAppPackageName() != null) {
             callback.onPackageStateChanged(PackageInstallInfo.fromInstallingState(session));
         }
     }
 
     @Override
-    public void onActiveChanged(final int sessionId, final boolean active) { }
+    public void onActiveChanged(final int sessionId, final boolean active) {
+        InstallSessionHelper helper = mWeakHelper.get();
+        if (helper != null) {
+            helper.refreshSessionInfo(sessionId);
+        }
+    }
 
     @Override
     public void onBadgingChanged(final int sessionId) {
@@ -150,7 +159,7 @@ public class InstallSessionTracker extends PackageInstaller.SessionCallback {
     @Nullable
     private SessionInfo pushSessionDisplayToLauncher(final int sessionId,
             @NonNull final InstallSessionHelper helper, @NonNull final Callback callback) {
-        SessionInfo session = helper.getVerifiedSessionInfo(sessionId);
+        SessionInfo session = helper.refreshSessionInfo(sessionId);
         if (session != null && session.getAppPackageName() != null) {
             PackageUserKey key =
                     new PackageUserKey(session.getAppPackageName(), getUserHandle(session));
@@ -182,6 +191,10 @@ public class InstallSessionTracker extends PackageInstaller.SessionCallback {
     }
 
     public void unregister() {
+        InstallSessionHelper helper = mWeakHelper.get();
+        if (helper != null) {
+            MODEL_EXECUTOR.execute(helper::clearSessionCache);
+        }
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
             mInstaller.unregisterSessionCallback(this);
         } else {
@@ -20,14 +20,16 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.UserHandle;
 import android.os.UserManager;
-import android.util.ArrayMap;
 import android.util.LongSparseArray;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.android.launcher3.util.MainThreadInitializedObject;
 import com.android.launcher3.util.SafeCloseable;
 import com.android.launcher3.util.SimpleBroadcastReceiver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -45,10 +47,9 @@ public class UserCache {
     private final SimpleBroadcastReceiver mUserChangeReceiver =
             new SimpleBroadcastReceiver(this::onUsersChanged);
 
-    private LongSparseArray<UserHandle> mUsers;
-    // Create a separate reverse map as LongSparseArray.indexOfValue checks if objects are same
-    // and not {@link Object#equals}
-    private ArrayMap<UserHandle, Long> mUserToSerialMap;
+    // Immutable table of the current users, or null when the cache is disabled. Readers use the
+    // table they loaded without locking, and user changes publish a new table.
+    private volatile UserTable mUserTable;
 
     private UserCache(Context context) {
         mContext = context;
@@ -79,16 +80,26 @@ public class UserCache {
 
     private void enableAndResetCache() {
         synchronized (this) {
-            mUsers = new LongSparseArray<>();
-            mUserToSerialMap = new ArrayMap<>();
-            List<UserHandle> users = mUserManager.getUserProfiles();
-            if (users != null) {
-                for (UserHandle user : users) {
-                    long serial = mUserManager.getSerialNumberForUser(user);
-                    mUsers.put(serial, user);
-                    mUserToSerialMap.put(user, serial);
+            LongSparseArray<UserHandle> users = new LongSparseArray<>();
+            List<UserHandle> profiles = mUserManager.getUserProfiles();
+            if (profiles != null) {
+                for (UserHandle user : profiles) {
+                    users.put(mUserManager.getSerialNumberForUser(user), user);
                 }
             }
+            mUserTable = new UserTable(users);
+        }
+    }
+
+    /**
+     * Replaces the cached users, while the cache is enabled
+     */
+    @VisibleForTesting
+    public void setUsers(LongSparseArray<UserHandle> users) {
+        synchronized (this) {
+            if (mUserTable != null) {
+                mUserTable = new UserTable(users);
+            }
         }
     }
 
@@ -99,8 +110,7 @@ public class UserCache {
                 // Disable cache and stop listening
                 mContext.unregisterReceiver(mUserChangeReceiver);
 
-                mUsers = null;
-                mUserToSerialMap = null;
+                mUserTable = null;
             }
         }
     }
@@ -109,11 +119,10 @@ public class UserCache {
      * @see UserManager#getSerialNumberForUser(UserHandle)
      */
     public long getSerialNumberForUser(UserHandle user) {
-        synchronized (this) {
-            if (mUserToSerialMap != null) {
-                Long serial = mUserToSerialMap.get(user);
-                return serial == null ? 0 : serial;
-            }
+        UserTable table = mUserTable;
+        if (table != null) {
+            int index = table.indexOfUser(user);
+            return index < 0 ? 0 : table.serials[index];
         }
         return mUserManager.getSerialNumberForUser(user);
     }
@@ -122,10 +131,10 @@ public class UserCache {
      * @see UserManager#getUserForSerialNumber(long)
      */
     public UserHandle getUserForSerialNumber(long serialNumber) {
-        synchronized (this) {
-            if (mUsers != null) {
-                return mUsers.get(serialNumber);
-            }
+        UserTable table = mUserTable;
+        if (table != null) {
+            int index = Arrays.binarySearch(table.serials, serialNumber);
+            return index < 0 ? null : table.users.get(index);
         }
         return mUserManager.getUserForSerialNumber(serialNumber);
     }
@@ -134,13 +143,47 @@ public class UserCache {
      * @see UserManager#getUserProfiles()
      */
     public List<UserHandle> getUserProfiles() {
-        synchronized (this) {
-            if (mUsers != null) {
-                return new ArrayList<>(mUserToSerialMap.keySet());
-            }
+        UserTable table = mUserTable;
+        if (table != null) {
+            return table.users;
         }
 
         List<UserHandle> users = mUserManager.getUserProfiles();
         return users == null ? Collections.emptyList() : users;
     }
+
+    /**
+     * Immutable snapshot of the users, sorted by serial number
+     */
+    private static class UserTable {
+
+        final long[] serials;
+        // User identifiers, for lookups without hashing the user handle
+        final int[] ids;
+        final List<UserHandle> users;
+
+        UserTable(LongSparseArray<UserHandle> userMap) {
+            int count = userMap.size();
+            serials = new long[count];
+            ids = new int[count];
+            UserHandle[] userArray = new UserHandle[count];
+            // LongSparseArray keeps its keys sorted
+            for (int i = 0; i < count; i++) {
+                serials[i] = userMap.keyAt(i);
+                userArray[i] = userMap.valueAt(i);
+                ids[i] = userArray[i].getIdentifier();
+            }
+            users = Collections.unmodifiableList(Arrays.asList(userArray));
+        }
+
+        int indexOfUser(UserHandle user) {
+            int id = user.getIdentifier();
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
 }
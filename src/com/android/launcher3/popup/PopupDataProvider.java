@@ -18,6 +18,7 @@ package com.android.launcher3.popup;
 
 import android.content.ComponentName;
 import android.service.notification.StatusBarNotification;
+import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -28,9 +29,11 @@ import com.android.launcher3.model.WidgetItem;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.notification.NotificationKeyData;
 import com.android.launcher3.notification.NotificationListener;
+import com.android.launcher3.notification.NotificationListener.NotificationChange;
 import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.ShortcutUtil;
+import com.android.launcher3.widget.model.WidgetsIndex;
 import com.android.launcher3.widget.model.WidgetsListBaseEntry;
 import com.android.launcher3.widget.model.WidgetsListContentEntry;
 
@@ -61,17 +64,22 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     private Map<PackageUserKey, DotInfo> mPackageUserToDotInfos = new HashMap<>();
 
     /** All installed widgets. */
-    private List<WidgetsListBaseEntry> mAllWidgets = List.of();
+    private WidgetsIndex mAllWidgets = WidgetsIndex.EMPTY;
     /** Widgets that can be recommended to the users. */
     private List<ItemInfo> mRecommendedWidgets = List.of();
 
     private PopupDataChangeListener mChangeListener = PopupDataChangeListener.INSTANCE;
 
+    // Stats for the number of notification changes received and the dot updates they caused
+    private int mNotificationChangeCount;
+    private int mDotsUpdateCount;
+
     public PopupDataProvider(Consumer<Predicate<PackageUserKey>> notificationDotsChangeListener) {
         mNotificationDotsChangeListener = notificationDotsChangeListener;
     }
 
     private void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
+        mDotsUpdateCount++;
         mNotificationDotsChangeListener.accept(updatedDots);
         mChangeListener.onNotificationDotsUpdated(updatedDots);
     }
@@ -79,12 +87,8 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     @Override
     public void onNotificationPosted(PackageUserKey postedPackageUserKey,
             NotificationKeyData notificationKey) {
-        DotInfo dotInfo = mPackageUserToDotInfos.get(postedPackageUserKey);
-        if (dotInfo == null) {
-            dotInfo = new DotInfo();
-            mPackageUserToDotInfos.put(postedPackageUserKey, dotInfo);
-        }
-        if (dotInfo.addOrUpdateNotificationKey(notificationKey)) {
+        mNotificationChangeCount++;
+        if (addNotification(postedPackageUserKey, notificationKey)) {
             updateNotificationDots(postedPackageUserKey::equals);
         }
     }
@@ -92,16 +96,65 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     @Override
     public void onNotificationRemoved(PackageUserKey removedPackageUserKey,
             NotificationKeyData notificationKey) {
-        DotInfo oldDotInfo = mPackageUserToDotInfos.get(removedPackageUserKey);
-        if (oldDotInfo != null && oldDotInfo.removeNotificationKey(notificationKey)) {
-            if (oldDotInfo.getNotificationKeys().size() == 0) {
-                mPackageUserToDotInfos.remove(removedPackageUserKey);
-            }
+        mNotificationChangeCount++;
+        if (removeNotification(removedPackageUserKey, notificationKey)) {
             updateNotificationDots(removedPackageUserKey::equals);
             trimNotifications(mPackageUserToDotInfos);
         }
     }
 
+    @Override
+    public void onNotificationsChanged(List<NotificationChange> changes) {
+        mNotificationChangeCount += changes.size();
+        ArraySet<PackageUserKey> updatedKeys = new ArraySet<>();
+        boolean hasRemovedNotifications = false;
+        for (NotificationChange change : changes) {
+            if (change.isPosted) {
+                if (addNotification(change.packageUserKey, change.notificationKey)) {
+                    updatedKeys.add(change.packageUserKey);
+                }
+            } else if (removeNotification(change.packageUserKey, change.notificationKey)) {
+                updatedKeys.add(change.packageUserKey);
+                hasRemovedNotifications = true;
+            }
+        }
+        // Update all the changed dots in a single pass
+        if (!updatedKeys.isEmpty()) {
+            updateNotificationDots(updatedKeys::contains);
+        }
+        if (hasRemovedNotifications) {
+            trimNotifications(mPackageUserToDotInfos);
+        }
+    }
+
+    /**
+     * Adds the notification to the dot of the package, returning true if the dot changed
+     */
+    private boolean addNotification(PackageUserKey packageUserKey,
+            NotificationKeyData notificationKey) {
+        DotInfo dotInfo = mPackageUserToDotInfos.get(packageUserKey);
+        if (dotInfo == null) {
+            dotInfo = new DotInfo();
+            mPackageUserToDotInfos.put(packageUserKey, dotInfo);
+        }
+        return dotInfo.addOrUpdateNotificationKey(notificationKey);
+    }
+
+    /**
+     * Removes the notification from the dot of the package, returning true if the dot changed
+     */
+    private boolean removeNotification(PackageUserKey packageUserKey,
+            NotificationKeyData notificationKey) {
+        DotInfo oldDotInfo = mPackageUserToDotInfos.get(packageUserKey);
+        if (oldDotInfo == null || !oldDotInfo.removeNotificationKey(notificationKey)) {
+            return false;
+        }
+        if (oldDotInfo.getNotificationKeys().size() == 0) {
+            mPackageUserToDotInfos.remove(packageUserKey);
+        }
+        return true;
+    }
+
     @Override
     public void onNotificationFullRefresh(List<StatusBarNotification> activeNotifications) {
         if (activeNotifications == null) return;
@@ -200,7 +253,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
         mChangeListener.onRecommendedWidgetsBound();
     }
 
-    public void setAllWidgets(List<WidgetsListBaseEntry> allWidgets) {
+    public void setAllWidgets(WidgetsIndex allWidgets) {
         mAllWidgets = allWidgets;
         mChangeListener.onWidgetsBound();
     }
@@ -209,38 +262,44 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
         mChangeListener = listener == null ? PopupDataChangeListener.INSTANCE : listener;
     }
 
+    /**
+     * Returns the entries of all the widgets, which creates the widgets of every package the
+     * first time it is called for the bound widgets.
+     */
     public List<WidgetsListBaseEntry> getAllWidgets() {
-        return mAllWidgets;
+        return mAllWidgets.getWidgetsListForPicker();
     }
 
     /** Returns a list of recommended widgets. */
     public List<WidgetItem> getRecommendedWidgets() {
-        HashMap<ComponentKey, WidgetItem> allWidgetItems = new HashMap<>();
-        mAllWidgets.stream()
-                .filter(entry -> entry instanceof WidgetsListContentEntry)
-                .forEach(entry -> ((WidgetsListContentEntry) entry).mWidgets
-                        .forEach(widget -> allWidgetItems.put(
-                                new ComponentKey(widget.componentName, widget.user), widget)));
         return mRecommendedWidgets.stream()
-                .map(recommendedWidget -> allWidgetItems.get(
-                        new ComponentKey(recommendedWidget.getTargetComponent(),
-                                recommendedWidget.user)))
+                .map(this::getRecommendedWidget)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    @Nullable
+    private WidgetItem getRecommendedWidget(ItemInfo recommendedWidget) {
+        ComponentName component = recommendedWidget.getTargetComponent();
+        if (component == null) {
+            return null;
+        }
+        PackageUserKey packageUser =
+                new PackageUserKey(component.getPackageName(), recommendedWidget.user);
+        return mAllWidgets.getWidgets(packageUser).stream()
+                .filter(widget -> widget.componentName.equals(component))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /** Returns the widgets of the package, which are created when the package is first used. */
     public List<WidgetItem> getWidgetsForPackageUser(PackageUserKey packageUserKey) {
-        return mAllWidgets.stream()
-                .filter(row -> row instanceof WidgetsListContentEntry
-                        && row.mPkgItem.packageName.equals(packageUserKey.mPackageName))
-                .flatMap(row -> ((WidgetsListContentEntry) row).mWidgets.stream())
-                .filter(widget -> packageUserKey.mUser.equals(widget.user))
-                .collect(Collectors.toList());
+        return mAllWidgets.getWidgets(packageUserKey);
     }
 
     /** Gets the WidgetsListContentEntry for the currently selected header. */
     public WidgetsListContentEntry getSelectedAppWidgets(PackageUserKey packageUserKey) {
-        return (WidgetsListContentEntry) mAllWidgets.stream()
+        return (WidgetsListContentEntry) getAllWidgets().stream()
                 .filter(row -> row instanceof WidgetsListContentEntry
                         && PackageUserKey.fromPackageItemInfo(row.mPkgItem).equals(packageUserKey))
                 .findAny()
@@ -271,6 +330,8 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "PopupDataProvider:");
         writer.println(prefix + "\tmPackageUserToDotInfos:" + mPackageUserToDotInfos);
+        writer.println(prefix + "\tmNotificationChangeCount:" + mNotificationChangeCount);
+        writer.println(prefix + "\tmDotsUpdateCount:" + mDotsUpdateCount);
     }
 
     /**
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.provider;
+
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_ACTION;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_CATEGORY;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_COMPONENT;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_FLAGS;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_PACKAGE;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_SOURCE;
+
+import android.content.ComponentName;
+import android.content.ContentValues;
+import android.content.Intent;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.launcher3.LauncherSettings.Favorites;
+
+import java.net.URISyntaxException;
+import java.util.Set;
+
+/**
+ * Utility methods for the normalized intent columns, which store the fields of an item intent
+ * next to its intent string, so that the loader can build the intent without parsing the string.
+ *
+ * The columns are only set for intents which are built back exactly from them, along with the
+ * intent string they were set from. Other intents, and rows where that string doesn't match the
+ * intent, e.g. as the intent was updated without the columns, fall back to parsing the string.
+ */
+public final class IntentColumns {
+
+    private IntentColumns() { }
+
+    /**
+     * Sets the intent columns for the intent in the values, if the values contain an intent
+     */
+    public static void addToValues(@NonNull ContentValues values) {
+        if (!values.containsKey(INTENT)) {
+            return;
+        }
+        String uri = values.getAsString(INTENT);
+        Intent intent = uri == null ? null : parseSimpleIntent(uri);
+        if (intent == null) {
+            values.putNull(INTENT_ACTION);
+            values.putNull(INTENT_PACKAGE);
+            values.putNull(INTENT_COMPONENT);
+            values.putNull(INTENT_CATEGORY);
+            values.putNull(INTENT_FLAGS);
+            values.putNull(INTENT_SOURCE);
+            return;
+        }
+        ComponentName cn = intent.getComponent();
+        Set<String> categories = intent.getCategories();
+        values.put(INTENT_ACTION, intent.getAction());
+        values.put(INTENT_PACKAGE, intent.getPackage());
+        values.put(INTENT_COMPONENT, cn == null ? null : cn.flattenToString());
+        values.put(INTENT_CATEGORY, categories == null ? null : categories.iterator().next());
+        values.put(INTENT_FLAGS, intent.getFlags());
+        values.put(INTENT_SOURCE, uri);
+    }
+
+    /**
+     * Returns the intent parsed from the string if it only has an action, a package, a
+     * component, a category and flags, or null otherwise
+     */
+    @Nullable
+    private static Intent parseSimpleIntent(@NonNull String uri) {
+        Intent intent;
+        try {
+            intent = Intent.parseUri(uri, 0);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        Set<String> categories = intent.getCategories();
+        if (categories != null && categories.size() > 1) {
+            return null;
+        }
+        Intent simpleIntent = buildIntent(intent.getAction(), intent.getPackage(),
+                intent.getComponent() == null ? null : intent.getComponent().flattenToString(),
+                categories == null ? null : categories.iterator().next(), intent.getFlags());
+        // Any other field, like data or extras, is part of the string
+        return uri.equals(simpleIntent.toUri(0)) ? intent : null;
+    }
+
+    /**
+     * Returns the intent built from the intent columns
+     */
+    @NonNull
+    public static Intent buildIntent(@Nullable String action, @Nullable String packageName,
+            @Nullable String component, @Nullable String category, int flags) {
+        Intent intent = new Intent(action);
+        if (packageName != null) {
+            intent.setPackage(packageName);
+        }
+        if (component != null) {
+            intent.setComponent(ComponentName.unflattenFromString(component));
+        }
+        if (category != null) {
+            intent.addCategory(category);
+        }
+        intent.setFlags(flags);
+        return intent;
+    }
+
+    /**
+     * Sets the intent columns of all the rows of the table from their intent
+     */
+    public static void updateAllRows(@NonNull SQLiteDatabase db, @NonNull String tableName) {
+        try (Cursor c = db.query(tableName, new String[] {Favorites._ID, INTENT},
+                INTENT + " IS NOT NULL", null, null, null, null)) {
+            ContentValues values = new ContentValues();
+            while (c.moveToNext()) {
+                values.clear();
+                values.put(INTENT, c.getString(1));
+                addToValues(values);
+                values.remove(INTENT);
+                db.update(tableName, values, Favorites._ID + " = ?",
+                        new String[] {Integer.toString(c.getInt(0))});
+            }
+        }
+    }
+}
@@ -150,6 +150,7 @@ public class PinnedAppsAdapter extends BaseAdapter implements OnSharedPreference
         mPinnedApps.stream().map(mAllAppsList::getApp)
                 .filter(Objects::nonNull).forEach(mItems::add);
         mItems.sort(mAppNameComparator);
+        mAppNameComparator.trimCache(mItems);
         notifyDataSetChanged();
     }
 
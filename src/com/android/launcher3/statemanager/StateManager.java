@@ -27,6 +27,7 @@ import android.animation.AnimatorListenerAdapter;
 import android.animation.AnimatorSet;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 
 import androidx.annotation.FloatRange;
 
@@ -35,9 +36,11 @@ import com.android.launcher3.anim.AnimatorPlaybackController;
 import com.android.launcher3.anim.PendingAnimation;
 import com.android.launcher3.states.StateAnimationConfig;
 import com.android.launcher3.states.StateAnimationConfig.AnimationFlags;
+import com.android.launcher3.util.LatencyHistogram;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * Class to manage transitions between different states for a StatefulActivity based on different
@@ -51,6 +54,8 @@ public class StateManager<STATE_TYPE extends BaseState<STATE_TYPE>> {
     private final Handler mUiHandler;
     private final StatefulActivity<STATE_TYPE> mActivity;
     private final ArrayList<StateListener<STATE_TYPE>> mListeners = new ArrayList<>();
+    // Time taken by the state handlers to create each kind of transition animation
+    private final HashMap<String, LatencyHistogram> mAnimationCreationTimes = new HashMap<>();
     private final STATE_TYPE mBaseState;
 
     // Animators which are run on properties also controlled by state animations.
@@ -96,6 +101,12 @@ public class StateManager<STATE_TYPE extends BaseState<STATE_TYPE>> {
         writer.println(prefix + "\tmState:" + mState);
         writer.println(prefix + "\tmRestState:" + mRestState);
         writer.println(prefix + "\tisInTransition:" + isInTransition());
+        if (!mAnimationCreationTimes.isEmpty()) {
+            writer.println(prefix + "\tanimationCreationTimes:");
+            for (LatencyHistogram histogram : mAnimationCreationTimes.values()) {
+                histogram.dump(prefix + "\t\t", writer);
+            }
+        }
     }
 
     public StateHandler[] getStateHandlers() {
@@ -342,17 +353,30 @@ public class StateManager<STATE_TYPE extends BaseState<STATE_TYPE>> {
     }
 
     private PendingAnimation createAnimationToNewWorkspaceInternal(final STATE_TYPE state) {
+        long startTime = SystemClock.elapsedRealtimeNanos();
         PendingAnimation builder = new PendingAnimation(mConfig.duration);
         if (!mConfig.hasAnimationFlag(SKIP_ALL_ANIMATIONS)) {
             for (StateHandler handler : getStateHandlers()) {
                 handler.setStateWithAnimation(state, mConfig, builder);
             }
         }
+        recordAnimationCreationTime(state, SystemClock.elapsedRealtimeNanos() - startTime);
         builder.addListener(createStateAnimationListener(state));
         mConfig.setAnimation(builder.buildAnim(), state);
         return builder;
     }
 
+    private void recordAnimationCreationTime(STATE_TYPE toState, long durationNanos) {
+        String transition = (mConfig.userControlled ? "controlled " : "atomic ")
+                + mState + " -> " + toState;
+        LatencyHistogram histogram = mAnimationCreationTimes.get(transition);
+        if (histogram == null) {
+            histogram = new LatencyHistogram(transition);
+            mAnimationCreationTimes.put(transition, histogram);
+        }
+        histogram.record(durationNanos);
+    }
+
     private AnimatorListener createStateAnimationListener(STATE_TYPE state) {
         return new AnimationSuccessListener() {
 
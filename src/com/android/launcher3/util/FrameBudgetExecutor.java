@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An executor which runs tasks on the main thread from {@link Choreographer} frame callbacks,
+ * executing only as many tasks in each frame as fit in a fraction of the frame interval. At least
+ * one task is executed per frame so that the queue always makes progress.
+ *
+ * This class is not thread safe and should only be used on the main thread.
+ */
+public class FrameBudgetExecutor implements Executor, Choreographer.FrameCallback {
+
+    // Fraction of the frame interval which can be spent running tasks
+    private static final float FRAME_BUDGET_FRACTION = 0.5f;
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+    private final long mFrameIntervalNanos;
+    private final long mFrameBudgetNanos;
+    @Nullable
+    private final Runnable mOnDrainedCallback;
+
+    private boolean mFrameScheduled;
+    private long mLastFrameTimeNanos;
+
+    private int mFramesUsed;
+    private int mFramesDropped;
+    private int mTasksExecuted;
+    private long mTaskTimeNanos;
+
+    /**
+     * @param refreshRate the refresh rate of the display the tasks are rendered on
+     * @param onDrainedCallback called once all tasks have been executed from frame callbacks
+     */
+    public FrameBudgetExecutor(float refreshRate, @Nullable Runnable onDrainedCallback) {
+        if (refreshRate <= 0) {
+            refreshRate = DEFAULT_REFRESH_RATE;
+        }
+        mFrameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+        mFrameBudgetNanos = (long) (mFrameIntervalNanos * FRAME_BUDGET_FRACTION);
+        mOnDrainedCallback = onDrainedCallback;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable runnable) {
+        mTasks.add(runnable);
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        if (mTasks.isEmpty()) {
+            return;
+        }
+        recordFrame(frameTimeNanos);
+
+        long start = System.nanoTime();
+        long deadline = start + mFrameBudgetNanos;
+        long now;
+        do {
+            mTasks.poll().run();
+            mTasksExecuted++;
+            now = System.nanoTime();
+        } while (!mTasks.isEmpty() && now < deadline);
+        mTaskTimeNanos += now - start;
+
+        if (!mTasks.isEmpty()) {
+            if (!mFrameScheduled) {
+                mFrameScheduled = true;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        } else if (mOnDrainedCallback != null) {
+            mOnDrainedCallback.run();
+        }
+    }
+
+    /**
+     * Updates the frame metrics for a frame starting at {@code frameTimeNanos}. Any vsync
+     * intervals elapsed since the previous frame, beyond the first, are counted as dropped.
+     */
+    @VisibleForTesting
+    void recordFrame(long frameTimeNanos) {
+        if (mFramesUsed > 0) {
+            long intervals = Math.round(
+                    (double) (frameTimeNanos - mLastFrameTimeNanos) / mFrameIntervalNanos);
+            if (intervals > 1) {
+                mFramesDropped += (int) (intervals - 1);
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        mFramesUsed++;
+    }
+
+    /**
+     * Executes all pending tasks immediately
+     */
+    public void flush() {
+        cancelFrame();
+        while (!mTasks.isEmpty()) {
+            mTasks.poll().run();
+            mTasksExecuted++;
+        }
+    }
+
+    /**
+     * Drops all pending tasks without executing them
+     */
+    public void cancel() {
+        cancelFrame();
+        mTasks.clear();
+    }
+
+    private void cancelFrame() {
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    public boolean isIdle() {
+        return mTasks.isEmpty();
+    }
+
+    /** Returns the number of frames in which tasks were executed */
+    public int getFramesUsed() {
+        return mFramesUsed;
+    }
+
+    /** Returns the number of frames missed between consecutive frames in which tasks ran */
+    public int getFramesDropped() {
+        return mFramesDropped;
+    }
+
+    public int getTasksExecuted() {
+        return mTasksExecuted;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameBudgetExecutor{tasks=" + mTasksExecuted
+                + ", framesUsed=" + mFramesUsed
+                + ", framesDropped=" + mFramesDropped
+                + ", taskTimeMs=" + TimeUnit.NANOSECONDS.toMillis(mTaskTimeNanos)
+                + ", budgetMs=" + TimeUnit.NANOSECONDS.toMillis(mFrameBudgetNanos) + "}";
+    }
+}
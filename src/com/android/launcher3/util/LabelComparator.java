@@ -15,6 +15,7 @@
  */
 package com.android.launcher3.util;
 
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.Comparator;
 
@@ -28,6 +29,33 @@ public class LabelComparator implements Comparator<String> {
 
     @Override
     public int compare(String titleA, String titleB) {
+        int result = compareFirstCharacter(titleA, titleB);
+        if (result != 0) {
+            return result;
+        }
+
+        // Order by the title in the current locale
+        return mCollator.compare(titleA, titleB);
+    }
+
+    /**
+     * Returns a key which can be compared using {@link #compare(String, CollationKey, String,
+     * CollationKey)} much faster than comparing the titles directly. Keys should be cached by the
+     * caller when the same title is compared many times, e.g. while sorting.
+     */
+    public CollationKey getCollationKey(String title) {
+        return mCollator.getCollationKey(title);
+    }
+
+    /**
+     * Same as {@link #compare(String, String)} but using precomputed collation keys
+     */
+    public int compare(String titleA, CollationKey keyA, String titleB, CollationKey keyB) {
+        int result = compareFirstCharacter(titleA, titleB);
+        return result != 0 ? result : keyA.compareTo(keyB);
+    }
+
+    private static int compareFirstCharacter(String titleA, String titleB) {
         // Ensure that we de-prioritize any titles that don't start with a
         // linguistic letter or digit
         boolean aStartsWithLetter = (titleA.length() > 0) &&
@@ -39,8 +67,6 @@ public class LabelComparator implements Comparator<String> {
         } else if (!aStartsWithLetter && bStartsWithLetter) {
             return 1;
         }
-
-        // Order by the title in the current locale
-        return mCollator.compare(titleA, titleB);
+        return 0;
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size histogram of durations with exponentially growing buckets, cheap enough to be
+ * updated from hot paths. The first bucket holds durations below {@link #MIN_BUCKET_MICROS} and
+ * each following bucket doubles the upper bound, with the last bucket holding everything above.
+ *
+ * This class is not thread safe.
+ */
+public class LatencyHistogram {
+
+    public static final int MIN_BUCKET_MICROS = 16;
+    private static final int BUCKET_COUNT = 12;
+
+    private final String mName;
+    private final int[] mBuckets = new int[BUCKET_COUNT];
+    private int mCount;
+    private long mTotalNanos;
+    private long mMaxNanos;
+
+    public LatencyHistogram(String name) {
+        mName = name;
+    }
+
+    /**
+     * Records a duration in nanoseconds
+     */
+    public void record(long durationNanos) {
+        mBuckets[getBucket(TimeUnit.NANOSECONDS.toMicros(durationNanos))]++;
+        mCount++;
+        mTotalNanos += durationNanos;
+        mMaxNanos = Math.max(mMaxNanos, durationNanos);
+    }
+
+    private static int getBucket(long micros) {
+        int bucket = 0;
+        long bound = MIN_BUCKET_MICROS;
+        while (micros >= bound && bucket < BUCKET_COUNT - 1) {
+            bucket++;
+            bound <<= 1;
+        }
+        return bucket;
+    }
+
+    /** Returns the exclusive upper bound of the bucket, or {@link Long#MAX_VALUE} for the last */
+    private static long getBucketBoundMicros(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (long) MIN_BUCKET_MICROS << bucket;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public long getMaxNanos() {
+        return mMaxNanos;
+    }
+
+    /**
+     * Returns the upper bound in microseconds of the bucket containing the given percentile, or
+     * 0 if nothing was recorded.
+     */
+    public long getPercentileMicros(float percentile) {
+        if (mCount == 0) {
+            return 0;
+        }
+        int target = (int) Math.ceil(mCount * percentile / 100f);
+        int seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets[i];
+            if (seen >= target && seen > 0) {
+                return Math.min(getBucketBoundMicros(i), TimeUnit.NANOSECONDS.toMicros(mMaxNanos));
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMicros(mMaxNanos);
+    }
+
+    public void reset() {
+        Arrays.fill(mBuckets, 0);
+        mCount = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        long avgNanos = mCount == 0 ? 0 : mTotalNanos / mCount;
+        writer.println(prefix + mName + ": count=" + mCount
+                + " avgUs=" + TimeUnit.NANOSECONDS.toMicros(avgNanos)
+                + " p50Us=" + getPercentileMicros(50)
+                + " p90Us=" + getPercentileMicros(90)
+                + " p99Us=" + getPercentileMicros(99)
+                + " maxUs=" + TimeUnit.NANOSECONDS.toMicros(mMaxNanos));
+        if (mCount == 0) {
+            return;
+        }
+        StringBuilder buckets = new StringBuilder(prefix).append("\tbuckets:");
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (mBuckets[i] == 0) {
+                continue;
+            }
+            buckets.append(' ');
+            buckets.append(i == BUCKET_COUNT - 1
+                    ? ">=" + getBucketBoundMicros(i - 1) : "<" + getBucketBoundMicros(i));
+            buckets.append("us=").append(mBuckets[i]);
+        }
+        writer.println(buckets);
+    }
+}
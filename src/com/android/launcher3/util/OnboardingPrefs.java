@@ -15,11 +15,12 @@
  */
 package com.android.launcher3.util;
 
-import android.content.SharedPreferences;
 import android.util.ArrayMap;
 
 import androidx.annotation.StringDef;
 
+import com.android.launcher3.ConstantItem;
+import com.android.launcher3.LauncherPrefs;
 import com.android.launcher3.views.ActivityContext;
 
 import java.lang.annotation.Retention;
@@ -28,7 +29,8 @@ import java.util.Collections;
 import java.util.Map;
 
 /**
- * Stores and retrieves onboarding-related data via SharedPreferences.
+ * Stores and retrieves onboarding-related data via {@link LauncherPrefs}. Writes are buffered, as
+ * counters are bumped on state transitions and don't need to hit the disk individually.
  *
  * @param <T> Context which owns these preferences.
  */
@@ -98,16 +100,28 @@ public class OnboardingPrefs<T extends ActivityContext> {
     }
 
     protected final T mLauncher;
-    protected final SharedPreferences mSharedPrefs;
+    protected final LauncherPrefs mLauncherPrefs;
 
-    public OnboardingPrefs(T launcher, SharedPreferences sharedPrefs) {
+    public OnboardingPrefs(T launcher, LauncherPrefs launcherPrefs) {
         mLauncher = launcher;
-        mSharedPrefs = sharedPrefs;
+        mLauncherPrefs = launcherPrefs;
+    }
+
+    private static ConstantItem<Integer> countItem(@EventCountKey String key) {
+        return LauncherPrefs.backedUpItem(key, 0, false);
+    }
+
+    /**
+     * Returns the {@link LauncherPrefs} item backing the given event. Writes to the key from
+     * outside this class must go through this item, so that they replace any buffered value.
+     */
+    public static ConstantItem<Boolean> boolItem(@EventBoolKey String key) {
+        return LauncherPrefs.backedUpItem(key, false, false);
     }
 
     /** @return The number of times we have seen the given event. */
     public int getCount(@EventCountKey String key) {
-        return mSharedPrefs.getInt(key, 0);
+        return mLauncherPrefs.get(countItem(key));
     }
 
     /** @return Whether we have seen this event enough times, as defined by {@link #MAX_COUNTS}. */
@@ -121,14 +135,14 @@ public class OnboardingPrefs<T extends ActivityContext> {
 
     /** @return Whether we have seen the given event. */
     public boolean getBoolean(@EventBoolKey String key) {
-        return mSharedPrefs.getBoolean(key, false);
+        return mLauncherPrefs.get(boolItem(key));
     }
 
     /**
      * Marks on-boarding preference boolean at true
      */
-    public void markChecked(String flag) {
-        mSharedPrefs.edit().putBoolean(flag, true).apply();
+    public void markChecked(@EventBoolKey String flag) {
+        mLauncherPrefs.putBuffered(boolItem(flag), true);
     }
 
     /**
@@ -142,17 +156,29 @@ public class OnboardingPrefs<T extends ActivityContext> {
             return true;
         }
         count++;
-        mSharedPrefs.edit().putInt(eventKey, count).apply();
+        mLauncherPrefs.putBuffered(countItem(eventKey), count);
         return hasReachedMaxCount(count, eventKey);
     }
 
+    /**
+     * Clears the given events, dropping any buffered values for them, so that the related education
+     * is shown again.
+     */
+    public static void reset(LauncherPrefs launcherPrefs, String... keys) {
+        ConstantItem<?>[] items = new ConstantItem<?>[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            items[i] = MAX_COUNTS.containsKey(keys[i]) ? countItem(keys[i]) : boolItem(keys[i]);
+        }
+        launcherPrefs.remove(items);
+    }
+
     /**
      * Sets the event count to the given value.
      *
      * @return Whether we have now reached the max count.
      */
     public boolean setEventCount(int count, @EventCountKey String eventKey) {
-        mSharedPrefs.edit().putInt(eventKey, count).apply();
+        mLauncherPrefs.putBuffered(countItem(eventKey), count);
         return hasReachedMaxCount(count, eventKey);
     }
 }
@@ -33,21 +33,40 @@ import com.android.launcher3.pm.UserCache;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlSerializer;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.LongFunction;
+import java.util.zip.CRC32;
 
 /**
  * Utility class to read/write a list of {@link com.android.launcher3.model.data.ItemInfo} on disk.
+ * Items are stored in a compact binary format followed by a CRC32 checksum of the payload. Files
+ * written in the legacy XML format are still read, and are replaced on the next write.
+ *
+ * Single item additions and removals can be appended to a journal instead of rewriting all the
+ * items, and are applied on top of the last written items when reading. Writing all the items
+ * compacts the journal. A journal only applies to the items written with the same generation,
+ * so a journal left behind by an interrupted compaction is ignored.
+ *
+ * The last persisted payload is kept in memory, so writing the same list again is a no-op.
  * This class is not thread safe, the caller should ensure proper threading
  */
 public class PersistedItemArray<T extends ItemInfo> {
@@ -57,17 +76,51 @@ public class PersistedItemArray<T extends ItemInfo> {
     private static final String TAG_ROOT = "items";
     private static final String TAG_ENTRY = "entry";
 
+    private static final int MAGIC = 0x4c504941; // "LPIA"
+    private static final int JOURNAL_MAGIC = 0x4c50494a; // "LPIJ"
+    private static final int VERSION_NO_GENERATION = 1;
+    private static final int VERSION = 2;
+
+    private static final int OP_ADD = 1;
+    private static final int OP_REMOVE = 2;
+
     private final String mFileName;
+    private final String mLegacyFileName;
+    private final String mJournalFileName;
+
+    // Payload which is currently on disk, or null if unknown
+    @Nullable
+    private byte[] mPersistedPayload;
+    // Generation of the items on disk, which the journal records apply to
+    private int mGeneration;
+    // Number of records in the journal
+    private int mJournalSize;
 
     public PersistedItemArray(String fileName) {
-        mFileName = fileName + ".xml";
+        mFileName = fileName + ".bin";
+        mLegacyFileName = fileName + ".xml";
+        mJournalFileName = fileName + ".journal";
     }
 
     /**
-     * Writes the provided list of items on the disk
+     * Writes the provided list of items on the disk, compacting the journal
      */
     @WorkerThread
     public void write(Context context, List<T> items) {
+        byte[] payload;
+        try {
+            payload = encode(UserCache.INSTANCE.get(context), items);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to persist items in " + mFileName, e);
+            return;
+        }
+        if (Arrays.equals(payload, mPersistedPayload)) {
+            // Nothing changed since the last read or write, apart from journal records which
+            // cancelled each other out
+            deleteJournal(context);
+            return;
+        }
+
         AtomicFile file = getFile(context);
         FileOutputStream fos;
         try {
@@ -77,35 +130,147 @@ public class PersistedItemArray<T extends ItemInfo> {
             return;
         }
 
-        UserCache userCache = UserCache.INSTANCE.get(context);
-
+        int generation = mGeneration + 1;
         try {
-            XmlSerializer out = Xml.newSerializer();
-            out.setOutput(fos, StandardCharsets.UTF_8.name());
-            out.startDocument(null, true);
-            out.startTag(null, TAG_ROOT);
-            for (T item : items) {
-                Intent intent = item.getIntent();
-                if (intent == null) {
-                    continue;
-                }
-
-                out.startTag(null, TAG_ENTRY);
-                out.attribute(null, Favorites.ITEM_TYPE, Integer.toString(item.itemType));
-                out.attribute(null, Favorites.PROFILE_ID,
-                        Long.toString(userCache.getSerialNumberForUser(item.user)));
-                out.attribute(null, Favorites.INTENT, intent.toUri(0));
-                out.endTag(null, TAG_ENTRY);
-            }
-            out.endTag(null, TAG_ROOT);
-            out.endDocument();
+            DataOutputStream out = new DataOutputStream(fos);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(generation);
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.writeLong(checksum(payload));
+            out.flush();
         } catch (IOException e) {
             file.failWrite(fos);
+            mPersistedPayload = null;
             Log.e(TAG, "Unable to persist items in " + mFileName, e);
             return;
         }
 
         file.finishWrite(fos);
+        mPersistedPayload = payload;
+        mGeneration = generation;
+        // The journal applies to the previous generation, and is ignored even if deleting it fails
+        deleteJournal(context);
+        getLegacyFile(context).delete();
+    }
+
+    /**
+     * Appends the addition of the item to the journal. The items must have been read first.
+     */
+    @WorkerThread
+    public void append(Context context, T item) {
+        appendRecord(context, OP_ADD, item);
+    }
+
+    /**
+     * Appends the removal of the item to the journal. The items must have been read first.
+     */
+    @WorkerThread
+    public void appendRemoval(Context context, T item) {
+        appendRecord(context, OP_REMOVE, item);
+    }
+
+    /**
+     * Returns the number of records in the journal, which the caller can use to decide when to
+     * compact it by writing all the items
+     */
+    public int getJournalSize() {
+        return mJournalSize;
+    }
+
+    private void appendRecord(Context context, int op, T item) {
+        Intent intent = item.getIntent();
+        if (intent == null) {
+            return;
+        }
+        File file = getJournalFile(context);
+        boolean isNewJournal = file.length() == 0;
+        try (FileOutputStream fos = new FileOutputStream(file, !isNewJournal)) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream record = new DataOutputStream(bos);
+            record.writeInt(op);
+            writeItem(record, item.itemType,
+                    UserCache.INSTANCE.get(context).getSerialNumberForUser(item.user),
+                    intent.toUri(0));
+            record.flush();
+            byte[] data = bos.toByteArray();
+
+            DataOutputStream out = new DataOutputStream(fos);
+            if (isNewJournal) {
+                out.writeInt(JOURNAL_MAGIC);
+                out.writeInt(mGeneration);
+            }
+            out.writeInt(data.length);
+            out.write(data);
+            out.writeLong(checksum(data));
+            out.flush();
+            mJournalSize++;
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to append to " + mJournalFileName, e);
+        }
+    }
+
+    private static <T extends ItemInfo> byte[] encode(UserCache userCache, List<T> items)
+            throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        int count = 0;
+        for (T item : items) {
+            if (item.getIntent() != null) {
+                count++;
+            }
+        }
+        out.writeInt(count);
+        for (T item : items) {
+            Intent intent = item.getIntent();
+            if (intent == null) {
+                continue;
+            }
+            writeItem(out, item.itemType, userCache.getSerialNumberForUser(item.user),
+                    intent.toUri(0));
+        }
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    private static void writeItem(DataOutputStream out, int itemType, long serial, String uri)
+            throws IOException {
+        byte[] uriBytes = uri.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(itemType);
+        out.writeLong(serial);
+        out.writeInt(uriBytes.length);
+        out.write(uriBytes);
+    }
+
+    /**
+     * Reads an item from an in-memory stream, where the available bytes are the remaining bytes
+     */
+    private static Entry readItem(DataInputStream in) throws IOException {
+        int itemType = in.readInt();
+        long serial = in.readLong();
+        byte[] uri = readBytes(in, in.available() - 4);
+        return new Entry(itemType, serial, new String(uri, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a length prefixed byte array. The length is not covered by the checksum, so it is
+     * checked against the bytes which can be left before allocating the array.
+     */
+    private static byte[] readBytes(DataInputStream in, long maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid length " + length);
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return data;
+    }
+
+    private static long checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return crc.getValue();
     }
 
     /**
@@ -122,8 +287,151 @@ public class PersistedItemArray<T extends ItemInfo> {
      */
     @WorkerThread
     public List<T> read(Context context, ItemFactory<T> factory, LongFunction<UserHandle> userFn) {
+        mPersistedPayload = null;
+        mGeneration = 0;
+        mJournalSize = 0;
+        List<Entry> entries = readEntries(context);
+        if (entries == null) {
+            // Start over from no items, otherwise the unreadable file would also cause the
+            // records appended from now on to be dropped on the next read
+            getFile(context).delete();
+            getLegacyFile(context).delete();
+            deleteJournal(context);
+            return Collections.emptyList();
+        }
+        readJournal(context, entries);
+
         List<T> result = new ArrayList<>();
-        try (FileInputStream fis = getFile(context).openRead()) {
+        for (Entry entry : entries) {
+            addItem(result, factory, entry.itemType, userFn.apply(entry.serial), entry.uri);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the written entries, or null if they could not be read
+     */
+    @Nullable
+    private List<Entry> readEntries(Context context) {
+        byte[] payload;
+        int generation;
+        AtomicFile file = getFile(context);
+        try (DataInputStream in = new DataInputStream(file.openRead())) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            int headerSize;
+            if (version == VERSION) {
+                generation = in.readInt();
+                headerSize = 16;
+            } else if (version == VERSION_NO_GENERATION) {
+                generation = 0;
+                headerSize = 12;
+            } else {
+                Log.e(TAG, "Unknown format for " + mFileName);
+                return null;
+            }
+            // The payload is followed by its 8 byte checksum
+            payload = readBytes(in, file.getBaseFile().length() - headerSize - 8);
+            if (in.readLong() != checksum(payload)) {
+                Log.e(TAG, "Checksum mismatch for " + mFileName);
+                return null;
+            }
+        } catch (FileNotFoundException e) {
+            return readLegacy(context);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read items in " + mFileName, e);
+            return null;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                entries.add(readItem(in));
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read items in " + mFileName, e);
+            return null;
+        }
+        mPersistedPayload = payload;
+        mGeneration = generation;
+        return entries;
+    }
+
+    /**
+     * Applies the journal records to the entries. A journal of another generation is deleted,
+     * and a journal with an incomplete last record, from an interrupted append, is truncated to
+     * its complete records.
+     */
+    private void readJournal(Context context, List<Entry> entries) {
+        File file = getJournalFile(context);
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != JOURNAL_MAGIC || in.readInt() != mGeneration) {
+                deleteJournal(context);
+                return;
+            }
+            validLength = 8;
+            long fileLength = file.length();
+            while (true) {
+                // The record is followed by its 8 byte checksum
+                byte[] data = readBytes(in, fileLength - validLength - 4 - 8);
+                if (in.readLong() != checksum(data)) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(data));
+                int op = record.readInt();
+                Entry entry = readItem(record);
+                if (op == OP_ADD) {
+                    entries.add(entry);
+                } else if (op == OP_REMOVE) {
+                    entries.remove(entry);
+                }
+                mJournalSize++;
+                validLength += 4 + data.length + 8;
+            }
+        } catch (FileNotFoundException e) {
+            return;
+        } catch (EOFException e) {
+            // End of the journal
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read journal " + mJournalFileName, e);
+        }
+
+        if (validLength < 8) {
+            deleteJournal(context);
+        } else if (validLength < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            } catch (IOException e) {
+                Log.e(TAG, "Unable to truncate journal " + mJournalFileName, e);
+            }
+        }
+    }
+
+    private void addItem(List<T> result, ItemFactory<T> factory, int itemType,
+            @Nullable UserHandle user, String intentUri) {
+        try {
+            Intent intent = Intent.parseUri(intentUri, 0);
+            if (user != null && intent != null) {
+                T item = factory.createInfo(itemType, user, intent);
+                if (item != null) {
+                    result.add(item);
+                }
+            }
+        } catch (Exception e) {
+            // Ignore this entry
+        }
+    }
+
+    /**
+     * Reads items written in the legacy XML format
+     */
+    @Nullable
+    private List<Entry> readLegacy(Context context) {
+        List<Entry> result = new ArrayList<>();
+        try (FileInputStream fis = getLegacyFile(context).openRead()) {
             XmlPullParser parser = Xml.newPullParser();
             parser.setInput(new InputStreamReader(fis, StandardCharsets.UTF_8));
 
@@ -139,16 +447,11 @@ public class PersistedItemArray<T extends ItemInfo> {
                 try {
                     int itemType = Integer.parseInt(
                             parser.getAttributeValue(null, Favorites.ITEM_TYPE));
-                    UserHandle user = userFn.apply(Long.parseLong(
-                            parser.getAttributeValue(null, Favorites.PROFILE_ID)));
-                    Intent intent = Intent.parseUri(
-                            parser.getAttributeValue(null, Favorites.INTENT), 0);
-
-                    if (user != null && intent != null) {
-                        T item = factory.createInfo(itemType, user, intent);
-                        if (item != null) {
-                            result.add(item);
-                        }
+                    long serial = Long.parseLong(
+                            parser.getAttributeValue(null, Favorites.PROFILE_ID));
+                    String uri = parser.getAttributeValue(null, Favorites.INTENT);
+                    if (uri != null) {
+                        result.add(new Entry(itemType, serial, uri));
                     }
                 } catch (Exception e) {
                     // Ignore this entry
@@ -157,12 +460,29 @@ public class PersistedItemArray<T extends ItemInfo> {
         } catch (FileNotFoundException e) {
             // Ignore
         } catch (IOException | XmlPullParserException e) {
-            Log.e(TAG, "Unable to read items in " + mFileName, e);
-            return Collections.emptyList();
+            Log.e(TAG, "Unable to read items in " + mLegacyFileName, e);
+            return null;
         }
         return result;
     }
 
+    /**
+     * Removes all persisted data
+     */
+    @WorkerThread
+    public void delete(Context context) {
+        getFile(context).delete();
+        getLegacyFile(context).delete();
+        deleteJournal(context);
+        mPersistedPayload = null;
+        mGeneration = 0;
+    }
+
+    private void deleteJournal(Context context) {
+        getJournalFile(context).delete();
+        mJournalSize = 0;
+    }
+
     /**
      * Returns the underlying file used for persisting data
      */
@@ -170,6 +490,43 @@ public class PersistedItemArray<T extends ItemInfo> {
         return new AtomicFile(context.getFileStreamPath(mFileName));
     }
 
+    private AtomicFile getLegacyFile(Context context) {
+        return new AtomicFile(context.getFileStreamPath(mLegacyFileName));
+    }
+
+    private File getJournalFile(Context context) {
+        return context.getFileStreamPath(mJournalFileName);
+    }
+
+    /**
+     * An item as stored on disk
+     */
+    private static class Entry {
+        final int itemType;
+        final long serial;
+        final String uri;
+
+        Entry(int itemType, long serial, String uri) {
+            this.itemType = itemType;
+            this.serial = serial;
+            this.uri = uri;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) obj;
+            return itemType == other.itemType && serial == other.serial && uri.equals(other.uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(itemType, serial, uri);
+        }
+    }
+
     /**
      * Interface to create an ItemInfo during parsing
      */
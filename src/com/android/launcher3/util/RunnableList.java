@@ -16,6 +16,7 @@
 package com.android.launcher3.util;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * Utility class to hold a list of runnable
@@ -51,6 +52,22 @@ public class RunnableList {
         executeAllAndClear();
     }
 
+    /**
+     * Destroys the list, handing off any pending callbacks to {@param executor} in the order
+     * they were added. All new callbacks are immediately executed
+     */
+    public void executeAllAndDestroy(Executor executor) {
+        mDestroyed = true;
+        if (mList != null) {
+            ArrayList<Runnable> list = mList;
+            mList = null;
+            int count = list.size();
+            for (int i = 0; i < count; i++) {
+                executor.execute(list.get(i));
+            }
+        }
+    }
+
     /**
      * Executes all previously added runnable and clears the list
      */
@@ -17,6 +17,7 @@
 package com.android.launcher3.util;
 
 import android.util.Log;
+import android.view.Display;
 import android.view.View;
 import android.view.View.OnAttachStateChangeListener;
 import android.view.ViewTreeObserver.OnDrawListener;
@@ -28,11 +29,16 @@ import java.util.function.Consumer;
 
 /**
  * An executor which runs all the tasks after the first onDraw is called on the target view.
+ * Tasks are spread across frames using a {@link FrameBudgetExecutor} so that binding the
+ * remaining items does not block rendering.
  */
 public class ViewOnDrawExecutor implements OnDrawListener, Runnable,
         OnAttachStateChangeListener {
 
+    private static final String TAG = "ViewOnDrawExecutor";
+
     private final RunnableList mTasks;
+    private FrameBudgetExecutor mFrameExecutor;
 
     private Consumer<ViewOnDrawExecutor> mOnClearCallback;
     private View mAttachedView;
@@ -117,11 +123,24 @@ public class ViewOnDrawExecutor implements OnDrawListener, Runnable,
                             + ", mCompleted=" + mCompleted);
         }
         // Post the pending tasks after both onDraw and onLoadAnimationCompleted have been called.
-        if (mLoadAnimationCompleted && mFirstDrawCompleted && !mCompleted) {
-            markCompleted();
+        if (mLoadAnimationCompleted && mFirstDrawCompleted && !mCompleted
+                && mFrameExecutor == null) {
+            Display display = mAttachedView.getDisplay();
+            mFrameExecutor = new FrameBudgetExecutor(
+                    display == null ? 0 : display.getRefreshRate(), this::onTasksDrained);
+            mAttachedView.getViewTreeObserver().removeOnDrawListener(this);
+            mTasks.executeAllAndDestroy(mFrameExecutor);
+            if (mFrameExecutor.isIdle()) {
+                markCompleted();
+            }
         }
     }
 
+    private void onTasksDrained() {
+        Log.d(TAG, "Pending bind tasks completed: " + mFrameExecutor);
+        markCompleted();
+    }
+
     /**
      * Executes all tasks immediately
      */
@@ -132,10 +151,19 @@ public class ViewOnDrawExecutor implements OnDrawListener, Runnable,
                             + ", mOnClearCallback != null=" + (mOnClearCallback != null)
                             + ", mAttachedView != null=" + (mAttachedView != null));
         }
-        if (!mCancelled) {
-            mTasks.executeAllAndDestroy();
+        if (mCompleted) {
+            return;
         }
         mCompleted = true;
+        if (mCancelled) {
+            if (mFrameExecutor != null) {
+                mFrameExecutor.cancel();
+            }
+        } else if (mFrameExecutor != null) {
+            mFrameExecutor.flush();
+        } else {
+            mTasks.executeAllAndDestroy();
+        }
         if (mAttachedView != null) {
             mAttachedView.getViewTreeObserver().removeOnDrawListener(this);
             mAttachedView.removeOnAttachStateChangeListener(this);
@@ -16,10 +16,14 @@
 
 package com.android.launcher3.widget;
 
+import static com.android.launcher3.widget.WidgetInflationExecutor.PRIORITY_DEFAULT;
+import static com.android.launcher3.widget.WidgetInflationExecutor.PRIORITY_VISIBLE;
+
 import android.annotation.TargetApi;
 import android.appwidget.AppWidgetProviderInfo;
 import android.content.Context;
 import android.content.res.Configuration;
+import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.os.Build;
 import android.os.Handler;
@@ -32,6 +36,7 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewDebug;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.view.accessibility.AccessibilityNodeInfo;
 import android.widget.AdapterView;
 import android.widget.Advanceable;
@@ -39,12 +44,16 @@ import android.widget.RemoteViews;
 
 import androidx.annotation.Nullable;
 
+import com.android.launcher3.CellLayout;
 import com.android.launcher3.CheckLongPressHelper;
 import com.android.launcher3.Launcher;
 import com.android.launcher3.R;
+import com.android.launcher3.ShortcutAndWidgetContainer;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.dragndrop.DragLayer;
+import com.android.launcher3.logging.StatsLogManager.LauncherLatencyEvent;
+import com.android.launcher3.logging.StatsLogManager.StatsLatencyLogger.LatencyType;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.LauncherAppWidgetInfo;
 import com.android.launcher3.util.Themes;
@@ -55,7 +64,7 @@ import com.android.launcher3.views.BaseDragLayer.TouchCompleteListener;
  */
 public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
         implements TouchCompleteListener, View.OnLongClickListener,
-        LocalColorExtractor.Listener {
+        LocalColorExtractor.Listener, WidgetInflationExecutor.InflationTarget {
 
     private static final String TAG = "LauncherAppWidgetHostView";
 
@@ -95,6 +104,13 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
 
     private boolean mTrackingWidgetUpdate = false;
 
+    // Whether a view inflated from RemoteViews, rather than the default view, has been added.
+    private boolean mHasContent = false;
+    private boolean mAwaitingContent = false;
+    // Uptime at which the widget was dropped, until the first frame with its content is drawn.
+    private long mDropTimeMillis = -1;
+    private boolean mHadContentOnDrop = false;
+
     public LauncherAppWidgetHostView(Context context) {
         super(context);
         mLauncher = Launcher.getLauncher(context);
@@ -106,6 +122,19 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
             setOnLightBackground(true);
         }
         mColorExtractor = LocalColorExtractor.newInstance(getContext());
+        setExecutor(WidgetInflationExecutor.INSTANCE.getExecutor(this));
+    }
+
+    @Override
+    public int getInflationPriority() {
+        ViewParent parent = getParent();
+        if (parent instanceof ShortcutAndWidgetContainer
+                && parent.getParent() instanceof CellLayout) {
+            return mLauncher.getWorkspace().getWidgetInflationPriority(
+                    (CellLayout) parent.getParent());
+        }
+        // Widgets attached elsewhere, such as the drag layer while being dragged, are visible.
+        return parent == null ? PRIORITY_DEFAULT : PRIORITY_VISIBLE;
     }
 
     @Override
@@ -160,6 +189,9 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
             mLastRemoteViews = null;
         }
 
+        if (remoteViews != null) {
+            mAwaitingContent = true;
+        }
         super.updateAppWidget(remoteViews);
 
         // The provider info or the views might have changed.
@@ -172,6 +204,37 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
         mReinflateOnConfigChange = !isSameOrientation();
     }
 
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        if (mAwaitingContent) {
+            // The content is added synchronously, or once inflated if inflation is async.
+            mAwaitingContent = false;
+            mHasContent = true;
+        }
+    }
+
+    /**
+     * Logs the latency from the widget being dropped on the workspace at {@param dropTimeMillis}
+     * to the first frame drawn with its content.
+     */
+    public void logDropToFirstFrameLatency(long dropTimeMillis) {
+        mDropTimeMillis = dropTimeMillis;
+        mHadContentOnDrop = mHasContent;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (mDropTimeMillis > 0 && mHasContent) {
+            mLauncher.getStatsLogManager().latencyLogger()
+                    .withType(mHadContentOnDrop ? LatencyType.HOT : LatencyType.COLD)
+                    .withLatency(SystemClock.uptimeMillis() - mDropTimeMillis)
+                    .log(LauncherLatencyEvent.LAUNCHER_LATENCY_WIDGET_DROP_TO_FIRST_FRAME);
+            mDropTimeMillis = -1;
+        }
+    }
+
     private boolean isSameOrientation() {
         return mLauncher.getResources().getConfiguration().orientation ==
                 mLauncher.getOrientation();
@@ -260,6 +323,8 @@ public class LauncherAppWidgetHostView extends BaseLauncherAppWidgetHostView
         mIsAttachedToWindow = true;
         checkIfAutoAdvance();
         mColorExtractor.setListener(this);
+        // Any inflation queued while this view was being created can now be prioritized
+        WidgetInflationExecutor.INSTANCE.updatePriority(this);
     }
 
     @Override
@@ -41,6 +41,8 @@ public class PendingAddWidgetInfo extends PendingAddItemInfo {
     public AppWidgetHostView boundWidget;
     public Bundle bindOptions = null;
     public int sourceContainer;
+    // Uptime at which the widget was dropped on the workspace, used for latency logging
+    public long dropTimeMillis = -1;
 
     public PendingAddWidgetInfo(LauncherAppWidgetProviderInfo i, int container) {
         if (i.isCustomWidget()) {
@@ -34,6 +34,7 @@ import android.util.Size;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewPropertyAnimator;
 import android.view.accessibility.AccessibilityNodeInfo;
@@ -51,6 +52,7 @@ import com.android.launcher3.DeviceProfile;
 import com.android.launcher3.Launcher;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.R;
+import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.icons.BaseIconFactory;
 import com.android.launcher3.icons.FastBitmapDrawable;
 import com.android.launcher3.icons.RoundDrawableWrapper;
@@ -137,6 +139,9 @@ public class WidgetCell extends LinearLayout {
     private float mAppWidgetHostViewScale = 1f;
     private int mSourceContainer = CONTAINER_WIDGETS_TRAY;
 
+    private final Runnable mPrewarmRunnable = this::prewarmWidget;
+    private boolean mIsPrewarmed = false;
+
     public WidgetCell(Context context) {
         this(context, null);
     }
@@ -503,6 +508,48 @@ public class WidgetCell extends LinearLayout {
         return true;
     }
 
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                if (FeatureFlags.ENABLE_WIDGET_HOST_VIEW_PREWARM.get()
+                        && mActivity instanceof Launcher
+                        && getTag() instanceof PendingAddWidgetInfo) {
+                    // Start binding the widget halfway through the long press, so that taps and
+                    // scrolls don't bind widgets needlessly.
+                    postDelayed(mPrewarmRunnable, ViewConfiguration.getLongPressTimeout() / 2);
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                cancelPrewarm();
+                break;
+        }
+        return super.dispatchTouchEvent(ev);
+    }
+
+    private void prewarmWidget() {
+        if (getTag() instanceof PendingAddWidgetInfo) {
+            ((Launcher) mActivity).getWidgetHostViewPrewarmer()
+                    .prewarm((PendingAddWidgetInfo) getTag());
+            mIsPrewarmed = true;
+        }
+    }
+
+    private void cancelPrewarm() {
+        removeCallbacks(mPrewarmRunnable);
+        if (mIsPrewarmed) {
+            mIsPrewarmed = false;
+            Launcher launcher = (Launcher) mActivity;
+            // If the long press started a drag, the prewarmed widget is claimed or discarded
+            // once the drag ends.
+            if (!launcher.getDragController().isDragging()
+                    && getTag() instanceof PendingAddWidgetInfo) {
+                launcher.getWidgetHostViewPrewarmer().discard((PendingAddWidgetInfo) getTag());
+            }
+        }
+    }
+
     @Override
     public void cancelLongPress() {
         super.cancelLongPress();
@@ -57,6 +57,9 @@ public class WidgetHostViewLoader implements DragController.DragListener {
         mHandler.removeCallbacks(mBindWidgetRunnable);
         mHandler.removeCallbacks(mInflateWidgetRunnable);
 
+        // Discard any widgets prewarmed for this drag which were not claimed.
+        mLauncher.getWidgetHostViewPrewarmer().clear();
+
         // Cleanup widget id
         if (mWidgetLoadingId != -1) {
             mLauncher.getAppWidgetHolder().deleteAppWidgetId(mWidgetLoadingId);
@@ -91,6 +94,17 @@ public class WidgetHostViewLoader implements DragController.DragListener {
             return false;
         }
 
+        // Use the host view bound while the widget was being long pressed, if any.
+        AppWidgetHostView prewarmedView = mLauncher.getWidgetHostViewPrewarmer().claim(mInfo);
+        if (prewarmedView != null) {
+            if (LOGD) {
+                Log.d(TAG, "Using prewarmed widget, id: " + prewarmedView.getAppWidgetId());
+            }
+            mInfo.boundWidget = prewarmedView;
+            mView.setTag(mInfo);
+            return true;
+        }
+
         mBindWidgetRunnable = new Runnable() {
             @Override
             public void run() {
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget;
+
+import android.appwidget.AppWidgetHostView;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.android.launcher3.Launcher;
+import com.android.launcher3.dragndrop.DragLayer;
+import com.android.launcher3.util.ComponentKey;
+
+import java.util.ArrayList;
+
+/**
+ * Binds and inflates app widgets speculatively while the user long presses a widget in the
+ * picker, so that a widget dropped right after the drag starts already has its content.
+ *
+ * Prewarmed host views are kept in a small pool, invisible in the drag layer, until they are
+ * claimed by {@link WidgetHostViewLoader} or discarded, which deletes their widget ids.
+ */
+public class WidgetHostViewPrewarmer {
+
+    private static final String TAG = "WidgetHostViewPrewarmer";
+    private static final boolean LOGD = false;
+
+    private static final int MAX_PREWARMED_WIDGETS = 2;
+
+    private final Launcher mLauncher;
+    // Oldest first
+    private final ArrayList<PrewarmedWidget> mPool = new ArrayList<>();
+
+    public WidgetHostViewPrewarmer(Launcher launcher) {
+        mLauncher = launcher;
+    }
+
+    /**
+     * Binds a widget id for the widget and starts inflating its host view, unless it is already
+     * prewarmed or has to go through a configuration activity.
+     */
+    public void prewarm(PendingAddWidgetInfo info) {
+        LauncherAppWidgetProviderInfo providerInfo = info.info;
+        if (providerInfo.isCustomWidget() || info.getHandler().needsConfigure()) {
+            return;
+        }
+        ComponentKey key = getKey(info);
+        if (indexOf(key) >= 0) {
+            return;
+        }
+        if (mPool.size() >= MAX_PREWARMED_WIDGETS) {
+            release(mPool.remove(0));
+        }
+
+        Bundle options = info.getDefaultSizeOptions(mLauncher);
+        int widgetId = mLauncher.getAppWidgetHolder().allocateAppWidgetId();
+        if (!new WidgetManagerHelper(mLauncher).bindAppWidgetIdIfAllowed(
+                widgetId, providerInfo, options)) {
+            mLauncher.getAppWidgetHolder().deleteAppWidgetId(widgetId);
+            return;
+        }
+        if (LOGD) {
+            Log.d(TAG, "Prewarming widget " + key + ", id: " + widgetId);
+        }
+
+        AppWidgetHostView hostView = mLauncher.getAppWidgetHolder().createView(
+                mLauncher, widgetId, providerInfo);
+        hostView.setVisibility(View.INVISIBLE);
+        // Lay the widget out at its final size, as done by WidgetHostViewLoader
+        int[] unScaledSize = mLauncher.getWorkspace().estimateItemSize(info);
+        DragLayer.LayoutParams lp = new DragLayer.LayoutParams(unScaledSize[0], unScaledSize[1]);
+        lp.x = lp.y = 0;
+        lp.customPosition = true;
+        hostView.setLayoutParams(lp);
+        mLauncher.getDragLayer().addView(hostView);
+        mPool.add(new PrewarmedWidget(key, hostView));
+    }
+
+    /**
+     * Removes the prewarmed host view for the widget from the pool and returns it, or returns
+     * null if the widget was not prewarmed. The caller becomes responsible for the widget id.
+     */
+    @Nullable
+    public AppWidgetHostView claim(PendingAddWidgetInfo info) {
+        int index = indexOf(getKey(info));
+        if (index < 0) {
+            return null;
+        }
+        if (LOGD) {
+            Log.d(TAG, "Claiming prewarmed widget " + getKey(info));
+        }
+        return mPool.remove(index).hostView;
+    }
+
+    /**
+     * Discards the prewarmed host view for the widget, if any
+     */
+    public void discard(PendingAddWidgetInfo info) {
+        int index = indexOf(getKey(info));
+        if (index >= 0) {
+            release(mPool.remove(index));
+        }
+    }
+
+    /**
+     * Discards all prewarmed host views
+     */
+    public void clear() {
+        for (int i = mPool.size() - 1; i >= 0; i--) {
+            release(mPool.remove(i));
+        }
+    }
+
+    private void release(PrewarmedWidget widget) {
+        if (LOGD) {
+            Log.d(TAG, "Discarding prewarmed widget " + widget.key);
+        }
+        mLauncher.getDragLayer().removeView(widget.hostView);
+        mLauncher.getAppWidgetHolder().deleteAppWidgetId(widget.hostView.getAppWidgetId());
+    }
+
+    private int indexOf(ComponentKey key) {
+        for (int i = 0; i < mPool.size(); i++) {
+            if (mPool.get(i).key.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ComponentKey getKey(PendingAddWidgetInfo info) {
+        return new ComponentKey(info.info.provider, info.info.getProfile());
+    }
+
+    private static class PrewarmedWidget {
+        final ComponentKey key;
+        final AppWidgetHostView hostView;
+
+        PrewarmedWidget(ComponentKey key, AppWidgetHostView hostView) {
+            this.key = key;
+            this.hostView = hostView;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget;
+
+import static com.android.launcher3.util.Executors.THREAD_POOL_EXECUTOR;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the background inflation of widget RemoteViews, starting with the widgets on the visible
+ * workspace pages, then the widgets on the adjacent pages and then all other widgets.
+ *
+ * Each {@link InflationTarget} has at most one pending inflation: a host view cancels its
+ * previous inflation before starting a new one, so an inflation which has not started yet is
+ * replaced by the newer one for the same target.
+ */
+public class WidgetInflationExecutor {
+
+    public static final int PRIORITY_VISIBLE = 0;
+    public static final int PRIORITY_ADJACENT = 1;
+    public static final int PRIORITY_DEFAULT = 2;
+    private static final int PRIORITY_COUNT = 3;
+
+    public static final WidgetInflationExecutor INSTANCE =
+            new WidgetInflationExecutor(THREAD_POOL_EXECUTOR);
+
+    private final Executor mWorkerExecutor;
+    private final Runnable mRunNextTask = this::runNextTask;
+
+    // Pending tasks for each priority, guarded by mPendingTasks
+    private final ArrayDeque<Task>[] mQueues;
+    private final IdentityHashMap<InflationTarget, Task> mPendingTasks = new IdentityHashMap<>();
+
+    @VisibleForTesting
+    @SuppressWarnings("unchecked")
+    WidgetInflationExecutor(Executor workerExecutor) {
+        mWorkerExecutor = workerExecutor;
+        mQueues = new ArrayDeque[PRIORITY_COUNT];
+        for (int i = 0; i < PRIORITY_COUNT; i++) {
+            mQueues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Returns an executor which queues tasks for the target, to be used as the async executor
+     * of its host view.
+     */
+    public Executor getExecutor(InflationTarget target) {
+        return task -> execute(target, task);
+    }
+
+    /**
+     * Queues the task at the current priority of the target, replacing any of its tasks which
+     * have not started yet.
+     */
+    @MainThread
+    public void execute(InflationTarget target, Runnable runnable) {
+        int priority = target.getInflationPriority();
+        synchronized (mPendingTasks) {
+            Task previous = mPendingTasks.remove(target);
+            if (previous != null) {
+                mQueues[previous.priority].remove(previous);
+            }
+            Task task = new Task(target, runnable, priority);
+            mPendingTasks.put(target, task);
+            mQueues[priority].add(task);
+        }
+        // Every task posts a worker runnable, which runs the highest priority pending task. Any
+        // extra runnables left after tasks were replaced find nothing to run.
+        mWorkerExecutor.execute(mRunNextTask);
+    }
+
+    /**
+     * Recomputes the priorities of the pending tasks, for example when the visible pages change
+     */
+    @MainThread
+    public void updatePriorities() {
+        synchronized (mPendingTasks) {
+            if (mPendingTasks.isEmpty()) {
+                return;
+            }
+            for (Task task : mPendingTasks.values()) {
+                updatePriorityLocked(task);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the priority of the pending task of the target, if any
+     */
+    @MainThread
+    public void updatePriority(InflationTarget target) {
+        synchronized (mPendingTasks) {
+            Task task = mPendingTasks.get(target);
+            if (task != null) {
+                updatePriorityLocked(task);
+            }
+        }
+    }
+
+    private void updatePriorityLocked(Task task) {
+        int priority = task.target.getInflationPriority();
+        if (priority != task.priority) {
+            mQueues[task.priority].remove(task);
+            task.priority = priority;
+            mQueues[priority].add(task);
+        }
+    }
+
+    private void runNextTask() {
+        Task task = null;
+        synchronized (mPendingTasks) {
+            for (int i = 0; i < PRIORITY_COUNT && task == null; i++) {
+                task = mQueues[i].poll();
+            }
+            if (task != null) {
+                mPendingTasks.remove(task.target);
+            }
+        }
+        if (task != null) {
+            task.runnable.run();
+        }
+    }
+
+    /**
+     * A view whose RemoteViews are inflated through this executor
+     */
+    public interface InflationTarget {
+
+        /**
+         * Returns one of {@link #PRIORITY_VISIBLE}, {@link #PRIORITY_ADJACENT} or
+         * {@link #PRIORITY_DEFAULT}
+         */
+        int getInflationPriority();
+    }
+
+    private static class Task {
+        final InflationTarget target;
+        final Runnable runnable;
+        int priority;
+
+        Task(InflationTarget target, Runnable runnable, int priority) {
+            this.target = target;
+            this.runnable = runnable;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget.model;
+
+import androidx.annotation.NonNull;
+
+import com.android.launcher3.model.WidgetItem;
+import com.android.launcher3.util.PackageUserKey;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The widgets and shortcuts bound to the UI, indexed by package. The {@link WidgetItem}s, which
+ * need a label lookup for every provider, are created in the background by
+ * {@link #createAllItems()}, or by the first access if it didn't run yet.
+ *
+ * An index doesn't change once bound, updates to the widgets bind a new index.
+ */
+public interface WidgetsIndex {
+
+    WidgetsIndex EMPTY = new WidgetsIndex() {
+        @NonNull
+        @Override
+        public List<WidgetItem> getWidgets(@NonNull PackageUserKey packageUser) {
+            return Collections.emptyList();
+        }
+
+        @NonNull
+        @Override
+        public List<WidgetsListBaseEntry> getWidgetsListForPicker() {
+            return Collections.emptyList();
+        }
+    };
+
+    /**
+     * Returns the widgets and shortcuts listed under the header of the package, which excludes
+     * the ones only listed under a category
+     */
+    @NonNull
+    List<WidgetItem> getWidgets(@NonNull PackageUserKey packageUser);
+
+    /**
+     * Returns a list of {@link WidgetsListBaseEntry} for all the widgets and shortcuts. All
+     * {@link WidgetItem} in a single row are sorted (based on label and user), but the overall
+     * list of {@link WidgetsListBaseEntry}s is not sorted.
+     *
+     * @see com.android.launcher3.widget.picker.WidgetsListAdapter#setWidgets(List)
+     */
+    @NonNull
+    List<WidgetsListBaseEntry> getWidgetsListForPicker();
+
+    /**
+     * Creates the {@link WidgetItem}s of every package and the picker entries. Must be called on
+     * a background thread.
+     */
+    default void createAllItems() { }
+}
@@ -627,12 +627,14 @@ public class WidgetsFullSheet extends BaseWidgetSheet
 
     @Override
     public void onSearchResults(List<WidgetsListBaseEntry> entries) {
-        mAdapters.get(AdapterHolder.SEARCH).mWidgetsListAdapter.setWidgetsOnSearch(entries);
-        updateRecyclerViewVisibility(mAdapters.get(AdapterHolder.SEARCH));
-        if (mIsTwoPane) {
-            mAdapters.get(AdapterHolder.SEARCH).mWidgetsListAdapter.selectFirstHeaderEntry();
-        }
-        mAdapters.get(AdapterHolder.SEARCH).mWidgetsRecyclerView.scrollToTop();
+        AdapterHolder searchAdapterHolder = mAdapters.get(AdapterHolder.SEARCH);
+        searchAdapterHolder.mWidgetsListAdapter.setWidgetsOnSearch(entries, () -> {
+            updateRecyclerViewVisibility(searchAdapterHolder);
+            if (mIsTwoPane) {
+                searchAdapterHolder.mWidgetsListAdapter.selectFirstHeaderEntry();
+            }
+            searchAdapterHolder.mWidgetsRecyclerView.scrollToTop();
+        });
     }
 
     private void setViewVisibilityBasedOnSearch(boolean isInSearchMode) {
@@ -19,6 +19,8 @@ import static com.android.launcher3.logging.StatsLogManager.LauncherEvent.LAUNCH
 import static com.android.launcher3.recyclerview.ViewHolderBinder.POSITION_DEFAULT;
 import static com.android.launcher3.recyclerview.ViewHolderBinder.POSITION_FIRST;
 import static com.android.launcher3.recyclerview.ViewHolderBinder.POSITION_LAST;
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
 import static com.android.launcher3.widget.BaseWidgetSheet.DEFAULT_MAX_HORIZONTAL_SPANS;
 
 import android.content.Context;
@@ -91,19 +93,21 @@ public class WidgetsListAdapter extends Adapter<ViewHolder> implements OnHeaderC
             new WidgetListBaseRowEntryComparator();
     @Nullable private final WidgetsFullSheet.HeaderChangeListener mHeaderChangeListener;
 
-    private final List<WidgetsListBaseEntry> mAllEntries = new ArrayList<>();
-    private ArrayList<WidgetsListBaseEntry> mVisibleEntries = new ArrayList<>();
+    private List<WidgetsListBaseEntry> mAllEntries = new ArrayList<>();
+    private List<WidgetsListBaseEntry> mVisibleEntries = new ArrayList<>();
     @Nullable private PackageUserKey mWidgetsContentVisiblePackageUserKey = null;
 
-    private Predicate<WidgetsListBaseEntry> mHeaderAndSelectedContentFilter = entry ->
-            entry instanceof WidgetsListHeaderEntry
-                    || PackageUserKey.fromPackageItemInfo(entry.mPkgItem)
-                            .equals(mWidgetsContentVisiblePackageUserKey);
     @Nullable private Predicate<WidgetsListBaseEntry> mFilter = null;
     @Nullable private RecyclerView mRecyclerView;
     @Nullable private PackageUserKey mPendingClickHeader;
     @Px private int mMaxHorizontalSpan;
 
+    // Incremented on every update of the visible entries, to drop outdated results computed in
+    // the background
+    private int mUpdateGeneration = 0;
+    // Callbacks to run once the next update of the visible entries has been applied
+    private final ArrayList<Runnable> mOnUpdatedCallbacks = new ArrayList<>();
+
     public WidgetsListAdapter(Context context, LayoutInflater layoutInflater,
             IntSupplier emptySpaceHeightProvider, OnClickListener iconClickListener,
             OnLongClickListener iconLongClickListener,
@@ -167,55 +171,114 @@ public class WidgetsListAdapter extends Adapter<ViewHolder> implements OnHeaderC
 
     /** Updates the widget list based on {@code tempEntries}. */
     public void setWidgets(List<WidgetsListBaseEntry> tempEntries) {
-        mAllEntries.clear();
-        mAllEntries.add(new WidgetListSpaceEntry());
-        tempEntries.stream().sorted(mRowComparator).forEach(mAllEntries::add);
+        setWidgets(tempEntries, false /* async */);
+    }
+
+    private void setWidgets(List<WidgetsListBaseEntry> tempEntries, boolean async) {
+        List<WidgetsListBaseEntry> allEntries = new ArrayList<>();
+        allEntries.add(new WidgetListSpaceEntry());
+        tempEntries.stream().sorted(mRowComparator).forEach(allEntries::add);
+        mAllEntries = allEntries;
         if (shouldClearVisibleEntries()) {
-            mVisibleEntries.clear();
+            mVisibleEntries = new ArrayList<>();
+            // The adapter must not observe the cleared entries before they are replaced.
+            async = false;
         }
-        updateVisibleEntries();
+        updateVisibleEntries(async);
     }
 
-    /** Updates the widget list based on {@code searchResults}. */
-    public void setWidgetsOnSearch(List<WidgetsListBaseEntry> searchResults) {
+    /**
+     * Updates the widget list based on {@code searchResults}. The visible entries are updated
+     * asynchronously, {@code onUpdated} is called once they have been applied.
+     */
+    public void setWidgetsOnSearch(List<WidgetsListBaseEntry> searchResults,
+            @Nullable Runnable onUpdated) {
         // Forget the expanded package every time widget list is refreshed in search mode.
         mWidgetsContentVisiblePackageUserKey = null;
-        setWidgets(searchResults);
+        if (onUpdated != null) {
+            mOnUpdatedCallbacks.add(onUpdated);
+        }
+        setWidgets(searchResults, true /* async */);
     }
 
-    private void updateVisibleEntries() {
-        // Get the current top of the header with the matching key before adjusting the visible
-        // entries.
-        OptionalInt previousPositionForPackageUserKey =
-                getPositionForPackageUserKey(mPendingClickHeader);
-        OptionalInt topForPackageUserKey =
-                getOffsetForPosition(previousPositionForPackageUserKey);
+    /**
+     * Recomputes the visible entries and dispatches the changes to the adapter.
+     *
+     * @param async if true, the entries and their diff with the current entries are computed on
+     *              a background thread and applied on the main thread when ready. Any later
+     *              update drops the pending result, while still keeping the pending header
+     *              scroll position and update callbacks, which are applied with the later result.
+     */
+    private void updateVisibleEntries(boolean async) {
+        int generation = ++mUpdateGeneration;
+        // Capture the state used to compute the entries so that it can be read off the main thread
+        List<WidgetsListBaseEntry> allEntries = mAllEntries;
+        List<WidgetsListBaseEntry> oldEntries = mVisibleEntries;
+        Predicate<WidgetsListBaseEntry> filter = mFilter;
+        PackageUserKey visibleContentKey = mWidgetsContentVisiblePackageUserKey;
+        boolean showContentEntries = mHeaderChangeListener == null;
+        int maxHorizontalSpan = mMaxHorizontalSpan;
+
+        if (!async) {
+            List<WidgetsListBaseEntry> newEntries = computeVisibleEntries(allEntries, filter,
+                    visibleContentKey, showContentEntries, maxHorizontalSpan);
+            applyVisibleEntries(newEntries, DiffUtil.calculateDiff(
+                    new WidgetsDiffCallback(oldEntries, newEntries), false));
+            return;
+        }
+
+        UI_HELPER_EXECUTOR.execute(() -> {
+            List<WidgetsListBaseEntry> newEntries = computeVisibleEntries(allEntries, filter,
+                    visibleContentKey, showContentEntries, maxHorizontalSpan);
+            DiffResult diffResult = DiffUtil.calculateDiff(
+                    new WidgetsDiffCallback(oldEntries, newEntries), false);
+            MAIN_EXECUTOR.execute(() -> {
+                if (generation == mUpdateGeneration) {
+                    applyVisibleEntries(newEntries, diffResult);
+                }
+            });
+        });
+    }
 
-        List<WidgetsListBaseEntry> newVisibleEntries = mAllEntries.stream()
-                .filter(entry -> (((mFilter == null || mFilter.test(entry))
-                        && mHeaderAndSelectedContentFilter.test(entry))
+    private static List<WidgetsListBaseEntry> computeVisibleEntries(
+            List<WidgetsListBaseEntry> allEntries,
+            @Nullable Predicate<WidgetsListBaseEntry> filter,
+            @Nullable PackageUserKey visibleContentKey,
+            boolean showContentEntries,
+            @Px int maxHorizontalSpan) {
+        return allEntries.stream()
+                .filter(entry -> (((filter == null || filter.test(entry))
+                        && (entry instanceof WidgetsListHeaderEntry
+                                || PackageUserKey.fromPackageItemInfo(entry.mPkgItem)
+                                        .equals(visibleContentKey)))
                         || entry instanceof WidgetListSpaceEntry)
-                        && (mHeaderChangeListener == null
-                        || !(entry instanceof WidgetsListContentEntry)))
+                        && (showContentEntries || !(entry instanceof WidgetsListContentEntry)))
                 .map(entry -> {
                     if (entry instanceof WidgetsListHeaderEntry
-                            && matchesKey(entry, mWidgetsContentVisiblePackageUserKey)) {
+                            && matchesKey(entry, visibleContentKey)) {
                         // Adjust the original entries to expand headers for the selected content.
                         return ((WidgetsListHeaderEntry) entry).withWidgetListShown();
                     } else if (entry instanceof WidgetsListContentEntry) {
                         // Adjust the original content entries to accommodate for the current
                         // maxSpanSize.
                         return ((WidgetsListContentEntry) entry).withMaxSpanSize(
-                                mMaxHorizontalSpan);
+                                maxHorizontalSpan);
                     }
                     return entry;
                 })
                 .collect(Collectors.toList());
+    }
+
+    private void applyVisibleEntries(
+            List<WidgetsListBaseEntry> newEntries, DiffResult diffResult) {
+        // Get the current top of the header with the matching key before adjusting the visible
+        // entries.
+        OptionalInt previousPositionForPackageUserKey =
+                getPositionForPackageUserKey(mPendingClickHeader);
+        OptionalInt topForPackageUserKey =
+                getOffsetForPosition(previousPositionForPackageUserKey);
 
-        DiffResult diffResult = DiffUtil.calculateDiff(
-                new WidgetsDiffCallback(mVisibleEntries, newVisibleEntries), false);
-        mVisibleEntries.clear();
-        mVisibleEntries.addAll(newVisibleEntries);
+        mVisibleEntries = newEntries;
         diffResult.dispatchUpdatesTo(this);
 
         if (mPendingClickHeader != null) {
@@ -226,6 +289,12 @@ public class WidgetsListAdapter extends Adapter<ViewHolder> implements OnHeaderC
             scrollToPositionAndMaintainOffset(positionForPackageUserKey, topForPackageUserKey);
             mPendingClickHeader = null;
         }
+
+        if (!mOnUpdatedCallbacks.isEmpty()) {
+            ArrayList<Runnable> callbacks = new ArrayList<>(mOnUpdatedCallbacks);
+            mOnUpdatedCallbacks.clear();
+            callbacks.forEach(Runnable::run);
+        }
     }
 
     /** Returns whether {@code entry} matches {@code key}. */
@@ -248,7 +317,7 @@ public class WidgetsListAdapter extends Adapter<ViewHolder> implements OnHeaderC
     public void resetExpandedHeader() {
         if (mWidgetsContentVisiblePackageUserKey != null) {
             mWidgetsContentVisiblePackageUserKey = null;
-            updateVisibleEntries();
+            updateVisibleEntries(true /* async */);
         }
     }
 
@@ -344,7 +413,7 @@ public class WidgetsListAdapter extends Adapter<ViewHolder> implements OnHeaderC
         // we update the entries.
         mPendingClickHeader = packageUserKey;
 
-        updateVisibleEntries();
+        updateVisibleEntries(true /* async */);
 
         if (mHeaderChangeListener != null && mWidgetsContentVisiblePackageUserKey != null) {
             mHeaderChangeListener.onHeaderChanged(mWidgetsContentVisiblePackageUserKey);
@@ -419,7 +488,7 @@ public class WidgetsListAdapter extends Adapter<ViewHolder> implements OnHeaderC
      */
     public void setMaxHorizontalSpansPxPerRow(@Px int maxHorizontalSpan) {
         mMaxHorizontalSpan = maxHorizontalSpan;
-        updateVisibleEntries();
+        updateVisibleEntries(true /* async */);
     }
 
     /**
@@ -21,10 +21,9 @@ import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.model.BgDataModel.Callbacks;
 import com.android.launcher3.util.ComponentKey;
-import com.android.launcher3.widget.model.WidgetsListBaseEntry;
+import com.android.launcher3.widget.model.WidgetsIndex;
 
 import java.util.HashMap;
-import java.util.List;
 
 /**
  * Binds the results of {@link com.android.launcher3.model.LoaderTask} to the Callbacks objects.
@@ -47,8 +46,7 @@ public class LauncherBinder extends BaseLauncherBinder {
 
     @Override
     public void bindWidgets() {
-        final List<WidgetsListBaseEntry> widgets =
-                mBgDataModel.widgetsModel.getWidgetsListForPicker(mApp.getContext());
+        final WidgetsIndex widgets = mBgDataModel.widgetsModel.getWidgetsIndex();
         executeCallbacksTask(c -> c.bindAllWidgets(widgets), mUiExecutor);
     }
 }
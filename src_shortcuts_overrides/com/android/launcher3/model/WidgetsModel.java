@@ -4,10 +4,9 @@ package com.android.launcher3.model;
 import static android.appwidget.AppWidgetProviderInfo.WIDGET_FEATURE_HIDE_FROM_PICKER;
 
 import static com.android.launcher3.pm.ShortcutConfigActivityInfo.queryList;
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
 import static com.android.launcher3.widget.WidgetSections.NO_CATEGORY;
 
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 
 import android.appwidget.AppWidgetProviderInfo;
@@ -16,8 +15,8 @@ import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.UserHandle;
 import android.util.Log;
-import android.util.Pair;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.collection.ArrayMap;
 
@@ -37,18 +36,18 @@ import com.android.launcher3.util.Preconditions;
 import com.android.launcher3.widget.LauncherAppWidgetProviderInfo;
 import com.android.launcher3.widget.WidgetManagerHelper;
 import com.android.launcher3.widget.WidgetSections;
+import com.android.launcher3.widget.model.WidgetsIndex;
 import com.android.launcher3.widget.model.WidgetsListBaseEntry;
 import com.android.launcher3.widget.model.WidgetsListContentEntry;
 import com.android.launcher3.widget.model.WidgetsListHeaderEntry;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -66,48 +65,48 @@ public class WidgetsModel {
     private static final String TAG = "WidgetsModel";
     private static final boolean DEBUG = false;
 
-    /* Map of widgets and shortcuts that are tracked per package. */
-    private final Map<PackageItemInfo, List<WidgetItem>> mWidgetsList = new HashMap<>();
+    /* Widgets and shortcuts of each provider package. */
+    private final Map<PackageUserKey, PackageWidgets> mPackages = new HashMap<>();
+
+    @Nullable
+    private LauncherAppState mApp;
+
+    /* Index of mPackages bound to the UI, created again after any change. */
+    @Nullable
+    private WidgetsIndex mIndex;
 
     /**
-     * Returns a list of {@link WidgetsListBaseEntry}. All {@link WidgetItem} in a single row
-     * are sorted (based on label and user), but the overall list of
-     * {@link WidgetsListBaseEntry}s is not sorted.
-     *
-     * @see com.android.launcher3.widget.picker.WidgetsListAdapter#setWidgets(List)
+     * Returns an index of the current widgets and shortcuts, to bind to the UI. The items of a new
+     * index are created on the model thread once the current task is done, so that the UI finds
+     * them ready instead of creating them on the main thread.
      */
-    public synchronized ArrayList<WidgetsListBaseEntry> getWidgetsListForPicker(Context context) {
-        ArrayList<WidgetsListBaseEntry> result = new ArrayList<>();
-        AlphabeticIndexCompat indexer = new AlphabeticIndexCompat(context);
-
-        for (Map.Entry<PackageItemInfo, List<WidgetItem>> entry : mWidgetsList.entrySet()) {
-            PackageItemInfo pkgItem = entry.getKey();
-            List<WidgetItem> widgetItems = entry.getValue();
-            String sectionName = (pkgItem.title == null) ? "" :
-                    indexer.computeSectionName(pkgItem.title);
-            result.add(WidgetsListHeaderEntry.create(pkgItem, sectionName, widgetItems));
-            result.add(new WidgetsListContentEntry(pkgItem, sectionName, widgetItems));
+    public synchronized WidgetsIndex getWidgetsIndex() {
+        if (mApp == null) {
+            return WidgetsIndex.EMPTY;
+        }
+        if (mIndex == null) {
+            Index index = new Index(mApp, new HashMap<>(mPackages));
+            MODEL_EXECUTOR.post(index::createAllItems);
+            mIndex = index;
         }
-        return result;
+        return mIndex;
     }
 
-    /** Returns a mapping of packages to their widgets without static shortcuts. */
-    public synchronized Map<PackageUserKey, List<WidgetItem>> getAllWidgetsWithoutShortcuts() {
-        Map<PackageUserKey, List<WidgetItem>> packagesToWidgets = new HashMap<>();
-        mWidgetsList.forEach((packageItemInfo, widgetsAndShortcuts) -> {
-            List<WidgetItem> widgets = widgetsAndShortcuts.stream()
-                        .filter(item -> item.widgetInfo != null)
-                        .collect(toList());
-            if (widgets.size() > 0) {
-                packagesToWidgets.put(
-                        new PackageUserKey(packageItemInfo.packageName, packageItemInfo.user),
-                        widgets);
-            }
-        });
-        return packagesToWidgets;
+    /**
+     * Returns the widgets of the package without static shortcuts, excluding the widgets which
+     * are only listed under a category.
+     */
+    public List<WidgetItem> getWidgetsWithoutShortcuts(PackageUserKey packageUser) {
+        return getWidgetsIndex().getWidgets(packageUser).stream()
+                .filter(item -> item.widgetInfo != null)
+                .collect(toList());
     }
 
     /**
+     * Reloads the index of widget and shortcut providers. {@link WidgetItem}s, which need a label
+     * lookup for every provider, are created after the loader is done, see
+     * {@link #getWidgetsIndex()}.
+     *
      * @param packageUser If null, all widgets and shortcuts are updated and returned, otherwise
      *                    only widgets and shortcuts associated with the package/user are.
      */
@@ -116,30 +115,18 @@ public class WidgetsModel {
         Preconditions.assertWorkerThread();
 
         Context context = app.getContext();
-        final ArrayList<WidgetItem> widgetsAndShortcuts = new ArrayList<>();
         List<ComponentWithLabelAndIcon> updatedItems = new ArrayList<>();
         try {
-            InvariantDeviceProfile idp = app.getInvariantDeviceProfile();
-            PackageManager pm = app.getContext().getPackageManager();
-
             // Widgets
             WidgetManagerHelper widgetManager = new WidgetManagerHelper(context);
             for (AppWidgetProviderInfo widgetInfo : widgetManager.getAllProviders(packageUser)) {
-                LauncherAppWidgetProviderInfo launcherWidgetInfo =
-                        LauncherAppWidgetProviderInfo.fromProviderInfo(context, widgetInfo);
-
-                widgetsAndShortcuts.add(new WidgetItem(
-                        launcherWidgetInfo, idp, app.getIconCache()));
-                updatedItems.add(launcherWidgetInfo);
+                updatedItems.add(LauncherAppWidgetProviderInfo.fromProviderInfo(context,
+                        widgetInfo));
             }
 
             // Shortcuts
-            for (ShortcutConfigActivityInfo info :
-                    queryList(context, packageUser)) {
-                widgetsAndShortcuts.add(new WidgetItem(info, app.getIconCache(), pm));
-                updatedItems.add(info);
-            }
-            setWidgetsAndShortcuts(widgetsAndShortcuts, app, packageUser);
+            updatedItems.addAll(queryList(context, packageUser));
+            setProviders(updatedItems, app, packageUser);
         } catch (Exception e) {
             if (!FeatureFlags.IS_STUDIO_BUILD && Utilities.isBinderSizeError(e)) {
                 // the returned value may be incomplete and will not be refreshed until the next
@@ -154,69 +141,56 @@ public class WidgetsModel {
         return updatedItems;
     }
 
-    private synchronized void setWidgetsAndShortcuts(ArrayList<WidgetItem> rawWidgetsShortcuts,
+    private synchronized void setProviders(List<ComponentWithLabelAndIcon> providers,
             LauncherAppState app, @Nullable PackageUserKey packageUser) {
         if (DEBUG) {
-            Log.d(TAG, "addWidgetsAndShortcuts, widgetsShortcuts#=" + rawWidgetsShortcuts.size());
+            Log.d(TAG, "setProviders, providers#=" + providers.size());
         }
-
-        // Temporary cache for {@link PackageItemInfos} to avoid having to go through
-        // {@link mPackageItemInfos} to locate the key to be used for {@link #mWidgetsList}
-        PackageItemInfoCache packageItemInfoCache = new PackageItemInfoCache();
+        mApp = app;
+        mIndex = null;
 
         if (packageUser == null) {
-            // Clear the list if this is an update on all widgets and shortcuts.
-            mWidgetsList.clear();
+            // Clear everything if this is an update on all widgets and shortcuts.
+            mPackages.clear();
         } else {
             // Otherwise, only clear the widgets and shortcuts for the changed package.
-            mWidgetsList.remove(packageItemInfoCache.getOrCreate(packageUser));
+            mPackages.remove(packageUser);
         }
 
-        // add and update.
-        mWidgetsList.putAll(rawWidgetsShortcuts.stream()
-                .filter(new WidgetValidityCheck(app))
-                .flatMap(widgetItem -> getPackageUserKeys(app.getContext(), widgetItem).stream()
-                        .map(key -> new Pair<>(packageItemInfoCache.getOrCreate(key), widgetItem)))
-                .collect(groupingBy(pair -> pair.first, mapping(pair -> pair.second, toList()))));
-
-        // Update each package entry
-        IconCache iconCache = app.getIconCache();
-        for (PackageItemInfo p : packageItemInfoCache.values()) {
-            iconCache.getTitleAndIconForApp(p, true /* userLowResIcon */);
+        Map<PackageUserKey, List<ComponentWithLabelAndIcon>> packageProviders = new HashMap<>();
+        WidgetValidityCheck validityCheck = new WidgetValidityCheck(app);
+        for (ComponentWithLabelAndIcon provider : providers) {
+            if (validityCheck.test(provider)) {
+                packageProviders.computeIfAbsent(
+                        new PackageUserKey(provider.getComponent().getPackageName(),
+                                provider.getUser()),
+                        k -> new ArrayList<>()).add(provider);
+            }
         }
+        packageProviders.forEach((key, list) -> mPackages.put(key, new PackageWidgets(list)));
     }
 
-    public void onPackageIconsUpdated(Set<String> packageNames, UserHandle user,
+    public synchronized void onPackageIconsUpdated(Set<String> packageNames, UserHandle user,
             LauncherAppState app) {
-        for (Entry<PackageItemInfo, List<WidgetItem>> entry : mWidgetsList.entrySet()) {
-            if (packageNames.contains(entry.getKey().packageName)) {
-                List<WidgetItem> items = entry.getValue();
-                int count = items.size();
-                for (int i = 0; i < count; i++) {
-                    WidgetItem item = items.get(i);
-                    if (item.user.equals(user)) {
-                        if (item.activityInfo != null) {
-                            items.set(i, new WidgetItem(item.activityInfo, app.getIconCache(),
-                                    app.getContext().getPackageManager()));
-                        } else {
-                            items.set(i, new WidgetItem(item.widgetInfo,
-                                    app.getInvariantDeviceProfile(), app.getIconCache()));
-                        }
-                    }
-                }
+        // Replace the widgets of the updated packages, their items are created again with the
+        // new labels on next access. Bound indexes keep the previous items until rebound.
+        for (Map.Entry<PackageUserKey, PackageWidgets> entry : mPackages.entrySet()) {
+            PackageUserKey key = entry.getKey();
+            if (packageNames.contains(key.mPackageName) && key.mUser.equals(user)) {
+                entry.setValue(new PackageWidgets(entry.getValue().providers));
+                mIndex = null;
             }
         }
     }
 
-    public WidgetItem getWidgetProviderInfoByProviderName(
+    public synchronized WidgetItem getWidgetProviderInfoByProviderName(
             ComponentName providerName, UserHandle user) {
-        List<WidgetItem> widgetsList = mWidgetsList.get(
-                new PackageItemInfo(providerName.getPackageName(), user));
-        if (widgetsList == null) {
+        PackageWidgets packageWidgets =
+                mPackages.get(new PackageUserKey(providerName.getPackageName(), user));
+        if (packageWidgets == null || mApp == null) {
             return null;
         }
-
-        for (WidgetItem item : widgetsList) {
+        for (WidgetItem item : packageWidgets.getItems(mApp)) {
             if (item.componentName.equals(providerName)) {
                 return item;
             }
@@ -240,7 +214,7 @@ public class WidgetsModel {
         return new PackageItemInfo(provider.getPackageName(), user);
     }
 
-    private List<PackageUserKey> getPackageUserKeys(Context context, WidgetItem item) {
+    private static List<PackageUserKey> getPackageUserKeys(Context context, WidgetItem item) {
         Map<ComponentName, IntSet> widgetsToCategories =
                 WidgetSections.getWidgetsToCategory(context);
         IntSet categories = widgetsToCategories.get(item.componentName);
@@ -261,7 +235,7 @@ public class WidgetsModel {
         return packageUserKeys;
     }
 
-    private static class WidgetValidityCheck implements Predicate<WidgetItem> {
+    private static class WidgetValidityCheck implements Predicate<ComponentWithLabelAndIcon> {
 
         private final InvariantDeviceProfile mIdp;
         private final AppFilter mAppFilter;
@@ -272,27 +246,28 @@ public class WidgetsModel {
         }
 
         @Override
-        public boolean test(WidgetItem item) {
-            if (item.widgetInfo != null) {
-                if ((item.widgetInfo.getWidgetFeatures() & WIDGET_FEATURE_HIDE_FROM_PICKER) != 0) {
+        public boolean test(ComponentWithLabelAndIcon provider) {
+            if (provider instanceof LauncherAppWidgetProviderInfo) {
+                LauncherAppWidgetProviderInfo widgetInfo = (LauncherAppWidgetProviderInfo) provider;
+                if ((widgetInfo.getWidgetFeatures() & WIDGET_FEATURE_HIDE_FROM_PICKER) != 0) {
                     // Widget is hidden from picker
                     return false;
                 }
 
                 // Ensure that all widgets we show can be added on a workspace of this size
-                if (!item.widgetInfo.isMinSizeFulfilled()) {
+                if (!widgetInfo.isMinSizeFulfilled()) {
                     if (DEBUG) {
                         Log.d(TAG, String.format(
                                 "Widget %s : can't fit on this device with a grid size: %dx%d",
-                                item.componentName, mIdp.numColumns, mIdp.numRows));
+                                provider.getComponent(), mIdp.numColumns, mIdp.numRows));
                     }
                     return false;
                 }
             }
-            if (!mAppFilter.shouldShowApp(item.componentName)) {
+            if (!mAppFilter.shouldShowApp(provider.getComponent())) {
                 if (DEBUG) {
                     Log.d(TAG, String.format("%s is filtered and not added to the widget tray.",
-                            item.componentName));
+                            provider.getComponent()));
                 }
                 return false;
             }
@@ -301,21 +276,116 @@ public class WidgetsModel {
         }
     }
 
-    private static final class PackageItemInfoCache {
-        private final Map<PackageUserKey, PackageItemInfo> mMap = new ArrayMap<>();
+    /**
+     * The widget and shortcut providers of a package, and their {@link WidgetItem}s once created
+     */
+    private static final class PackageWidgets {
+
+        final List<ComponentWithLabelAndIcon> providers;
+
+        @Nullable
+        private List<WidgetItem> mItems;
 
-        PackageItemInfo getOrCreate(PackageUserKey key) {
-            PackageItemInfo pInfo = mMap.get(key);
-            if (pInfo == null) {
-                pInfo = new PackageItemInfo(key.mPackageName, key.mWidgetCategory, key.mUser);
-                pInfo.user = key.mUser;
-                mMap.put(key,  pInfo);
+        PackageWidgets(List<ComponentWithLabelAndIcon> providers) {
+            this.providers = providers;
+        }
+
+        synchronized List<WidgetItem> getItems(LauncherAppState app) {
+            if (mItems != null) {
+                return mItems;
             }
-            return pInfo;
+            InvariantDeviceProfile idp = app.getInvariantDeviceProfile();
+            IconCache iconCache = app.getIconCache();
+            PackageManager pm = app.getContext().getPackageManager();
+            List<WidgetItem> items = new ArrayList<>(providers.size());
+            for (ComponentWithLabelAndIcon provider : providers) {
+                if (provider instanceof LauncherAppWidgetProviderInfo) {
+                    items.add(new WidgetItem(
+                            (LauncherAppWidgetProviderInfo) provider, idp, iconCache));
+                } else {
+                    items.add(new WidgetItem(
+                            (ShortcutConfigActivityInfo) provider, iconCache, pm));
+                }
+            }
+            mItems = Collections.unmodifiableList(items);
+            return mItems;
+        }
+    }
+
+    /**
+     * An immutable index of the widgets and shortcuts of each package. The {@link WidgetItem}s of
+     * a package are created once, by {@link #createAllItems()} or by the first access.
+     */
+    private static final class Index implements WidgetsIndex {
+
+        private final LauncherAppState mApp;
+        private final Map<PackageUserKey, PackageWidgets> mPackages;
+
+        @Nullable
+        private List<WidgetsListBaseEntry> mPickerEntries;
+
+        Index(LauncherAppState app, Map<PackageUserKey, PackageWidgets> packages) {
+            mApp = app;
+            mPackages = packages;
+        }
+
+        @NonNull
+        @Override
+        public List<WidgetItem> getWidgets(@NonNull PackageUserKey packageUser) {
+            PackageWidgets packageWidgets = mPackages.get(packageUser);
+            if (packageWidgets == null) {
+                return Collections.emptyList();
+            }
+            Context context = mApp.getContext();
+            return packageWidgets.getItems(mApp).stream()
+                    .filter(item -> getPackageUserKeys(context, item).contains(packageUser))
+                    .collect(toList());
         }
 
-        Collection<PackageItemInfo> values() {
-            return mMap.values();
+        @Override
+        public void createAllItems() {
+            getWidgetsListForPicker();
+        }
+
+        @NonNull
+        @Override
+        public synchronized List<WidgetsListBaseEntry> getWidgetsListForPicker() {
+            if (mPickerEntries != null) {
+                return mPickerEntries;
+            }
+            Context context = mApp.getContext();
+            // Group the widgets and shortcuts by their package or category header
+            Map<PackageUserKey, PackageItemInfo> headers = new ArrayMap<>();
+            Map<PackageItemInfo, List<WidgetItem>> widgetsList = new HashMap<>();
+            IconCache iconCache = mApp.getIconCache();
+            for (PackageWidgets packageWidgets : mPackages.values()) {
+                for (WidgetItem item : packageWidgets.getItems(mApp)) {
+                    for (PackageUserKey key : getPackageUserKeys(context, item)) {
+                        PackageItemInfo pInfo = headers.get(key);
+                        if (pInfo == null) {
+                            pInfo = new PackageItemInfo(
+                                    key.mPackageName, key.mWidgetCategory, key.mUser);
+                            pInfo.user = key.mUser;
+                            iconCache.getTitleAndIconForApp(pInfo, true /* userLowResIcon */);
+                            headers.put(key, pInfo);
+                        }
+                        widgetsList.computeIfAbsent(pInfo, k -> new ArrayList<>()).add(item);
+                    }
+                }
+            }
+
+            ArrayList<WidgetsListBaseEntry> result = new ArrayList<>();
+            AlphabeticIndexCompat indexer = new AlphabeticIndexCompat(context);
+            for (Map.Entry<PackageItemInfo, List<WidgetItem>> entry : widgetsList.entrySet()) {
+                PackageItemInfo pkgItem = entry.getKey();
+                List<WidgetItem> widgetItems = entry.getValue();
+                String sectionName = (pkgItem.title == null) ? "" :
+                        indexer.computeSectionName(pkgItem.title);
+                result.add(WidgetsListHeaderEntry.create(pkgItem, sectionName, widgetItems));
+                result.add(new WidgetsListContentEntry(pkgItem, sectionName, widgetItems));
+            }
+            mPickerEntries = Collections.unmodifiableList(result);
+            return mPickerEntries;
         }
     }
-}
\ No newline at end of file
+}
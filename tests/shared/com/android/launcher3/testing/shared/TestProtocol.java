@@ -141,6 +141,9 @@ public final class TestProtocol {
     public static final String REQUEST_ENABLE_ROTATION = "enable_rotation";
     public static final String REQUEST_ENABLE_SUGGESTION = "enable-suggestion";
     public static final String REQUEST_MODEL_QUEUE_CLEARED = "model-queue-cleared";
+    public static final String REQUEST_START_BINDER_ACCOUNTING = "start-binder-accounting";
+    public static final String REQUEST_STOP_BINDER_ACCOUNTING = "stop-binder-accounting";
+    public static final String REQUEST_BINDER_ACCOUNTING_SNAPSHOT = "binder-accounting-snapshot";
 
     public static boolean sDebugTracing = false;
     public static final String REQUEST_ENABLE_DEBUG_TRACING = "enable-debug-tracing";
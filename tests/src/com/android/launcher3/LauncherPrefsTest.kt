@@ -183,6 +183,69 @@ class LauncherPrefsTest {
         }
     }
 
+    @Test
+    fun putBuffered_valueIsVisibleBeforeFlush() {
+        val notDefaultValue = !TEST_BOOLEAN_ITEM.defaultValue
+
+        with(launcherPrefs) {
+            putBuffered(TEST_BOOLEAN_ITEM, notDefaultValue)
+            assertThat(get(TEST_BOOLEAN_ITEM)).isEqualTo(notDefaultValue)
+            assertThat(has(TEST_BOOLEAN_ITEM)).isTrue()
+            remove(TEST_BOOLEAN_ITEM)
+        }
+    }
+
+    @Test
+    fun putBuffered_multipleUpdates_flushesLatestValue() {
+        val latch = CountDownLatch(1)
+        val listener = OnSharedPreferenceChangeListener { _, _ -> latch.countDown() }
+
+        with(launcherPrefs) {
+            addListener(listener, TEST_INT_ITEM)
+            putBuffered(TEST_INT_ITEM, 1)
+            putBuffered(TEST_INT_ITEM, 2)
+            flushPendingWrites()
+
+            assertThat(latch.await(WAIT_TIME_IN_SECONDS, TimeUnit.SECONDS)).isTrue()
+            assertThat(
+                    context
+                        .getSharedPreferences(TEST_INT_ITEM.sharedPrefFile, Context.MODE_PRIVATE)
+                        .getInt(TEST_INT_ITEM.sharedPrefKey, TEST_INT_ITEM.defaultValue)
+                )
+                .isEqualTo(2)
+            removeListener(listener, TEST_INT_ITEM)
+            remove(TEST_INT_ITEM)
+        }
+    }
+
+    @Test
+    fun flushPendingWrites_valueIsVisibleAfterFlush() {
+        val notDefaultValue = TEST_INT_ITEM.defaultValue + 1
+
+        with(launcherPrefs) {
+            putBuffered(TEST_INT_ITEM, notDefaultValue)
+            flushPendingWrites()
+            assertThat(get(TEST_INT_ITEM)).isEqualTo(notDefaultValue)
+            assertThat(
+                    context
+                        .getSharedPreferences(TEST_INT_ITEM.sharedPrefFile, Context.MODE_PRIVATE)
+                        .getInt(TEST_INT_ITEM.sharedPrefKey, TEST_INT_ITEM.defaultValue)
+                )
+                .isEqualTo(notDefaultValue)
+            remove(TEST_INT_ITEM)
+        }
+    }
+
+    @Test
+    fun remove_afterPutBuffered_dropsPendingValue() {
+        with(launcherPrefs) {
+            putBuffered(TEST_INT_ITEM, TEST_INT_ITEM.defaultValue + 1)
+            remove(TEST_INT_ITEM)
+            flushPendingWrites()
+            assertThat(get(TEST_INT_ITEM)).isEqualTo(TEST_INT_ITEM.defaultValue)
+        }
+    }
+
     @Test
     fun get_contextualItem_returnsCorrectDefault() {
         assertThat(launcherPrefs.get(TEST_CONTEXTUAL_ITEM)).isTrue()
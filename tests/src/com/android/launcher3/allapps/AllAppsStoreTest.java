@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.allapps;
+
+import static com.android.launcher3.model.data.ItemInfoWithIcon.FLAG_INSTALL_SESSION_ACTIVE;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentName;
+import android.os.Process;
+import android.view.ViewGroup;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.BubbleTextView;
+import com.android.launcher3.model.data.AppInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Unit tests for the icon index in {@link AllAppsStore}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AllAppsStoreTest {
+
+    private AllAppsStore mStore;
+    private ViewGroup mContainer;
+    private AppInfo mApp1;
+    private AppInfo mApp2;
+
+    @Before
+    public void setUp() {
+        mStore = new AllAppsStore();
+        mContainer = mock(ViewGroup.class);
+        mStore.registerIconContainer(mContainer);
+        mApp1 = createApp("com.example.app1");
+        mApp2 = createApp("com.example.app2");
+    }
+
+    @Test
+    public void updateProgressBar_onlyUpdatesIconsBoundToApp() {
+        BubbleTextView icon1 = createBoundIcon(mApp1);
+        BubbleTextView icon2 = createBoundIcon(mApp2);
+
+        mStore.updateProgressBar(mApp1);
+
+        verify(icon1).applyProgressLevel();
+        verify(icon2, never()).applyProgressLevel();
+    }
+
+    @Test
+    public void updateProgressBar_skipsUnboundIcons() {
+        BubbleTextView icon = createBoundIcon(mApp1);
+        mStore.onIconUnbound(icon);
+
+        mStore.updateProgressBar(mApp1);
+
+        verify(icon, never()).applyProgressLevel();
+    }
+
+    @Test
+    public void updateProgressBar_skipsIconsReboundWithoutNotifying() {
+        BubbleTextView icon = createBoundIcon(mApp1);
+        when(icon.getTag()).thenReturn(mApp2);
+
+        mStore.updateProgressBar(mApp1);
+
+        verify(icon, never()).applyProgressLevel();
+    }
+
+    @Test
+    public void updateProgressBar_skipsIconsOutsideRegisteredContainers() {
+        BubbleTextView icon = createBoundIcon(mApp1);
+        mStore.unregisterIconContainer(mContainer);
+
+        mStore.updateProgressBar(mApp1);
+
+        verify(icon, never()).applyProgressLevel();
+    }
+
+    @Test
+    public void updateNotificationDots_onlyUpdatesMatchingPackages() {
+        BubbleTextView icon1 = createBoundIcon(mApp1);
+        BubbleTextView icon2 = createBoundIcon(mApp2);
+
+        mStore.updateNotificationDots(
+                key -> key.mPackageName.equals(mApp2.componentName.getPackageName()));
+
+        verify(icon1, never()).applyDotState(mApp1, true);
+        verify(icon2).applyDotState(mApp2, true);
+    }
+
+    private BubbleTextView createBoundIcon(AppInfo app) {
+        BubbleTextView icon = mock(BubbleTextView.class);
+        when(icon.getTag()).thenReturn(app);
+        when(icon.getParent()).thenReturn(mContainer);
+        mStore.onIconBound(icon);
+        return icon;
+    }
+
+    private static AppInfo createApp(String packageName) {
+        AppInfo app = new AppInfo();
+        app.componentName = new ComponentName(packageName, packageName + ".Main");
+        app.user = Process.myUserHandle();
+        app.runtimeStatusFlags |= FLAG_INSTALL_SESSION_ACTIVE;
+        return app;
+    }
+}
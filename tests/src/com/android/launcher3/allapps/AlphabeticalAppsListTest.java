@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.allapps;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import android.content.ComponentName;
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.allapps.BaseAllAppsAdapter.AdapterItem;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.ActivityContextWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Unit tests for the incremental sort and background diff in {@link AlphabeticalAppsList}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AlphabeticalAppsListTest {
+
+    private AllAppsStore mStore;
+    private AlphabeticalAppsList<ActivityContextWrapper> mAppsList;
+
+    @Before
+    public void setUp() throws Exception {
+        mStore = new AllAppsStore();
+        mAppsList = onMain(() -> new AlphabeticalAppsList<>(
+                new ActivityContextWrapper(getApplicationContext()), mStore, null));
+    }
+
+    @Test
+    public void setApps_sortsByTitle() throws Exception {
+        setApps(createApp("Cherry"), createApp("Apple"), createApp("Banana"));
+
+        assertEquals(Arrays.asList("Apple", "Banana", "Cherry"), getTitles());
+    }
+
+    @Test
+    public void setApps_newApp_mergedInOrder() throws Exception {
+        AppInfo apple = createApp("Apple");
+        AppInfo cherry = createApp("Cherry");
+        setApps(cherry, apple);
+
+        setApps(cherry, apple, createApp("Banana"), createApp("Date"));
+
+        assertEquals(Arrays.asList("Apple", "Banana", "Cherry", "Date"), getTitles());
+    }
+
+    @Test
+    public void setApps_removedApp_droppedFromList() throws Exception {
+        AppInfo apple = createApp("Apple");
+        AppInfo banana = createApp("Banana");
+        AppInfo cherry = createApp("Cherry");
+        setApps(apple, banana, cherry);
+
+        setApps(apple, cherry);
+
+        assertEquals(Arrays.asList("Apple", "Cherry"), getTitles());
+    }
+
+    @Test
+    public void setApps_renamedApp_resorted() throws Exception {
+        AppInfo apple = createApp("Apple");
+        AppInfo banana = createApp("Banana");
+        AppInfo cherry = createApp("Cherry");
+        setApps(apple, banana, cherry);
+
+        cherry.title = "Aardvark";
+        cherry.sectionName = "A";
+        setApps(apple, banana, cherry);
+
+        assertEquals(Arrays.asList("Aardvark", "Apple", "Banana"), getTitles());
+    }
+
+    @Test
+    public void onAppsUpdated_withAdapter_appliesDiffInBackground() throws Exception {
+        mAppsList.setAdapter(mock(BaseAllAppsAdapter.class));
+        AppInfo apple = createApp("Apple");
+        setApps(apple);
+
+        List<String> titlesBeforeDiff = onMain(() -> {
+            mStore.setApps(new AppInfo[] {apple, createApp("Banana")}, 0);
+            return getTitles();
+        });
+        waitForPendingDiff();
+
+        assertEquals(Arrays.asList("Apple"), titlesBeforeDiff);
+        assertEquals(Arrays.asList("Apple", "Banana"), getTitles());
+    }
+
+    @Test
+    public void onAppsUpdated_laterUpdate_dropsStaleDiff() throws Exception {
+        mAppsList.setAdapter(mock(BaseAllAppsAdapter.class));
+        AppInfo apple = createApp("Apple");
+        AppInfo banana = createApp("Banana");
+        setApps(apple);
+
+        onMain(() -> {
+            mStore.setApps(new AppInfo[] {apple, banana}, 0);
+            // Filter changes update the items synchronously, so the pending diff is outdated
+            mAppsList.updateItemFilter(info -> info != banana);
+            return null;
+        });
+        waitForPendingDiff();
+
+        assertEquals(Arrays.asList("Apple"), getTitles());
+    }
+
+    private void setApps(AppInfo... apps) throws Exception {
+        onMain(() -> {
+            mStore.setApps(apps, 0);
+            return null;
+        });
+        waitForPendingDiff();
+    }
+
+    private List<String> getTitles() {
+        List<String> titles = new ArrayList<>();
+        for (AdapterItem item : mAppsList.getAdapterItems()) {
+            titles.add(item.itemInfo.title.toString());
+        }
+        return titles;
+    }
+
+    private static void waitForPendingDiff() throws Exception {
+        UI_HELPER_EXECUTOR.submit(() -> { }).get();
+        MAIN_EXECUTOR.submit(() -> { }).get();
+    }
+
+    private static <V> V onMain(Callable<V> callable) throws Exception {
+        return MAIN_EXECUTOR.submit(callable).get();
+    }
+
+    private static AppInfo createApp(String title) {
+        AppInfo info = new AppInfo();
+        info.title = title;
+        info.sectionName = title.substring(0, 1);
+        info.componentName = new ComponentName("com.example." + title.toLowerCase(), "Main");
+        info.user = Process.myUserHandle();
+        return info;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.anim;
+
+import static com.android.launcher3.anim.Interpolators.ACCEL_DEACCEL;
+import static com.android.launcher3.anim.Interpolators.LINEAR;
+
+import static org.junit.Assert.assertEquals;
+
+import android.animation.AnimatorSet;
+import android.animation.ObjectAnimator;
+import android.util.FloatProperty;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.anim.AnimatorPlaybackController.FloatTracks;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+/**
+ * Tests for {@link AnimatorPlaybackController}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AnimatorPlaybackControllerTest {
+
+    private static final long DURATION = 1000;
+
+    private static final FloatProperty<float[]> VALUE = new FloatProperty<float[]>("value") {
+        @Override
+        public void setValue(float[] target, float value) {
+            target[0] = value;
+        }
+
+        @Override
+        public Float get(float[] target) {
+            return target[0];
+        }
+    };
+
+    @Test
+    public void floatTracksMatchObjectAnimators() {
+        float[] animatorTarget = new float[1];
+        ObjectAnimator animator = ObjectAnimator.ofFloat(animatorTarget, VALUE, 10, 50);
+        animator.setInterpolator(ACCEL_DEACCEL);
+        animator.setDuration(DURATION);
+
+        float[] trackTarget = new float[1];
+        FloatTracks tracks = new FloatTracks(1);
+        tracks.add(trackTarget, VALUE, 10, 50, ACCEL_DEACCEL, 1);
+
+        for (float progress = 0; progress <= 1; progress += 0.125f) {
+            animator.setCurrentFraction(progress);
+            tracks.setProgress(progress);
+            assertEquals(animatorTarget[0], trackTarget[0], 0.001f);
+        }
+    }
+
+    @Test
+    public void controllerAppliesFloatTracks() {
+        float[] target = new float[1];
+        FloatTracks tracks = new FloatTracks(1);
+        tracks.add(target, VALUE, 0, 100, LINEAR, 0.5f);
+        AnimatorPlaybackController controller = new AnimatorPlaybackController(
+                new AnimatorSet(), DURATION, new ArrayList<>(), tracks);
+
+        controller.setPlayFraction(0.25f);
+        assertEquals(50, target[0], 0.001f);
+        // The track ends half way through the controller
+        controller.setPlayFraction(0.75f);
+        assertEquals(100, target[0], 0.001f);
+    }
+
+    @Test
+    public void pauseRestoresFloatTrackInterpolators() {
+        float[] target = new float[1];
+        ObjectAnimator animator = ObjectAnimator.ofFloat(new float[1], VALUE, 0, 100);
+        animator.setInterpolator(ACCEL_DEACCEL);
+        animator.setDuration(DURATION);
+        AnimatorSet anim = new AnimatorSet();
+        anim.play(animator);
+        FloatTracks tracks = new FloatTracks(1);
+        tracks.add(target, VALUE, 0, 100, ACCEL_DEACCEL, 1);
+        AnimatorPlaybackController controller = new AnimatorPlaybackController(
+                anim, DURATION, new ArrayList<>(), tracks);
+
+        controller.dispatchSetInterpolator(LINEAR);
+        controller.setPlayFraction(0.25f);
+        assertEquals(25, target[0], 0.001f);
+
+        controller.pause();
+        controller.setPlayFraction(0.25f);
+        assertEquals(100 * ACCEL_DEACCEL.getInterpolation(0.25f), target[0], 0.001f);
+    }
+}
@@ -27,7 +27,6 @@ import static com.android.launcher3.provider.LauncherDbUtils.tableExists;
 import static com.android.launcher3.util.LauncherModelHelper.APP_ICON;
 import static com.android.launcher3.util.LauncherModelHelper.NO__ICON;
 import static com.android.launcher3.util.LauncherModelHelper.SHORTCUT;
-import static com.android.launcher3.util.ReflectionHelpers.getField;
 import static com.android.launcher3.util.ReflectionHelpers.setField;
 
 import static org.junit.Assert.assertEquals;
@@ -41,7 +40,6 @@ import android.content.pm.PackageInstaller;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.os.UserHandle;
-import android.util.ArrayMap;
 import android.util.LongSparseArray;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
@@ -111,18 +109,10 @@ public class BackupRestoreTest {
     }
 
     private void setupUserManager() {
-        UserCache cache = UserCache.INSTANCE.get(mModelHelper.sandboxContext);
-        synchronized (cache) {
-            LongSparseArray<UserHandle> users = getField(cache, "mUsers");
-            users.clear();
-            users.put(mCurrentMyProfileId, myUserHandle());
-            users.put(mCurrentWorkProfileId, mWorkUserHandle);
-
-            ArrayMap<UserHandle, Long> userMap = getField(cache, "mUserToSerialMap");
-            userMap.clear();
-            userMap.put(myUserHandle(), mCurrentMyProfileId);
-            userMap.put(mWorkUserHandle, mCurrentWorkProfileId);
-        }
+        LongSparseArray<UserHandle> users = new LongSparseArray<>();
+        users.put(mCurrentMyProfileId, myUserHandle());
+        users.put(mCurrentWorkProfileId, mWorkUserHandle);
+        UserCache.INSTANCE.get(mModelHelper.sandboxContext).setUsers(users);
     }
 
     private void setupBackupManager() {
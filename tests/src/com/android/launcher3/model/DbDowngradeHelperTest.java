@@ -153,6 +153,31 @@ public class DbDowngradeHelperTest {
         helper.close();
     }
 
+    @Test
+    public void testUpgrade_v31_backupTableRestored() throws Exception {
+        setupTestDb();
+
+        SQLiteOpenHelper helper = new TestOpenHelper(31);
+        // Backup of the v31 schema, without the intent columns
+        helper.getWritableDatabase().execSQL("CREATE TABLE "
+                + Favorites.HYBRID_HOTSEAT_BACKUP_TABLE + " AS SELECT * FROM favorites;");
+        helper.close();
+
+        helper = new DatabaseHelper(mContext, DB_FILE, false) {
+            @Override
+            public void onOpen(SQLiteDatabase db) { }
+        };
+        SQLiteDatabase db = helper.getWritableDatabase();
+        new GridBackupTable(mContext, db, 0, 0, 0)
+                .restoreFromCustomBackupTable(Favorites.HYBRID_HOTSEAT_BACKUP_TABLE, true);
+
+        try (Cursor c = db.query(Favorites.TABLE_NAME, null, null, null, null, null, null)) {
+            assertNotSame(-1, c.getColumnIndex(Favorites.INTENT_SOURCE));
+            assertEquals(10, c.getCount());
+        }
+        helper.close();
+    }
+
     @Test(expected = DowngradeFailException.class)
     public void testDowngrade_fail_v20() throws Exception {
         setupTestDb();
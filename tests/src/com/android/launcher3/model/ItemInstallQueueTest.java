@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.model.ItemInstallQueue.FLAG_ACTIVITY_PAUSED;
+import static com.android.launcher3.model.ItemInstallQueue.FLAG_DRAG_AND_DROP;
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import android.os.Process;
+import android.os.UserHandle;
+import android.util.Pair;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.Launcher;
+import com.android.launcher3.LauncherModel;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.util.LauncherModelHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Tests for the indexed queue and the chunked flush of {@link ItemInstallQueue}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ItemInstallQueueTest {
+
+    private static final String TEST_PACKAGE_PREFIX = "com.android.launcher3.tests.queue.";
+
+    // Number of items added to the workspace by each model task
+    private static final int CHUNK_SIZE = 32;
+
+    private LauncherModelHelper mModelHelper;
+    private ItemInstallQueue mQueue;
+    private Launcher mLauncher;
+    private UserHandle mUser;
+
+    // Packages of the items added to the model, by flushed chunk
+    private final List<List<String>> mFlushedChunks = new ArrayList<>();
+    private boolean mPauseOnFlush;
+
+    @Before
+    public void setUp() {
+        mModelHelper = new LauncherModelHelper();
+        mQueue = ItemInstallQueue.INSTANCE.get(mModelHelper.sandboxContext);
+        mUser = Process.myUserHandle();
+
+        LauncherModel model = mock(LauncherModel.class);
+        doAnswer(i -> {
+            List<String> packages = new ArrayList<>();
+            for (Pair<ItemInfo, Object> item : (List<Pair<ItemInfo, Object>>) i.getArgument(0)) {
+                packages.add(item.first.getIntent().getPackage());
+            }
+            mFlushedChunks.add(packages);
+            if (mPauseOnFlush) {
+                mQueue.pauseModelPush(FLAG_DRAG_AND_DROP);
+            }
+            return null;
+        }).when(model).addAndBindAddedWorkspaceItems(anyList());
+        mLauncher = mock(Launcher.class);
+        doReturn(model).when(mLauncher).getModel();
+        Launcher.ACTIVITY_TRACKER.handleCreate(mLauncher);
+
+        // Hold the items in the queue until the test resumes it
+        mQueue.pauseModelPush(FLAG_ACTIVITY_PAUSED);
+    }
+
+    @After
+    public void tearDown() {
+        Launcher.ACTIVITY_TRACKER.onActivityDestroyed(mLauncher);
+        mModelHelper.destroy();
+    }
+
+    @Test
+    public void queueItem_duplicate_addedOnce() throws Exception {
+        queueItems("a", "b", "a");
+
+        mQueue.resumeModelPush(FLAG_ACTIVITY_PAUSED);
+        waitForFlush(1);
+
+        assertEquals(Arrays.asList(Arrays.asList(pkg("a"), pkg("b"))), mFlushedChunks);
+    }
+
+    @Test
+    public void removeFromInstallQueue_removesItemsOfPackage() throws Exception {
+        queueItems("a", "b", "c");
+        MODEL_EXECUTOR.submit(() -> mQueue.removeFromInstallQueue(
+                new HashSet<>(Arrays.asList(pkg("b"), pkg("d"))), mUser)).get();
+
+        mQueue.resumeModelPush(FLAG_ACTIVITY_PAUSED);
+        waitForFlush(1);
+
+        assertEquals(Arrays.asList(Arrays.asList(pkg("a"), pkg("c"))), mFlushedChunks);
+    }
+
+    @Test
+    public void flush_manyItems_addedInChunks() throws Exception {
+        String[] names = createNames(2 * CHUNK_SIZE + 6);
+        queueItems(names);
+
+        mQueue.resumeModelPush(FLAG_ACTIVITY_PAUSED);
+        waitForFlush(3);
+
+        assertEquals(3, mFlushedChunks.size());
+        assertEquals(CHUNK_SIZE, mFlushedChunks.get(0).size());
+        assertEquals(CHUNK_SIZE, mFlushedChunks.get(1).size());
+        assertEquals(6, mFlushedChunks.get(2).size());
+        assertEquals(pkgs(names), getFlushedPackages());
+    }
+
+    @Test
+    public void flush_pausedDuringFlush_stopsAfterChunk() throws Exception {
+        String[] names = createNames(2 * CHUNK_SIZE + 6);
+        queueItems(names);
+        mPauseOnFlush = true;
+
+        mQueue.resumeModelPush(FLAG_ACTIVITY_PAUSED);
+        waitForFlush(3);
+
+        assertEquals(1, mFlushedChunks.size());
+        assertEquals(CHUNK_SIZE, mFlushedChunks.get(0).size());
+
+        // The remaining items are flushed once resumed
+        mPauseOnFlush = false;
+        mQueue.resumeModelPush(FLAG_DRAG_AND_DROP);
+        waitForFlush(2);
+
+        assertEquals(3, mFlushedChunks.size());
+        assertEquals(pkgs(names), getFlushedPackages());
+    }
+
+    private void queueItems(String... names) throws Exception {
+        for (String name : names) {
+            mQueue.queueItem(pkg(name), mUser);
+        }
+        // Items are added to the queue on the model thread
+        MODEL_EXECUTOR.submit(() -> { }).get();
+    }
+
+    private List<String> getFlushedPackages() {
+        List<String> packages = new ArrayList<>();
+        mFlushedChunks.forEach(packages::addAll);
+        return packages;
+    }
+
+    /**
+     * Waits for the flush of the given number of chunks, as each chunk posts the next one
+     */
+    private static void waitForFlush(int chunkCount) throws Exception {
+        for (int i = 0; i < chunkCount + 1; i++) {
+            MODEL_EXECUTOR.submit(() -> { }).get();
+        }
+    }
+
+    private static String[] createNames(int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = "app" + i;
+        }
+        return names;
+    }
+
+    private static List<String> pkgs(String... names) {
+        List<String> packages = new ArrayList<>();
+        for (String name : names) {
+            packages.add(pkg(name));
+        }
+        return packages;
+    }
+
+    private static String pkg(String name) {
+        return TEST_PACKAGE_PREFIX + name;
+    }
+}
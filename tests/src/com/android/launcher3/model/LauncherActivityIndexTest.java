@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.LauncherApps;
+import android.os.Process;
+import android.os.UserHandle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.PackageManagerHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+/**
+ * Tests for {@link LauncherActivityIndex}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class LauncherActivityIndexTest {
+
+    private static final ComponentName ACTIVITY_1 = new ComponentName("com.example", "Main");
+    private static final ComponentName ACTIVITY_2 = new ComponentName("com.example", "Other");
+    private static final ComponentName MISSING_ACTIVITY =
+            new ComponentName("com.example.missing", "Main");
+
+    private final UserHandle mUser = Process.myUserHandle();
+
+    private LauncherApps mLauncherApps;
+    private PackageManagerHelper mPmHelper;
+    private LauncherActivityInfo mActivityInfo1;
+    private LauncherActivityIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mLauncherApps = mock(LauncherApps.class);
+        mPmHelper = mock(PackageManagerHelper.class);
+        mActivityInfo1 = createActivityInfo(ACTIVITY_1);
+        doReturn(Arrays.asList(mActivityInfo1, createActivityInfo(ACTIVITY_2)))
+                .when(mLauncherApps).getActivityList(null, mUser);
+
+        mIndex = new LauncherActivityIndex(mLauncherApps, mPmHelper);
+        mIndex.addUser(mUser);
+    }
+
+    @Test
+    public void indexedTargetsDoNotUseBinderCalls() {
+        assertTrue(mIndex.isPackageEnabled(ACTIVITY_1.getPackageName(), mUser));
+        assertTrue(mIndex.isActivityEnabled(ACTIVITY_2, mUser));
+        assertSame(mActivityInfo1,
+                mIndex.resolveActivity(AppInfo.makeLaunchIntent(ACTIVITY_1), mUser));
+        Intent launchIntent = mIndex.getAppLaunchIntent(ACTIVITY_1.getPackageName(), mUser);
+        assertEquals(ACTIVITY_1, launchIntent.getComponent());
+
+        assertEquals(0, mIndex.getFallbackCount());
+        verify(mLauncherApps, never()).isPackageEnabled(any(), any());
+        verify(mLauncherApps, never()).isActivityEnabled(any(), any());
+        verify(mLauncherApps, never()).resolveActivity(any(), any());
+    }
+
+    @Test
+    public void missingTargetsFallBackToBinderCalls() {
+        doReturn(true).when(mLauncherApps)
+                .isPackageEnabled(MISSING_ACTIVITY.getPackageName(), mUser);
+
+        assertTrue(mIndex.isPackageEnabled(MISSING_ACTIVITY.getPackageName(), mUser));
+        assertFalse(mIndex.isActivityEnabled(MISSING_ACTIVITY, mUser));
+        assertEquals(2, mIndex.getFallbackCount());
+    }
+
+    private static LauncherActivityInfo createActivityInfo(ComponentName cn) {
+        LauncherActivityInfo info = mock(LauncherActivityInfo.class);
+        doReturn(cn).when(info).getComponentName();
+        return info;
+    }
+}
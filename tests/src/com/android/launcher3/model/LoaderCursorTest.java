@@ -30,6 +30,12 @@ import static com.android.launcher3.LauncherSettings.Favorites.ICON;
 import static com.android.launcher3.LauncherSettings.Favorites.ICON_PACKAGE;
 import static com.android.launcher3.LauncherSettings.Favorites.ICON_RESOURCE;
 import static com.android.launcher3.LauncherSettings.Favorites.INTENT;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_ACTION;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_CATEGORY;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_COMPONENT;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_FLAGS;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_PACKAGE;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_SOURCE;
 import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE;
 import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_APPLICATION;
 import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_SHORTCUT;
@@ -51,6 +57,7 @@ import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
 import android.content.ComponentName;
+import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.database.MatrixCursor;
@@ -64,6 +71,7 @@ import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.LauncherSettings.Favorites;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.provider.IntentColumns;
 import com.android.launcher3.util.Executors;
 import com.android.launcher3.util.LauncherModelHelper;
 import com.android.launcher3.util.PackageManagerHelper;
@@ -224,6 +232,58 @@ public class LoaderCursorTest {
                 newItemInfo(3, 3, 1, 1, CONTAINER_HOTSEAT, 3)));
     }
 
+    @Test
+    public void parseIntent_matchingSource_builtFromColumns() {
+        String uri = newLauncherIntent("Main").toUri(0);
+        LoaderCursor cursor = newIntentCursor(uri, uri);
+        assertTrue(cursor.moveToNext());
+
+        assertEquals(uri, cursor.parseIntent().toUri(0));
+        assertTrue(cursor.getIntentStats().startsWith("1 built from columns"));
+    }
+
+    @Test
+    public void parseIntent_staleSource_parsedFromString() {
+        String uri = newLauncherIntent("Main").toUri(0);
+        // The intent was updated without the intent columns
+        LoaderCursor cursor = newIntentCursor(newLauncherIntent("Other").toUri(0), uri);
+        assertTrue(cursor.moveToNext());
+
+        assertEquals(uri, cursor.parseIntent().toUri(0));
+        assertTrue(cursor.getIntentStats().startsWith("0 built from columns"));
+    }
+
+    private static Intent newLauncherIntent(String className) {
+        return new Intent(Intent.ACTION_MAIN)
+                .addCategory(Intent.CATEGORY_LAUNCHER)
+                .setComponent(new ComponentName("com.example", "com.example." + className))
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+    }
+
+    private LoaderCursor newIntentCursor(String columnsUri, String intentUri) {
+        ContentValues values = new ContentValues();
+        values.put(INTENT, columnsUri);
+        IntentColumns.addToValues(values);
+
+        String[] intentColumns = new String[] {INTENT_ACTION, INTENT_PACKAGE,
+                INTENT_COMPONENT, INTENT_CATEGORY, INTENT_FLAGS, INTENT_SOURCE};
+        String[] columns = new String[mCursor.getColumnCount() + intentColumns.length];
+        System.arraycopy(mCursor.getColumnNames(), 0, columns, 0, mCursor.getColumnCount());
+        System.arraycopy(intentColumns, 0, columns, mCursor.getColumnCount(),
+                intentColumns.length);
+        MatrixCursor cursor = new MatrixCursor(columns);
+        MatrixCursor.RowBuilder row = cursor.newRow()
+                .add(_ID, 1)
+                .add(PROFILE_ID, 0)
+                .add(ITEM_TYPE, ITEM_TYPE_APPLICATION)
+                .add(CONTAINER, CONTAINER_DESKTOP)
+                .add(INTENT, intentUri);
+        for (String column : intentColumns) {
+            row.add(column, values.get(column));
+        }
+        return new LoaderCursor(cursor, Favorites.CONTENT_URI, mApp, new UserManagerState());
+    }
+
     private ItemInfo newItemInfo(int cellX, int cellY, int spanX, int spanY,
             int container, int screenId) {
         ItemInfo info = new ItemInfo();
@@ -15,6 +15,7 @@
  */
 package com.android.launcher3.model;
 
+import static com.android.launcher3.config.FeatureFlags.ENABLE_LAZY_WORKSPACE_PAGES;
 import static com.android.launcher3.util.LauncherModelHelper.TEST_PACKAGE;
 
 import static org.junit.Assert.assertEquals;
@@ -148,6 +149,37 @@ public class ModelMultiCallbacksTest {
         assertFalse(cb2.allApps().contains(TestUtil.DUMMY_PACKAGE));
     }
 
+    @Test
+    public void testLazyPages_onlyAdjacentPagesBound() throws Exception {
+        setupWorkspacePages(5);
+
+        MyCallbacks cb = spy(MyCallbacks.class);
+        try (AutoCloseable flag = TestUtil.overrideFlag(ENABLE_LAZY_WORKSPACE_PAGES, true)) {
+            Executors.MAIN_EXECUTOR.execute(() -> mModelHelper.getModel().addCallbacksAndLoad(cb));
+            waitForLoaderAndTempMainThread();
+            cb.mPendingTasks.executeAllAndDestroy();
+        }
+
+        assertEquals(IntSet.wrap(0, 1), cb.boundScreenIds());
+        assertEquals(IntSet.wrap(2, 3, 4), cb.deferredScreenIds());
+    }
+
+    @Test
+    public void testLazyPages_twoPanels_adjacentPanelGroupBound() throws Exception {
+        setupWorkspacePages(6);
+
+        MyCallbacks cb = spy(MyCallbacks.class);
+        cb.mPageToBindSync = IntSet.wrap(0, 1);
+        try (AutoCloseable flag = TestUtil.overrideFlag(ENABLE_LAZY_WORKSPACE_PAGES, true)) {
+            Executors.MAIN_EXECUTOR.execute(() -> mModelHelper.getModel().addCallbacksAndLoad(cb));
+            waitForLoaderAndTempMainThread();
+            cb.mPendingTasks.executeAllAndDestroy();
+        }
+
+        assertEquals(IntSet.wrap(0, 1, 2, 3), cb.boundScreenIds());
+        assertEquals(IntSet.wrap(4, 5), cb.deferredScreenIds());
+    }
+
     private void waitForLoaderAndTempMainThread() throws Exception {
         Executors.MAIN_EXECUTOR.submit(() -> { }).get();
         Executors.MODEL_EXECUTOR.submit(() -> { }).get();
@@ -166,6 +198,7 @@ public class ModelMultiCallbacksTest {
     private abstract static class MyCallbacks implements Callbacks {
 
         final List<ItemInfo> mItems = new ArrayList<>();
+        final List<ItemInfo> mDeferredItems = new ArrayList<>();
         IntSet mPageToBindSync = IntSet.wrap(0);
         IntSet mPageBoundSync = new IntSet();
         RunnableList mPendingTasks;
@@ -190,6 +223,11 @@ public class ModelMultiCallbacksTest {
             mItems.addAll(shortcuts);
         }
 
+        @Override
+        public void bindDeferredItems(List<ItemInfo> items) {
+            mDeferredItems.addAll(items);
+        }
+
         @Override
         public void bindAllApplications(AppInfo[] apps, int flags) {
             mAppInfos = apps;
@@ -202,6 +240,7 @@ public class ModelMultiCallbacksTest {
 
         public void reset() {
             mItems.clear();
+            mDeferredItems.clear();
             mPageBoundSync = new IntSet();
             mPendingTasks = null;
             mAppInfos = null;
@@ -221,6 +260,18 @@ public class ModelMultiCallbacksTest {
             assertEquals(mItems.size(), totalItems);
         }
 
+        public IntSet boundScreenIds() {
+            IntSet screenIds = new IntSet();
+            mItems.forEach(item -> screenIds.add(item.screenId));
+            return screenIds;
+        }
+
+        public IntSet deferredScreenIds() {
+            IntSet screenIds = new IntSet();
+            mDeferredItems.forEach(item -> screenIds.add(item.screenId));
+            return screenIds;
+        }
+
         public Set<String> allApps() {
             return Arrays.stream(mAppInfos)
                     .map(ai -> ai.getTargetComponent().getPackageName())
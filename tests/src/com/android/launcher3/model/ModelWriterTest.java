@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.LauncherSettings.Favorites.CONTAINER_DESKTOP;
+import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_APPLICATION;
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import android.content.ComponentName;
+import android.content.ContentValues;
+import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.LauncherProvider;
+import com.android.launcher3.LauncherSettings.Favorites;
+import com.android.launcher3.LauncherSettings.Settings;
+import com.android.launcher3.celllayout.CellPosMapper;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.util.LauncherModelHelper;
+import com.android.launcher3.util.LauncherModelHelper.TestLauncherProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for adding items to the database with {@link ModelWriter}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ModelWriterTest {
+
+    // Items with this title can't be inserted by themselves
+    private static final String FAILING_TITLE = "failing";
+
+    private LauncherModelHelper mModelHelper;
+    private TestProvider mProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        mModelHelper = new LauncherModelHelper();
+        mProvider = new TestProvider();
+        mModelHelper.setupProvider(LauncherProvider.AUTHORITY, mProvider);
+        mModelHelper.loadModelSync();
+        mProvider.mCalls.clear();
+        mProvider.mInsertCount = 0;
+    }
+
+    @After
+    public void tearDown() {
+        mModelHelper.destroy();
+    }
+
+    @Test
+    public void addItemsToDatabase_allocatesIdsInOneCall() throws Exception {
+        List<ItemInfo> items = Arrays.asList(newItem("a"), newItem("b"), newItem("c"));
+
+        addItemsToDatabase(items);
+
+        assertEquals(Arrays.asList(Settings.METHOD_NEW_ITEM_IDS), mProvider.mCalls);
+        assertEquals(0, mProvider.mInsertCount);
+        for (ItemInfo item : items) {
+            assertSame(item, mModelHelper.getBgDataModel().itemsIdMap.get(item.id));
+        }
+        assertEquals(3, getDbItemCount(items));
+    }
+
+    @Test
+    public void addItemsToDatabase_bulkInsertFails_addsItemsOneByOne() throws Exception {
+        mProvider.mFailBulkInsert = true;
+        ItemInfo first = newItem("a");
+        ItemInfo failing = newItem(FAILING_TITLE);
+        ItemInfo last = newItem("c");
+
+        addItemsToDatabase(Arrays.asList(first, failing, last));
+
+        BgDataModel dataModel = mModelHelper.getBgDataModel();
+        assertSame(first, dataModel.itemsIdMap.get(first.id));
+        assertNull(dataModel.itemsIdMap.get(failing.id));
+        assertSame(last, dataModel.itemsIdMap.get(last.id));
+        assertEquals(3, mProvider.mInsertCount);
+        assertEquals(2, getDbItemCount(Arrays.asList(first, failing, last)));
+    }
+
+    private void addItemsToDatabase(List<ItemInfo> items) throws Exception {
+        ModelWriter writer = mModelHelper.getModel().getWriter(
+                false /* hasVerticalHotseat */, false /* verifyChanges */,
+                CellPosMapper.DEFAULT, null /* owner */);
+        List<int[]> positions = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            positions.add(new int[] {0 /* screenId */, i /* cellX */, 0 /* cellY */});
+        }
+        // The items are written right away on the model thread
+        MODEL_EXECUTOR.submit(
+                () -> writer.addItemsToDatabase(items, CONTAINER_DESKTOP, positions)).get();
+    }
+
+    private int getDbItemCount(List<ItemInfo> items) {
+        int count = 0;
+        for (ItemInfo item : items) {
+            try (Cursor c = mProvider.getDb().query(Favorites.TABLE_NAME, null,
+                    Favorites._ID + " = " + item.id, null, null, null, null)) {
+                count += c.getCount();
+            }
+        }
+        return count;
+    }
+
+    private static ItemInfo newItem(String title) {
+        WorkspaceItemInfo item = new WorkspaceItemInfo();
+        item.itemType = ITEM_TYPE_APPLICATION;
+        item.title = title;
+        item.user = Process.myUserHandle();
+        item.intent = new Intent().setComponent(new ComponentName("com.example." + title, "Main"));
+        return item;
+    }
+
+    private static class TestProvider extends TestLauncherProvider {
+
+        final List<String> mCalls = new ArrayList<>();
+        boolean mFailBulkInsert;
+        int mInsertCount;
+
+        @Override
+        public int bulkInsert(Uri uri, ContentValues[] values) {
+            return mFailBulkInsert ? 0 : super.bulkInsert(uri, values);
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            mInsertCount++;
+            return FAILING_TITLE.equals(values.getAsString(Favorites.TITLE))
+                    ? null : super.insert(uri, values);
+        }
+
+        @Override
+        public Bundle call(String method, String arg, Bundle extras) {
+            mCalls.add(method);
+            return super.call(method, arg, extras);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static android.appwidget.AppWidgetProviderInfo.WIDGET_FEATURE_HIDE_FROM_PICKER;
+
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+import static com.android.launcher3.util.LauncherModelHelper.TEST_PACKAGE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import android.appwidget.AppWidgetProviderInfo;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.pm.ShortcutConfigActivityInfo;
+import com.android.launcher3.util.LauncherModelHelper;
+import com.android.launcher3.util.PackageUserKey;
+import com.android.launcher3.widget.LauncherAppWidgetProviderInfo;
+import com.android.launcher3.widget.WidgetManagerHelper;
+import com.android.launcher3.widget.model.WidgetsIndex;
+import com.android.launcher3.widget.model.WidgetsListBaseEntry;
+import com.android.launcher3.widget.model.WidgetsListContentEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the lazily created {@link WidgetItem}s of {@link WidgetsModel}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class WidgetsModelTest {
+
+    private LauncherModelHelper mModelHelper;
+    private Context mContext;
+    private PackageUserKey mTestPackage;
+
+    @Before
+    public void setUp() throws Exception {
+        mModelHelper = new LauncherModelHelper();
+        mContext = mModelHelper.sandboxContext;
+        mTestPackage = new PackageUserKey(TEST_PACKAGE, Process.myUserHandle());
+        mModelHelper.loadModelSync();
+    }
+
+    @After
+    public void tearDown() {
+        mModelHelper.destroy();
+    }
+
+    @Test
+    public void getWidgets_createsItemsOnce() throws Exception {
+        WidgetsIndex index = getWidgetsIndex();
+
+        List<WidgetItem> first = index.getWidgets(mTestPackage);
+        List<WidgetItem> second = index.getWidgets(mTestPackage);
+
+        assertFalse(first.isEmpty());
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertSame(first.get(i), second.get(i));
+        }
+    }
+
+    @Test
+    public void getWidgetsListForPicker_sharesItemsWithPackageLookup() throws Exception {
+        WidgetsIndex index = getWidgetsIndex();
+        // Let the background creation of the items run first
+        MODEL_EXECUTOR.submit(() -> { }).get();
+
+        List<WidgetItem> packageItems = index.getWidgets(mTestPackage);
+        WidgetsListContentEntry pickerEntry = null;
+        for (WidgetsListBaseEntry entry : index.getWidgetsListForPicker()) {
+            if (entry instanceof WidgetsListContentEntry
+                    && mTestPackage.equals(PackageUserKey.fromPackageItemInfo(entry.mPkgItem))) {
+                pickerEntry = (WidgetsListContentEntry) entry;
+            }
+        }
+
+        assertNotNull(pickerEntry);
+        assertEquals(packageItems.size(), pickerEntry.mWidgets.size());
+        for (WidgetItem item : packageItems) {
+            assertSame(item, pickerEntry.mWidgets.stream()
+                    .filter(other -> other.componentName.equals(item.componentName))
+                    .findFirst()
+                    .orElse(null));
+        }
+    }
+
+    @Test
+    public void getWidgets_matchesEagerlyCreatedItems() throws Exception {
+        LauncherAppState app = LauncherAppState.getInstance(mContext);
+        Map<ComponentName, WidgetItem> expected = new HashMap<>();
+        for (AppWidgetProviderInfo providerInfo :
+                new WidgetManagerHelper(mContext).getAllProviders(mTestPackage)) {
+            LauncherAppWidgetProviderInfo info =
+                    LauncherAppWidgetProviderInfo.fromProviderInfo(mContext, providerInfo);
+            if ((info.getWidgetFeatures() & WIDGET_FEATURE_HIDE_FROM_PICKER) == 0
+                    && info.isMinSizeFulfilled()) {
+                expected.put(info.provider, new WidgetItem(
+                        info, app.getInvariantDeviceProfile(), app.getIconCache()));
+            }
+        }
+        for (ShortcutConfigActivityInfo info :
+                ShortcutConfigActivityInfo.queryList(mContext, mTestPackage)) {
+            expected.put(info.getComponent(), new WidgetItem(
+                    info, app.getIconCache(), mContext.getPackageManager()));
+        }
+
+        List<WidgetItem> items = getWidgetsIndex().getWidgets(mTestPackage);
+
+        assertEquals(expected.size(), items.size());
+        for (WidgetItem item : items) {
+            WidgetItem eager = expected.get(item.componentName);
+            assertNotNull(eager);
+            assertEquals(eager.label, item.label);
+            assertEquals(eager.spanX, item.spanX);
+            assertEquals(eager.spanY, item.spanY);
+            assertEquals(eager.widgetInfo == null, item.widgetInfo == null);
+        }
+    }
+
+    private WidgetsIndex getWidgetsIndex() throws Exception {
+        return mModelHelper.executeSimpleTask(model -> model.widgetsModel.getWidgetsIndex());
+    }
+}
@@ -176,4 +176,27 @@ class WorkspaceItemSpaceFinderTest : AbstractWorkspaceModelTest() {
         assertThat(spaceFound.screenId).isEqualTo(3)
         assertRegionVacant(spaceFound, 3, 1)
     }
+
+    @Test
+    fun batchOfItems_whenFindSpaceForItems_thenReturnDistinctSpaces() {
+        setupWorkspacesWithSpaces(
+            // 3x2 space on screen 0, but it should be skipped
+            screen0 = listOf(Rect(2, 0, 5, 2)),
+            screen1 = listOf(Rect(2, 2, 4, 3)), // 2x1 space
+        )
+
+        mItemSpaceFinder.startBatch()
+        val firstSpace = findSpace(1, 1)
+        val secondSpace = findSpace(1, 1)
+        val thirdSpace = findSpace(1, 1)
+        mItemSpaceFinder.endBatch()
+
+        assertThat(firstSpace.screenId).isEqualTo(1)
+        assertThat(secondSpace.screenId).isEqualTo(1)
+        assertThat(secondSpace).isNotEqualTo(firstSpace)
+        assertRegionVacant(firstSpace, 1, 1)
+        assertRegionVacant(secondSpace, 1, 1)
+        // The 2x1 space is full, so the third item goes to a new screen
+        assertThat(mNewScreens.contains(thirdSpace.screenId)).isTrue()
+    }
 }
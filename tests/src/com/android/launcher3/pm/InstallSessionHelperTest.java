@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.pm;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.pm.LauncherApps;
+import android.content.pm.PackageInstaller;
+import android.content.pm.PackageInstaller.SessionInfo;
+import android.os.Process;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.Utilities;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Tests for the tracker-maintained session cache of {@link InstallSessionHelper}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class InstallSessionHelperTest {
+
+    // Installer packages are trusted when they are installed on the device
+    private static final String TRUSTED_INSTALLER = "android";
+    private static final String UNTRUSTED_INSTALLER = "com.android.launcher3.tests.no_such_app";
+
+    private static final int SESSION_ID = 1;
+    private static final int OTHER_SESSION_ID = 2;
+
+    private PackageInstaller mInstaller;
+    private LauncherApps mLauncherApps;
+    private InstallSessionHelper mHelper;
+    private InstallSessionTracker mTracker;
+
+    @Before
+    public void setUp() {
+        mInstaller = mock(PackageInstaller.class);
+        mLauncherApps = mock(LauncherApps.class);
+        mHelper = new InstallSessionHelper(getApplicationContext(), mInstaller, mLauncherApps);
+        // Without a callback only the cache is updated by the tracker
+        mTracker = new InstallSessionTracker(mHelper, null, mInstaller, mLauncherApps);
+    }
+
+    @Test
+    public void getAllVerifiedSessions_afterSync_doesNotQueryInstaller() throws Exception {
+        setInstallerSessions(createSession(SESSION_ID, TRUSTED_INSTALLER, 0.1f, true),
+                createSession(OTHER_SESSION_ID, UNTRUSTED_INSTALLER, 0.1f, true));
+        onModel(mHelper::syncSessionCache);
+
+        List<SessionInfo> first = onModel(mHelper::getAllVerifiedSessions);
+        List<SessionInfo> second = onModel(mHelper::getAllVerifiedSessions);
+
+        assertEquals(1, first.size());
+        assertEquals(SESSION_ID, first.get(0).getSessionId());
+        assertEquals(first, second);
+        verifyAllSessionsQueried(1);
+    }
+
+    @Test
+    public void onProgressChanged_refreshesCachedSession() throws Exception {
+        setInstallerSessions(createSession(SESSION_ID, TRUSTED_INSTALLER, 0.1f, true));
+        onModel(mHelper::syncSessionCache);
+
+        setSessionInfo(createSession(SESSION_ID, TRUSTED_INSTALLER, 0.5f, true));
+        onModel(() -> mTracker.onProgressChanged(SESSION_ID, 0.5f));
+
+        assertEquals(0.5f, getCachedSession().getProgress(), 0f);
+    }
+
+    @Test
+    public void onActiveChanged_refreshesCachedSession() throws Exception {
+        setInstallerSessions(createSession(SESSION_ID, TRUSTED_INSTALLER, 0.1f, true));
+        onModel(mHelper::syncSessionCache);
+
+        setSessionInfo(createSession(SESSION_ID, TRUSTED_INSTALLER, 0.1f, false));
+        onModel(() -> mTracker.onActiveChanged(SESSION_ID, false));
+
+        assertFalse(getCachedSession().isActive());
+    }
+
+    @Test
+    public void refresh_sessionNoLongerVerified_removedFromCache() throws Exception {
+        setInstallerSessions(createSession(SESSION_ID, TRUSTED_INSTALLER, 0.1f, true));
+        onModel(mHelper::syncSessionCache);
+
+        setSessionInfo(createSession(SESSION_ID, null, 0.2f, true));
+        onModel(() -> mTracker.onProgressChanged(SESSION_ID, 0.2f));
+
+        assertTrue(onModel(mHelper::getAllVerifiedSessions).isEmpty());
+        verifyAllSessionsQueried(1);
+    }
+
+    @Test
+    public void onFinished_removesSessionFromCache() throws Exception {
+        setInstallerSessions(createSession(SESSION_ID, TRUSTED_INSTALLER, 0.1f, true),
+                createSession(OTHER_SESSION_ID, TRUSTED_INSTALLER, 0.1f, true));
+        onModel(mHelper::syncSessionCache);
+
+        onModel(() -> mTracker.onFinished(SESSION_ID, true));
+
+        List<SessionInfo> sessions = onModel(mHelper::getAllVerifiedSessions);
+        assertEquals(1, sessions.size());
+        assertEquals(OTHER_SESSION_ID, sessions.get(0).getSessionId());
+    }
+
+    @Test
+    public void clearSessionCache_queriesInstallerAgain() throws Exception {
+        setInstallerSessions(createSession(SESSION_ID, TRUSTED_INSTALLER, 0.1f, true));
+        onModel(mHelper::syncSessionCache);
+        onModel(mHelper::clearSessionCache);
+
+        setInstallerSessions();
+        assertTrue(onModel(mHelper::getAllVerifiedSessions).isEmpty());
+        verifyAllSessionsQueried(2);
+    }
+
+    private SessionInfo getCachedSession() throws Exception {
+        List<SessionInfo> sessions = onModel(mHelper::getAllVerifiedSessions);
+        assertEquals(1, sessions.size());
+        return sessions.get(0);
+    }
+
+    private void setInstallerSessions(SessionInfo... sessions) {
+        List<SessionInfo> list = Arrays.asList(sessions);
+        doReturn(list).when(mLauncherApps).getAllPackageInstallerSessions();
+        doReturn(list).when(mInstaller).getAllSessions();
+        for (SessionInfo info : sessions) {
+            setSessionInfo(info);
+        }
+    }
+
+    private void setSessionInfo(SessionInfo info) {
+        int sessionId = info.getSessionId();
+        doReturn(info).when(mInstaller).getSessionInfo(sessionId);
+    }
+
+    private void verifyAllSessionsQueried(int count) {
+        if (Utilities.ATLEAST_Q) {
+            verify(mLauncherApps, times(count)).getAllPackageInstallerSessions();
+        } else {
+            verify(mInstaller, times(count)).getAllSessions();
+        }
+    }
+
+    private static SessionInfo createSession(
+            int sessionId, String installer, float progress, boolean active) {
+        SessionInfo info = mock(SessionInfo.class);
+        doReturn(sessionId).when(info).getSessionId();
+        doReturn(installer).when(info).getInstallerPackageName();
+        doReturn("com.example.app" + sessionId).when(info).getAppPackageName();
+        doReturn(Process.myUserHandle()).when(info).getUser();
+        doReturn(progress).when(info).getProgress();
+        doReturn(active).when(info).isActive();
+        return info;
+    }
+
+    private static void onModel(Runnable runnable) throws Exception {
+        MODEL_EXECUTOR.submit(runnable).get();
+    }
+
+    private static <V> V onModel(Callable<V> callable) throws Exception {
+        return MODEL_EXECUTOR.submit(callable).get();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.popup;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import android.app.Notification;
+import android.os.Process;
+import android.service.notification.StatusBarNotification;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.notification.NotificationKeyData;
+import com.android.launcher3.notification.NotificationListener.NotificationChange;
+import com.android.launcher3.util.PackageUserKey;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Tests for the notification dot updates of {@link PopupDataProvider}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PopupDataProviderTest {
+
+    private static final PackageUserKey PACKAGE_1 =
+            new PackageUserKey("com.example.app1", Process.myUserHandle());
+    private static final PackageUserKey PACKAGE_2 =
+            new PackageUserKey("com.example.app2", Process.myUserHandle());
+
+    private final List<Predicate<PackageUserKey>> mDotUpdates = new ArrayList<>();
+    private PopupDataProvider mProvider;
+
+    @Before
+    public void setUp() {
+        mProvider = new PopupDataProvider(mDotUpdates::add);
+    }
+
+    @Test
+    public void batchOfChangesUpdatesDotsOnce() {
+        mProvider.onNotificationsChanged(Arrays.asList(
+                new NotificationChange(PACKAGE_1, createKey("key1"), true),
+                new NotificationChange(PACKAGE_1, createKey("key2"), true),
+                new NotificationChange(PACKAGE_2, createKey("key3"), true)));
+
+        assertEquals(1, mDotUpdates.size());
+        assertTrue(mDotUpdates.get(0).test(PACKAGE_1));
+        assertTrue(mDotUpdates.get(0).test(PACKAGE_2));
+    }
+
+    @Test
+    public void changesInBatchAreAppliedInOrder() {
+        NotificationKeyData key = createKey("key1");
+        mProvider.onNotificationsChanged(Arrays.asList(
+                new NotificationChange(PACKAGE_1, key, true),
+                new NotificationChange(PACKAGE_1, key, false),
+                new NotificationChange(PACKAGE_2, createKey("key2"), true)));
+
+        assertEquals(1, mDotUpdates.size());
+        assertTrue(mDotUpdates.get(0).test(PACKAGE_1));
+        assertTrue(mDotUpdates.get(0).test(PACKAGE_2));
+    }
+
+    @Test
+    public void batchWithoutDotChangesDoesNotUpdateDots() {
+        mProvider.onNotificationsChanged(Arrays.asList(
+                new NotificationChange(PACKAGE_1, createKey("key1"), false)));
+
+        assertTrue(mDotUpdates.isEmpty());
+    }
+
+    private static NotificationKeyData createKey(String key) {
+        Notification notification =
+                new Notification.Builder(getApplicationContext(), "channel").build();
+        StatusBarNotification sbn = mock(StatusBarNotification.class);
+        doReturn(key).when(sbn).getKey();
+        doReturn(notification).when(sbn).getNotification();
+        return NotificationKeyData.fromNotification(sbn);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.provider;
+
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_ACTION;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_CATEGORY;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_COMPONENT;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_FLAGS;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_PACKAGE;
+import static com.android.launcher3.LauncherSettings.Favorites.INTENT_SOURCE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import android.content.ComponentName;
+import android.content.ContentValues;
+import android.content.Intent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests for {@link IntentColumns}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class IntentColumnsTest {
+
+    @Test
+    public void launcherIntent_builtFromColumns() {
+        String uri = new Intent(Intent.ACTION_MAIN)
+                .addCategory(Intent.CATEGORY_LAUNCHER)
+                .setComponent(new ComponentName("com.example", "com.example.Main"))
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK)
+                .toUri(0);
+        ContentValues values = new ContentValues();
+        values.put(INTENT, uri);
+
+        IntentColumns.addToValues(values);
+
+        assertEquals(uri, values.getAsString(INTENT_SOURCE));
+        Intent intent = IntentColumns.buildIntent(values.getAsString(INTENT_ACTION),
+                values.getAsString(INTENT_PACKAGE), values.getAsString(INTENT_COMPONENT),
+                values.getAsString(INTENT_CATEGORY), values.getAsInteger(INTENT_FLAGS));
+        assertEquals(uri, intent.toUri(0));
+    }
+
+    @Test
+    public void intentWithExtras_notBuiltFromColumns() {
+        String uri = new Intent(Intent.ACTION_MAIN)
+                .setPackage("com.example")
+                .putExtra("shortcut_id", "id")
+                .toUri(0);
+        ContentValues values = new ContentValues();
+        values.put(INTENT, uri);
+
+        IntentColumns.addToValues(values);
+
+        assertNull(values.getAsString(INTENT_SOURCE));
+    }
+
+    @Test
+    public void valuesWithoutIntent_unchanged() {
+        ContentValues values = new ContentValues();
+
+        IntentColumns.addToValues(values);
+
+        assertFalse(values.containsKey(INTENT_SOURCE));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link FrameBudgetExecutor}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class FrameBudgetExecutorTest {
+
+    private static final long FRAME_60HZ_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    @Test
+    public void tasksRunInOrderAcrossFrames() throws Exception {
+        CountDownLatch drained = new CountDownLatch(1);
+        List<Integer> order = new ArrayList<>();
+        FrameBudgetExecutor[] executor = new FrameBudgetExecutor[1];
+        MAIN_EXECUTOR.submit(() -> {
+            executor[0] = new FrameBudgetExecutor(60, drained::countDown);
+            for (int i = 0; i < 5; i++) {
+                int index = i;
+                executor[0].execute(() -> {
+                    order.add(index);
+                    // Exceed the frame budget so that each task gets its own frame
+                    sleepUninterruptibly(10);
+                });
+            }
+        }).get();
+
+        assertTrue(drained.await(5, TimeUnit.SECONDS));
+        assertThat(order).containsExactly(0, 1, 2, 3, 4).inOrder();
+        assertEquals(5, executor[0].getTasksExecuted());
+        assertEquals(5, executor[0].getFramesUsed());
+    }
+
+    @Test
+    public void flushRunsPendingTasksImmediately() throws Exception {
+        List<Integer> order = new ArrayList<>();
+        MAIN_EXECUTOR.submit(() -> {
+            FrameBudgetExecutor executor = new FrameBudgetExecutor(60, null);
+            executor.execute(() -> order.add(1));
+            executor.execute(() -> order.add(2));
+            executor.flush();
+            assertTrue(executor.isIdle());
+        }).get();
+        assertThat(order).containsExactly(1, 2).inOrder();
+    }
+
+    @Test
+    public void cancelDropsPendingTasks() throws Exception {
+        List<Integer> order = new ArrayList<>();
+        MAIN_EXECUTOR.submit(() -> {
+            FrameBudgetExecutor executor = new FrameBudgetExecutor(60, null);
+            executor.execute(() -> order.add(1));
+            executor.cancel();
+            assertTrue(executor.isIdle());
+        }).get();
+        // Wait for any frame that might have been scheduled
+        Thread.sleep(50);
+        assertThat(order).isEmpty();
+    }
+
+    @Test
+    public void missedVsyncsAreCountedAsDropped() {
+        FrameBudgetExecutor executor = new FrameBudgetExecutor(60, null);
+        long frameTime = FRAME_60HZ_NANOS * 100;
+        executor.recordFrame(frameTime);
+        executor.recordFrame(frameTime += FRAME_60HZ_NANOS);
+        assertEquals(0, executor.getFramesDropped());
+
+        executor.recordFrame(frameTime += 3 * FRAME_60HZ_NANOS);
+        assertEquals(2, executor.getFramesDropped());
+        assertEquals(3, executor.getFramesUsed());
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
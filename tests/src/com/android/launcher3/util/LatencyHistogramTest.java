@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link LatencyHistogram}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(50));
+    }
+
+    @Test
+    public void percentilesUseBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 0; i < 9; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(10));
+        }
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(LatencyHistogram.MIN_BUCKET_MICROS, histogram.getPercentileMicros(50));
+        assertEquals(LatencyHistogram.MIN_BUCKET_MICROS, histogram.getPercentileMicros(90));
+        // The 100us sample falls in the [64, 128) bucket, capped by the max recorded value
+        assertEquals(100, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    public void largeDurationsFallInLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(TimeUnit.SECONDS.toMicros(1), histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void resetClearsSamples() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+    }
+}
@@ -529,6 +529,11 @@ public class LauncherModelHelper {
             return new File(mDbDir, name);
         }
 
+        @Override
+        public File getFileStreamPath(String name) {
+            return getDatabasePath(name);
+        }
+
         @Override
         public ContentResolver getContentResolver() {
             return mMockResolver;
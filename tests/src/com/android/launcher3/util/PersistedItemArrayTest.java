@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_APPLICATION;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Process;
+import android.os.UserHandle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.launcher3.model.data.WorkspaceItemInfo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PersistedItemArrayTest {
+
+    private static final String FILE_NAME = "persisted_item_array_test";
+
+    private Context mContext;
+    private PersistedItemArray<WorkspaceItemInfo> mStorage;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mStorage = new PersistedItemArray<>(FILE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        mStorage.delete(mContext);
+    }
+
+    @Test
+    public void writeThenRead_returnsSameItems() {
+        mStorage.write(mContext, Arrays.asList(newItem("a"), newItem("b")));
+
+        List<WorkspaceItemInfo> items =
+                new PersistedItemArray<WorkspaceItemInfo>(FILE_NAME).read(mContext, this::create);
+
+        assertThat(items).hasSize(2);
+        assertThat(items.get(0).getTargetComponent().getClassName()).isEqualTo("a");
+        assertThat(items.get(1).getTargetComponent().getClassName()).isEqualTo("b");
+    }
+
+    @Test
+    public void write_sameItems_doesNotRewriteFile() throws Exception {
+        mStorage.write(mContext, Arrays.asList(newItem("a")));
+        // Replace the file with a marker, which is only kept if the next write is skipped
+        byte[] marker = "marker".getBytes(StandardCharsets.UTF_8);
+        writeFile(marker);
+
+        mStorage.write(mContext, Arrays.asList(newItem("a")));
+
+        assertThat(mStorage.getFile(mContext).readFully()).isEqualTo(marker);
+    }
+
+    @Test
+    public void read_corruptFile_returnsEmptyList() throws Exception {
+        mStorage.write(mContext, Arrays.asList(newItem("a")));
+        // Flip a byte in the payload, after the 16 byte header
+        byte[] data = mStorage.getFile(mContext).readFully();
+        data[16] ^= 0xff;
+        writeFile(data);
+
+        assertThat(mStorage.read(mContext, this::create)).isEmpty();
+    }
+
+    @Test
+    public void read_afterCorruptFile_appliesJournal() throws Exception {
+        mStorage.write(mContext, Arrays.asList(newItem("a")));
+        byte[] data = mStorage.getFile(mContext).readFully();
+        data[16] ^= 0xff;
+        writeFile(data);
+        mStorage.read(mContext, this::create);
+
+        mStorage.append(mContext, newItem("b"));
+        List<WorkspaceItemInfo> items =
+                new PersistedItemArray<WorkspaceItemInfo>(FILE_NAME).read(mContext, this::create);
+
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).getTargetComponent().getClassName()).isEqualTo("b");
+    }
+
+    @Test
+    public void read_invalidPayloadLength_returnsEmptyList() throws Exception {
+        mStorage.write(mContext, Arrays.asList(newItem("a")));
+        // Replace the payload length, after the magic, version and generation
+        byte[] data = mStorage.getFile(mContext).readFully();
+        ByteBuffer.wrap(data).putInt(12, Integer.MAX_VALUE);
+        writeFile(data);
+
+        assertThat(mStorage.read(mContext, this::create)).isEmpty();
+    }
+
+    @Test
+    public void read_appliesJournal() {
+        mStorage.write(mContext, Arrays.asList(newItem("a"), newItem("b")));
+        mStorage.append(mContext, newItem("c"));
+        mStorage.appendRemoval(mContext, newItem("a"));
+
+        PersistedItemArray<WorkspaceItemInfo> storage = new PersistedItemArray<>(FILE_NAME);
+        List<WorkspaceItemInfo> items = storage.read(mContext, this::create);
+
+        assertThat(items).hasSize(2);
+        assertThat(items.get(0).getTargetComponent().getClassName()).isEqualTo("b");
+        assertThat(items.get(1).getTargetComponent().getClassName()).isEqualTo("c");
+        assertThat(storage.getJournalSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void read_withoutWrite_appliesJournal() {
+        mStorage.read(mContext, this::create);
+        mStorage.append(mContext, newItem("a"));
+
+        List<WorkspaceItemInfo> items =
+                new PersistedItemArray<WorkspaceItemInfo>(FILE_NAME).read(mContext, this::create);
+
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).getTargetComponent().getClassName()).isEqualTo("a");
+    }
+
+    @Test
+    public void write_compactsJournal() {
+        mStorage.write(mContext, Arrays.asList(newItem("a")));
+        mStorage.append(mContext, newItem("b"));
+
+        mStorage.write(mContext, Arrays.asList(newItem("a"), newItem("b")));
+
+        assertThat(mStorage.getJournalSize()).isEqualTo(0);
+        assertThat(new PersistedItemArray<WorkspaceItemInfo>(FILE_NAME)
+                .read(mContext, this::create)).hasSize(2);
+    }
+
+    @Test
+    public void read_incompleteJournalRecord_ignoresRecord() throws Exception {
+        mStorage.write(mContext, Arrays.asList(newItem("a")));
+        mStorage.append(mContext, newItem("b"));
+        mStorage.append(mContext, newItem("c"));
+        // Drop the end of the last record, as if the append was interrupted
+        File journal = mContext.getFileStreamPath(FILE_NAME + ".journal");
+        try (RandomAccessFile raf = new RandomAccessFile(journal, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+
+        List<WorkspaceItemInfo> items = mStorage.read(mContext, this::create);
+
+        assertThat(items).hasSize(2);
+        assertThat(items.get(1).getTargetComponent().getClassName()).isEqualTo("b");
+    }
+
+    private void writeFile(byte[] data) throws Exception {
+        try (FileOutputStream fos = new FileOutputStream(
+                mStorage.getFile(mContext).getBaseFile())) {
+            fos.write(data);
+        }
+    }
+
+    private WorkspaceItemInfo newItem(String className) {
+        WorkspaceItemInfo info = new WorkspaceItemInfo();
+        info.itemType = ITEM_TYPE_APPLICATION;
+        info.user = Process.myUserHandle();
+        info.intent = new Intent(Intent.ACTION_MAIN)
+                .setComponent(new ComponentName(mContext.getPackageName(), className));
+        return info;
+    }
+
+    private WorkspaceItemInfo create(int itemType, UserHandle user, Intent intent) {
+        WorkspaceItemInfo info = new WorkspaceItemInfo();
+        info.itemType = itemType;
+        info.user = user;
+        info.intent = intent;
+        return info;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget;
+
+import static com.android.launcher3.widget.WidgetInflationExecutor.PRIORITY_ADJACENT;
+import static com.android.launcher3.widget.WidgetInflationExecutor.PRIORITY_DEFAULT;
+import static com.android.launcher3.widget.WidgetInflationExecutor.PRIORITY_VISIBLE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link WidgetInflationExecutor}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class WidgetInflationExecutorTest {
+
+    private final List<Runnable> mWorkerTasks = new ArrayList<>();
+    private final List<String> mRunOrder = new ArrayList<>();
+    private WidgetInflationExecutor mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = new WidgetInflationExecutor(mWorkerTasks::add);
+    }
+
+    @Test
+    public void tasksRunByPriority() {
+        TestTarget offscreen = new TestTarget(PRIORITY_DEFAULT);
+        TestTarget adjacent = new TestTarget(PRIORITY_ADJACENT);
+        TestTarget visible = new TestTarget(PRIORITY_VISIBLE);
+        mExecutor.execute(offscreen, () -> mRunOrder.add("offscreen"));
+        mExecutor.execute(adjacent, () -> mRunOrder.add("adjacent"));
+        mExecutor.execute(visible, () -> mRunOrder.add("visible"));
+
+        runWorkerTasks();
+
+        assertThat(mRunOrder).containsExactly("visible", "adjacent", "offscreen").inOrder();
+    }
+
+    @Test
+    public void pendingTaskIsReplacedByNewerTaskForSameTarget() {
+        TestTarget target = new TestTarget(PRIORITY_VISIBLE);
+        mExecutor.execute(target, () -> mRunOrder.add("first"));
+        mExecutor.execute(target, () -> mRunOrder.add("second"));
+
+        runWorkerTasks();
+
+        assertThat(mRunOrder).containsExactly("second");
+    }
+
+    @Test
+    public void updatePrioritiesReordersPendingTasks() {
+        TestTarget first = new TestTarget(PRIORITY_VISIBLE);
+        TestTarget second = new TestTarget(PRIORITY_DEFAULT);
+        mExecutor.execute(first, () -> mRunOrder.add("first"));
+        mExecutor.execute(second, () -> mRunOrder.add("second"));
+
+        // The user moved to the page of the second widget
+        first.priority = PRIORITY_ADJACENT;
+        second.priority = PRIORITY_VISIBLE;
+        mExecutor.updatePriorities();
+        runWorkerTasks();
+
+        assertThat(mRunOrder).containsExactly("second", "first").inOrder();
+    }
+
+    private void runWorkerTasks() {
+        for (Runnable task : new ArrayList<>(mWorkerTasks)) {
+            task.run();
+        }
+        mWorkerTasks.clear();
+    }
+
+    private static class TestTarget implements WidgetInflationExecutor.InflationTarget {
+        int priority;
+
+        TestTarget(int priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public int getInflationPriority() {
+            return priority;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget.picker;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.os.UserHandle;
+import android.view.LayoutInflater;
+
+import androidx.recyclerview.widget.RecyclerView.AdapterDataObserver;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.model.data.PackageItemInfo;
+import com.android.launcher3.util.ActivityContextWrapper;
+import com.android.launcher3.util.PackageUserKey;
+import com.android.launcher3.widget.model.WidgetsListBaseEntry;
+import com.android.launcher3.widget.model.WidgetsListContentEntry;
+import com.android.launcher3.widget.model.WidgetsListHeaderEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for the background update of the visible entries in {@link WidgetsListAdapter}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public final class WidgetsListAdapterTest {
+
+    private static final String[] TEST_PACKAGES = {"com.test.a", "com.test.b", "com.test.c"};
+
+    private WidgetsListAdapter mAdapter;
+    private List<WidgetsListBaseEntry> mAllEntries;
+    private int mInsertedCount;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = new ActivityContextWrapper(getApplicationContext());
+        mAllEntries = new ArrayList<>();
+        for (String packageName : TEST_PACKAGES) {
+            PackageItemInfo pkgItem = new PackageItemInfo(packageName, UserHandle.CURRENT);
+            pkgItem.title = packageName;
+            mAllEntries.add(WidgetsListHeaderEntry.create(
+                    pkgItem, /* titleSectionName= */ "", Collections.emptyList()));
+            mAllEntries.add(new WidgetsListContentEntry(
+                    pkgItem, /* titleSectionName= */ "", Collections.emptyList()));
+        }
+
+        onMain(() -> {
+            mAdapter = new WidgetsListAdapter(context, LayoutInflater.from(context),
+                    () -> 0, /* iconClickListener= */ null, /* iconLongClickListener= */ null,
+                    /* headerChangeListener= */ null);
+            mAdapter.setWidgets(mAllEntries);
+            mAdapter.registerAdapterDataObserver(new AdapterDataObserver() {
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    mInsertedCount += itemCount;
+                }
+            });
+        });
+    }
+
+    @Test
+    public void setWidgets_updatesSynchronously() {
+        // Space entry and one header per package
+        assertThat(mAdapter.getItemCount()).isEqualTo(TEST_PACKAGES.length + 1);
+        assertThat(getExpandedPackages()).isEmpty();
+    }
+
+    @Test
+    public void onHeaderClicked_appliesEntriesInBackground() throws Exception {
+        List<String> expandedBeforeUpdate = new ArrayList<>();
+        onMain(() -> {
+            mAdapter.onHeaderClicked(true, getKey(1));
+            expandedBeforeUpdate.addAll(getExpandedPackages());
+        });
+        waitForPendingUpdate();
+
+        assertThat(expandedBeforeUpdate).isEmpty();
+        assertThat(getExpandedPackages()).containsExactly(TEST_PACKAGES[1]);
+        assertThat(mInsertedCount).isEqualTo(1);
+    }
+
+    @Test
+    public void onHeaderClicked_laterClick_dropsStaleResult() throws Exception {
+        onMain(() -> {
+            mAdapter.onHeaderClicked(true, getKey(0));
+            mAdapter.onHeaderClicked(true, getKey(2));
+        });
+        waitForPendingUpdate();
+
+        assertThat(getExpandedPackages()).containsExactly(TEST_PACKAGES[2]);
+        // The result expanding the first package was never applied
+        assertThat(mInsertedCount).isEqualTo(1);
+    }
+
+    @Test
+    public void onHeaderClicked_collapseWhileExpandPending_staysCollapsed() throws Exception {
+        onMain(() -> {
+            mAdapter.onHeaderClicked(true, getKey(0));
+            mAdapter.onHeaderClicked(false, getKey(0));
+        });
+        waitForPendingUpdate();
+
+        assertThat(getExpandedPackages()).isEmpty();
+        assertThat(mAdapter.getItemCount()).isEqualTo(TEST_PACKAGES.length + 1);
+        assertThat(mInsertedCount).isEqualTo(0);
+    }
+
+    @Test
+    public void resetExpandedHeader_whileExpandPending_staysCollapsed() throws Exception {
+        onMain(() -> {
+            mAdapter.onHeaderClicked(true, getKey(1));
+            mAdapter.resetExpandedHeader();
+        });
+        waitForPendingUpdate();
+
+        assertThat(getExpandedPackages()).isEmpty();
+        assertThat(mInsertedCount).isEqualTo(0);
+    }
+
+    @Test
+    public void setWidgets_whileExpandPending_keepsExpandedPackage() throws Exception {
+        onMain(() -> {
+            mAdapter.onHeaderClicked(true, getKey(1));
+            mAdapter.setWidgets(mAllEntries);
+        });
+        waitForPendingUpdate();
+
+        assertThat(getExpandedPackages()).containsExactly(TEST_PACKAGES[1]);
+        assertThat(mInsertedCount).isEqualTo(1);
+    }
+
+    private List<String> getExpandedPackages() {
+        return mAdapter.getItems().stream()
+                .filter(entry -> entry instanceof WidgetsListContentEntry)
+                .map(entry -> entry.mPkgItem.packageName)
+                .collect(Collectors.toList());
+    }
+
+    private static PackageUserKey getKey(int index) {
+        return new PackageUserKey(TEST_PACKAGES[index], UserHandle.CURRENT);
+    }
+
+    private static void waitForPendingUpdate() throws Exception {
+        UI_HELPER_EXECUTOR.submit(() -> { }).get();
+        MAIN_EXECUTOR.submit(() -> { }).get();
+    }
+
+    private static void onMain(Runnable runnable) throws Exception {
+        MAIN_EXECUTOR.submit(runnable).get();
+    }
+}